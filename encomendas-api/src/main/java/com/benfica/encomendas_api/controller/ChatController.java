@@ -2,17 +2,21 @@ package com.benfica.encomendas_api.controller;
 
 import com.benfica.encomendas_api.dto.*;
 import com.benfica.encomendas_api.model.Conversa;
+import com.benfica.encomendas_api.repository.EquipeRepository;
 import com.benfica.encomendas_api.service.ChatService;
 import com.benfica.encomendas_api.service.FileUploadService;
+import com.benfica.encomendas_api.service.PresencaService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
 import java.util.*;
@@ -29,6 +33,12 @@ public class ChatController {
     @Autowired
     private FileUploadService fileUploadService;
 
+    @Autowired
+    private PresencaService presencaService;
+
+    @Autowired
+    private EquipeRepository equipeRepository;
+
     /**
      * SECURITY FIX (OWASP A01 — IDOR): removed @RequestParam usuarioId.
      * The user's ID is now always read from the authenticated principal.
@@ -59,10 +69,22 @@ public class ChatController {
     }
 
     @GetMapping("/mensagens")
-    public ResponseEntity<List<MensagemChatDTO>> getMensagens(
+    public ResponseEntity<MensagemPaginaDTO> getMensagens(
             @RequestParam UUID conversaId,
-            @RequestParam(defaultValue = "0") int page) {
-        return ResponseEntity.ok(chatService.getMensagens(conversaId, page));
+            @RequestParam(required = false) String antes,
+            @RequestParam(required = false) String depois,
+            @RequestParam(defaultValue = "30") int limite) {
+        return ResponseEntity.ok(chatService.getMensagens(conversaId, antes, depois, limite));
+    }
+
+    /** Recuperação após reconexão: mensagens de cada conversa depois da última seq vista pelo cliente. */
+    @PostMapping("/mensagens/desde")
+    public ResponseEntity<MensagemPaginaDTO> getMensagensDesde(
+            @Valid @RequestBody SincronizarMensagensRequest req,
+            @RequestParam(defaultValue = "200") int limite,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        Long usuarioId = getUserIdFromPrincipal(userDetails);
+        return ResponseEntity.ok(chatService.getMensagensDesde(req.getEquipeId(), usuarioId, req.getPosicoes(), limite));
     }
 
     @PostMapping("/mensagens/upload")
@@ -78,6 +100,15 @@ public class ChatController {
         }
     }
 
+    /** Antes de enviar: se o SHA-256 já estiver num anexo visível ao usuário, devolve-o sem novo upload (senão 404). */
+    @GetMapping("/mensagens/upload/{sha256}")
+    public ResponseEntity<MensagemAnexoDTO> buscarAnexoPorHash(@PathVariable String sha256,
+                                                               @AuthenticationPrincipal UserDetails userDetails) {
+        return fileUploadService.buscarPorHash(sha256, getUserIdFromPrincipal(userDetails))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     /** SECURITY FIX (IDOR): replaced @RequestParam usuarioId with authenticated principal. */
     @PostMapping("/mensagens/{conversaId}/lida")
     public ResponseEntity<Void> marcarLida(
@@ -85,7 +116,7 @@ public class ChatController {
             @AuthenticationPrincipal UserDetails userDetails) {
         Long usuarioId = getUserIdFromPrincipal(userDetails);
         chatService.marcarLida(conversaId, usuarioId);
-        return ResponseEntity.ok().build();
+        return ResponseEntity.accepted().build();
     }
 
     @PostMapping("/mensagens/enviar")
@@ -106,6 +137,28 @@ public class ChatController {
         return ResponseEntity.ok(chatService.getTotalNaoLidas(equipeId, usuarioId));
     }
 
+    /** Busca de texto completo (português) no histórico das conversas do usuário. */
+    @GetMapping("/mensagens/busca")
+    public ResponseEntity<MensagemBuscaPaginaDTO> buscarMensagens(
+            @RequestParam String equipeId,
+            @RequestParam String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limite,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        Long usuarioId = getUserIdFromPrincipal(userDetails);
+        return ResponseEntity.ok(chatService.buscarMensagens(equipeId, usuarioId, q, cursor, limite));
+    }
+
+    /** Estado inicial de presença; as mudanças seguem por /topic/presence/{equipeId}. Só para membros da equipe. */
+    @GetMapping("/presenca")
+    public ResponseEntity<PresencaEquipeDTO> getPresenca(@RequestParam UUID equipeId,
+                                                         @AuthenticationPrincipal UserDetails userDetails) {
+        if (!equipeRepository.isParticipante(equipeId, getUserIdFromPrincipal(userDetails))) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Usuário não participa desta equipe.");
+        }
+        return ResponseEntity.ok(presencaService.getSnapshot(equipeId));
+    }
+
     private Long getUserIdFromPrincipal(UserDetails userDetails) {
         if (userDetails instanceof com.benfica.encomendas_api.model.Usuario u) {
             return u.getId();
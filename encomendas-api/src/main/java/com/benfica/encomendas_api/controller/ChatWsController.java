@@ -2,9 +2,11 @@ package com.benfica.encomendas_api.controller;
 
 import com.benfica.encomendas_api.dto.EnviarMensagemRequest;
 import com.benfica.encomendas_api.service.ChatService;
+import com.benfica.encomendas_api.service.PresencaService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Controller;
@@ -20,8 +22,12 @@ public class ChatWsController {
     @Autowired
     private ChatService chatService;
 
+    @Autowired
+    private PresencaService presencaService;
+
     @MessageMapping("/chat.send")
-    public void enviarMensagem(@Payload EnviarMensagemRequest req, Principal principal) {
+    public void enviarMensagem(@Payload EnviarMensagemRequest req, Principal principal,
+                               @Header("simpSessionId") String sessionId) {
         if (principal == null) {
             logger.warn("WebSocket /chat.send recebido sem autenticação");
             return;
@@ -29,6 +35,7 @@ public class ChatWsController {
         try {
             Long userId = Long.parseLong(principal.getName());
             chatService.enviarMensagem(req, userId);
+            presencaService.pararDigitar(sessionId, req.getConversaId());
         } catch (NumberFormatException e) {
             logger.error("ID de utilizador inválido no principal: {}", principal.getName());
         }
@@ -48,4 +55,26 @@ public class ChatWsController {
             logger.error("Parâmetros inválidos em /chat.lida: userId={}, conversaId={}", principal.getName(), conversaIdStr);
         }
     }
+
+    /** Heartbeat de presença; o payload é o equipeId que o cliente tem aberto. */
+    @MessageMapping("/presenca.ping")
+    public void ping(@Payload String equipeIdStr, Principal principal, @Header("simpSessionId") String sessionId) {
+        if (principal == null) return;
+        try {
+            presencaService.registrar(sessionId, Long.parseLong(principal.getName()), UUID.fromString(equipeIdStr));
+        } catch (IllegalArgumentException e) {
+            logger.error("Parâmetros inválidos em /presenca.ping: userId={}, equipeId={}", principal.getName(), equipeIdStr);
+        }
+    }
+
+    /** "A escrever…": o cliente repete enquanto o usuário escreve; expira sozinho. */
+    @MessageMapping("/chat.digitando")
+    public void digitando(@Payload String conversaIdStr, Principal principal, @Header("simpSessionId") String sessionId) {
+        if (principal == null) return;
+        try {
+            presencaService.digitando(sessionId, UUID.fromString(conversaIdStr));
+        } catch (IllegalArgumentException e) {
+            logger.error("Parâmetros inválidos em /chat.digitando: conversaId={}", conversaIdStr);
+        }
+    }
 }
@@ -1,13 +1,24 @@
 package com.benfica.encomendas_api.controller;
 
 import com.benfica.encomendas_api.dto.*;
+import com.benfica.encomendas_api.model.Usuario;
 import com.benfica.encomendas_api.service.ChecklistService;
+import com.benfica.encomendas_api.service.EquipeService;
+import com.benfica.encomendas_api.service.FileUploadService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -16,9 +27,17 @@ import java.util.UUID;
 @RequestMapping("/api/checklists")
 public class ChecklistController {
 
+    private static final Logger logger = LoggerFactory.getLogger(ChecklistController.class);
+
     @Autowired
     private ChecklistService checklistService;
 
+    @Autowired
+    private FileUploadService fileUploadService;
+
+    @Autowired
+    private EquipeService equipeService;
+
     // --- VISÃO FUNCIONÁRIO (Depende da Escala) ---
     @GetMapping("/dia")
     public ResponseEntity<List<ChecklistBoardDTO>> getChecklistDoDia(
@@ -136,6 +155,26 @@ public class ChecklistController {
         return ResponseEntity.noContent().build();
     }
 
+    // --- ANEXOS DO CARD (mesmo armazenamento deduplicado do chat) ---
+    @PostMapping("/cards/{id}/anexos")
+    public ResponseEntity<?> adicionarAnexo(
+            @PathVariable UUID id,
+            @RequestParam("file") MultipartFile file) {
+        try {
+            ChecklistAnexoDTO anexo = fileUploadService.uploadChecklistFile(file);
+            return ResponseEntity.ok(checklistService.adicionarAnexo(id, anexo));
+        } catch (IOException e) {
+            logger.error("Erro ao guardar ficheiro", e);
+            return ResponseEntity.internalServerError().body("Erro ao guardar ficheiro.");
+        }
+    }
+
+    @DeleteMapping("/anexos/{id}")
+    public ResponseEntity<Void> removerAnexo(@PathVariable UUID id) {
+        checklistService.removerAnexo(id);
+        return ResponseEntity.noContent().build();
+    }
+
     @PostMapping("/cards/{id}/mover")
     public ResponseEntity<?> moverCard(
             @PathVariable UUID id,
@@ -144,13 +183,30 @@ public class ChecklistController {
         if (boardIdObj == null) {
             return ResponseEntity.badRequest().body("Campo 'boardId' é obrigatório.");
         }
+        UUID boardId, anteriorId, posteriorId;
         try {
-            UUID boardId = UUID.fromString(boardIdObj.toString());
-            checklistService.moverCard(id, boardId);
-            return ResponseEntity.ok().build();
+            boardId = UUID.fromString(boardIdObj.toString());
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body("boardId inválido.");
         }
+        // Vizinhos opcionais na posição de destino (null = fim do board)
+        try {
+            anteriorId = payload.get("anteriorId") != null ? UUID.fromString(payload.get("anteriorId").toString()) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("anteriorId inválido.");
+        }
+        try {
+            posteriorId = payload.get("posteriorId") != null ? UUID.fromString(payload.get("posteriorId").toString()) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("posteriorId inválido.");
+        }
+
+        try {
+            checklistService.moverCard(id, boardId, new ReposicionarRequestDTO(anteriorId, posteriorId));
+            return ResponseEntity.ok().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @PostMapping("/itens")
@@ -190,6 +246,55 @@ public class ChecklistController {
         return ResponseEntity.ok(checklistService.getRelatorio(equipeId, data));
     }
 
+    // --- TEMPLATES (Admin: clonar checklists para outras lojas) ---
+
+    @GetMapping("/template")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<ChecklistTemplateDTO> exportarTemplate(@RequestParam UUID equipeId,
+                                                                 @AuthenticationPrincipal Usuario usuarioLogado) {
+        equipeService.verificarGestor(equipeId, usuarioLogado);
+        return ResponseEntity.ok(checklistService.exportarTemplate(equipeId));
+    }
+
+    // Todas as equipes são validadas antes de gravar; depois cada destino é importado na sua
+    // própria transação e uma falha num deles vem em "erros" sem desfazer os restantes
+    @PostMapping("/template/importar")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<?> importarTemplate(@Valid @RequestBody ChecklistTemplateImportRequestDTO request,
+                                              @AuthenticationPrincipal Usuario usuarioLogado) {
+        ChecklistTemplateDTO template = request.getTemplate();
+        if (template == null && request.getEquipeOrigemId() == null) {
+            return ResponseEntity.badRequest().body("Informe o template ou a equipe de origem.");
+        }
+
+        List<UUID> destinos = request.getEquipeIds().stream().distinct().toList();
+        if (request.getEquipeOrigemId() != null) {
+            equipeService.verificarGestor(request.getEquipeOrigemId(), usuarioLogado);
+        }
+        for (UUID equipeId : destinos) {
+            equipeService.verificarGestor(equipeId, usuarioLogado);
+        }
+
+        if (template == null) {
+            template = checklistService.exportarTemplate(request.getEquipeOrigemId());
+        }
+
+        Map<UUID, Integer> boardsCriados = new LinkedHashMap<>();
+        Map<UUID, String> erros = new LinkedHashMap<>();
+        for (UUID equipeId : destinos) {
+            try {
+                boardsCriados.put(equipeId, checklistService.importarTemplate(template, equipeId));
+            } catch (RuntimeException e) {
+                logger.error("Falha ao importar o template na equipe {}: {}", equipeId, e.getMessage());
+                erros.put(equipeId, "Falha ao importar o template nesta equipe.");
+            }
+        }
+        return ResponseEntity.ok(ChecklistTemplateImportResultDTO.builder()
+                .boardsCriados(boardsCriados)
+                .erros(erros)
+                .build());
+    }
+
     // --- REORDENAÇÃO (Endpoints Otimizados com DTO) ---
 
     @PutMapping("/boards/reordenar")
@@ -203,4 +308,30 @@ public class ChecklistController {
         checklistService.atualizarOrdemCards(ordemCards);
         return ResponseEntity.ok().build();
     }
+
+    @PutMapping("/itens/reordenar")
+    public ResponseEntity<Void> reordenarItens(@RequestBody List<ReorderRequestDTO> ordemItens) {
+        checklistService.atualizarOrdemItens(ordemItens);
+        return ResponseEntity.ok().build();
+    }
+
+    // --- MOVIMENTO UNITÁRIO (drag & drop: só a linha movida é alterada) ---
+
+    @PutMapping("/boards/{id}/posicao")
+    public ResponseEntity<Void> reposicionarBoard(@PathVariable UUID id, @RequestBody ReposicionarRequestDTO posicao) {
+        checklistService.reposicionarBoard(id, posicao);
+        return ResponseEntity.ok().build();
+    }
+
+    @PutMapping("/cards/{id}/posicao")
+    public ResponseEntity<Void> reposicionarCard(@PathVariable UUID id, @RequestBody ReposicionarRequestDTO posicao) {
+        checklistService.reposicionarCard(id, posicao);
+        return ResponseEntity.ok().build();
+    }
+
+    @PutMapping("/itens/{id}/posicao")
+    public ResponseEntity<Void> reposicionarItem(@PathVariable UUID id, @RequestBody ReposicionarRequestDTO posicao) {
+        checklistService.reposicionarItem(id, posicao);
+        return ResponseEntity.ok().build();
+    }
 }
\ No newline at end of file
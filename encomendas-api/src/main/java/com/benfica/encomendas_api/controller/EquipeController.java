@@ -65,6 +65,16 @@ public class EquipeController {
         return ResponseEntity.noContent().build();
     }
 
+    // Retenção do chat em meses: null volta ao padrão da aplicação, 0 desativa o arquivo
+    @PutMapping("/{id}/chat/retencao")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<Void> definirRetencaoChat(@PathVariable UUID id,
+                                                    @RequestBody Map<String, Integer> payload,
+                                                    @AuthenticationPrincipal Usuario usuarioLogado) {
+        equipeService.definirRetencaoChat(id, payload.get("meses"), usuarioLogado);
+        return ResponseEntity.noContent().build();
+    }
+
     // --- CONVITES ---
 
     @PostMapping("/{id}/convidar")
@@ -1,8 +1,12 @@
 package com.benfica.encomendas_api.controller;
 
+import com.benfica.encomendas_api.dto.EscalaCoberturaDTO;
+import com.benfica.encomendas_api.dto.EscalaGradeEquipeDTO;
+import com.benfica.encomendas_api.dto.EscalaRecorrenciaDTO;
 import com.benfica.encomendas_api.dto.EscalaReplicacaoDTO;
 import com.benfica.encomendas_api.dto.EscalaReplicacaoMassaDTO;
 import com.benfica.encomendas_api.dto.EscalaTrabalhoDTO;
+import com.benfica.encomendas_api.service.EscalaCoberturaService;
 import com.benfica.encomendas_api.service.EscalaTrabalhoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -10,7 +14,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/escalas")
@@ -19,6 +25,9 @@ public class EscalaTrabalhoController {
     @Autowired
     private EscalaTrabalhoService escalaService;
 
+    @Autowired
+    private EscalaCoberturaService coberturaService;
+
     @GetMapping
     public ResponseEntity<List<EscalaTrabalhoDTO>> getEscalas(
             @RequestParam Long usuarioId,
@@ -29,6 +38,24 @@ public class EscalaTrabalhoController {
         return ResponseEntity.ok(escalas);
     }
 
+    // Grade mensal de todos os membros da equipe (substitui um GET por membro)
+    @GetMapping("/equipe/{equipeId}")
+    public ResponseEntity<EscalaGradeEquipeDTO> getGradeEquipe(
+            @PathVariable UUID equipeId,
+            @RequestParam YearMonth mes) { // yyyy-MM
+        return ResponseEntity.ok(escalaService.getGradeEquipe(equipeId, mes));
+    }
+
+    // Pessoas escaladas por dia/hora, com alertas de falta de cobertura
+    @GetMapping("/equipe/{equipeId}/cobertura")
+    public ResponseEntity<EscalaCoberturaDTO> getCobertura(
+            @PathVariable UUID equipeId,
+            @RequestParam YearMonth mes,
+            @RequestParam(required = false) Integer minimoDia,
+            @RequestParam(required = false) Integer minimoHora) {
+        return ResponseEntity.ok(coberturaService.getCobertura(equipeId, mes, minimoDia, minimoHora));
+    }
+
     @PostMapping
     public ResponseEntity<EscalaTrabalhoDTO> salvarEscala(@RequestBody EscalaTrabalhoDTO dto) {
         EscalaTrabalhoDTO salva = escalaService.salvarEscala(dto);
@@ -46,4 +73,22 @@ public class EscalaTrabalhoController {
         escalaService.replicarEscalaMassa(dto);
         return ResponseEntity.ok().build();
     }
-}
\ No newline at end of file
+
+    // --- RECORRÊNCIAS ---
+
+    @GetMapping("/recorrencias")
+    public ResponseEntity<List<EscalaRecorrenciaDTO>> listarRecorrencias(@RequestParam Long usuarioId) {
+        return ResponseEntity.ok(escalaService.listarRecorrencias(usuarioId));
+    }
+
+    @PostMapping("/recorrencias")
+    public ResponseEntity<List<EscalaRecorrenciaDTO>> criarRecorrencia(@RequestBody EscalaReplicacaoMassaDTO dto) {
+        return ResponseEntity.ok(escalaService.criarRecorrencia(dto));
+    }
+
+    @DeleteMapping("/recorrencias/{id}")
+    public ResponseEntity<Void> excluirRecorrencia(@PathVariable Long id) {
+        escalaService.excluirRecorrencia(id);
+        return ResponseEntity.ok().build();
+    }
+}
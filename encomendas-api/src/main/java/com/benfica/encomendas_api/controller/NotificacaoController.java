@@ -1,17 +1,20 @@
 package com.benfica.encomendas_api.controller;
 
-import com.benfica.encomendas_api.dto.NotificacaoDTO;
+import com.benfica.encomendas_api.dto.NotificacaoPaginaDTO;
 import com.benfica.encomendas_api.dto.NotificacaoRequestDTO;
 import com.benfica.encomendas_api.model.Usuario;
+import com.benfica.encomendas_api.security.StreamTicketService;
 import com.benfica.encomendas_api.service.NotificacaoService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -21,6 +24,9 @@ public class NotificacaoController {
     @Autowired
     private NotificacaoService notificacaoService;
 
+    @Autowired
+    private StreamTicketService streamTicketService;
+
     /**
      * SECURITY FIX (OWASP A01 — Broken Access Control / IDOR):
      * Previously accepted userId as a request param, allowing any authenticated user
@@ -28,10 +34,12 @@ public class NotificacaoController {
      * the authenticated principal, ensuring users can only access their own data.
      */
     @GetMapping
-    public ResponseEntity<List<NotificacaoDTO>> getNotificacoes(
+    public ResponseEntity<NotificacaoPaginaDTO> getNotificacoes(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limite,
             @AuthenticationPrincipal UserDetails userDetails) {
         Long usuarioId = getUserId(userDetails);
-        return ResponseEntity.ok(notificacaoService.getNotificacoes(usuarioId));
+        return ResponseEntity.ok(notificacaoService.getNotificacoes(usuarioId, cursor, limite));
     }
 
     @GetMapping("/count")
@@ -41,6 +49,22 @@ public class NotificacaoController {
         return ResponseEntity.ok(notificacaoService.getContadorNaoLidas(usuarioId));
     }
 
+    /** Ticket de uso único para abrir o /stream (ver StreamTicketService). */
+    @PostMapping("/stream/ticket")
+    public ResponseEntity<Map<String, String>> ticketStream(@AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(Map.of("ticket", streamTicketService.emitir(userDetails.getUsername())));
+    }
+
+    /**
+     * Alternativa por Server-Sent Events ao /user/queue/notificacoes do WebSocket: eventos
+     * "notificacoes" com a notificação nova e o total de não lidas. Como o EventSource não
+     * envia cabeçalhos, a autenticação vem de ?ticket= (POST /stream/ticket).
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@AuthenticationPrincipal UserDetails userDetails) {
+        return notificacaoService.abrirStream(getUserId(userDetails));
+    }
+
     @PostMapping("/enviar")
     public ResponseEntity<Void> enviarNotificacao(
             @Valid @RequestBody NotificacaoRequestDTO request,
@@ -48,14 +72,15 @@ public class NotificacaoController {
         // SECURITY FIX: ignore request.getRemetenteId() — always use the authenticated
         // user's ID as the sender to prevent sender impersonation
         Long remetenteId = getUserId(userDetails);
-        notificacaoService.enviarNotificacao(
+        boolean agendado = notificacaoService.enviarNotificacao(
                 request.getEquipeId(),
                 request.getDestinatarioId(),
                 remetenteId,
                 request.getTitulo(),
                 request.getMensagem()
         );
-        return ResponseEntity.ok().build();
+        // Equipes grandes: o envio continua em segundo plano
+        return agendado ? ResponseEntity.accepted().build() : ResponseEntity.ok().build();
     }
 
     @PostMapping("/{id}/ler")
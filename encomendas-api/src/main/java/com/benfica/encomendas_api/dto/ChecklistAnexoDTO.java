@@ -17,6 +17,8 @@ public class ChecklistAnexoDTO {
     private String nomeArquivo;
     private String tipoArquivo; // Ex: 'PDF', 'IMAGE', 'DOC'
     private String url;
+    private String miniaturaUrl; // variante reduzida; igual a url enquanto não estiver pronta
+    private String exibicaoUrl;  // variante comprimida para visualização; igual a url enquanto não estiver pronta
 
     // Método helper para converter da Entidade para DTO
     public static ChecklistAnexoDTO fromEntity(ChecklistAnexo anexo) {
@@ -26,6 +28,12 @@ public class ChecklistAnexoDTO {
                 .nomeArquivo(anexo.getNomeArquivo())
                 .tipoArquivo(anexo.getTipoArquivo())
                 .url(anexo.getUrl())
+                .miniaturaUrl(variante(anexo.getBlob() != null ? anexo.getBlob().getMiniaturaUrl() : null, anexo.getUrl()))
+                .exibicaoUrl(variante(anexo.getBlob() != null ? anexo.getBlob().getExibicaoUrl() : null, anexo.getUrl()))
                 .build();
     }
+
+    private static String variante(String url, String original) {
+        return url != null ? url : original;
+    }
 }
\ No newline at end of file
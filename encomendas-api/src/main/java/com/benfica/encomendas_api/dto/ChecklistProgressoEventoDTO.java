@@ -0,0 +1,21 @@
+package com.benfica.encomendas_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Delta publicado em /topic/checklist/{equipeId} a cada marcação/desmarcação de item
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChecklistProgressoEventoDTO {
+    private Long usuarioId;
+    private UUID itemId;
+    private boolean valor;
+    private LocalDateTime hora;
+}
@@ -0,0 +1,41 @@
+package com.benfica.encomendas_api.dto;
+
+import lombok.*;
+
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Snapshot da árvore de checklists de uma equipe (boards gerais → cards → itens/anexos),
+ * usado para replicar as mesmas checklists em outras lojas.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChecklistTemplateDTO {
+
+    private List<TemplateBoardDTO> boards;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TemplateBoardDTO {
+        private String nome;
+        private List<TemplateCardDTO> cards;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TemplateCardDTO {
+        private String titulo;
+        private String descricao;
+        private LocalTime horarioAbertura;
+        private LocalTime horarioFechamento;
+        private List<String> itens;
+        private List<ChecklistAnexoDTO> anexos;
+    }
+}
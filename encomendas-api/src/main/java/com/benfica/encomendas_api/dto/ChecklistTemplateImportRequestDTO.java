@@ -0,0 +1,22 @@
+package com.benfica.encomendas_api.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChecklistTemplateImportRequestDTO {
+
+    // Usa o template enviado ou, se ausente, faz o snapshot da equipe de origem
+    private ChecklistTemplateDTO template;
+    private UUID equipeOrigemId;
+
+    @NotEmpty(message = "Informe pelo menos uma equipe de destino")
+    private List<UUID> equipeIds;
+}
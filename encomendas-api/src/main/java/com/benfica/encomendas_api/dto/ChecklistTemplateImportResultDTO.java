@@ -0,0 +1,19 @@
+package com.benfica.encomendas_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.UUID;
+
+// Resultado por equipe de destino: boards criados nas que correram bem, mensagem nas que falharam
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChecklistTemplateImportResultDTO {
+    private Map<UUID, Integer> boardsCriados;
+    private Map<UUID, String> erros;
+}
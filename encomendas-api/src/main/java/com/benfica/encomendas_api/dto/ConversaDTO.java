@@ -20,4 +20,5 @@ public class ConversaDTO {
     private String ultimaMensagem;
     private LocalDateTime ultimaMensagemEm;
     private long naoLidas;
+    private long ultimaSeq;
 }
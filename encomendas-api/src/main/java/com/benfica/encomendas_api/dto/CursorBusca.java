@@ -0,0 +1,27 @@
+package com.benfica.encomendas_api.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Posição de um resultado da busca na ordem (rank DESC, enviado_em DESC, id DESC),
+ * serializada como string opaca (base64url de "rank|enviadoEm|id").
+ */
+public record CursorBusca(float rank, LocalDateTime enviadoEm, UUID id) {
+
+    public String codificar() {
+        String bruto = rank + "|" + enviadoEm + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bruto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorBusca decodificar(String cursor) {
+        try {
+            String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            return new CursorBusca(Float.parseFloat(partes[0]), LocalDateTime.parse(partes[1]), UUID.fromString(partes[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor de busca inválido");
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.benfica.encomendas_api.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Posição de uma mensagem na ordem (enviado_em, id), serializada como string opaca
+ * (base64url de "enviadoEm|id") para ser devolvida pelo cliente em antes/depois/desde.
+ */
+public record CursorMensagem(LocalDateTime enviadoEm, UUID id) {
+
+    public String codificar() {
+        String bruto = enviadoEm + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bruto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorMensagem decodificar(String cursor) {
+        try {
+            String bruto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = bruto.indexOf('|');
+            return new CursorMensagem(LocalDateTime.parse(bruto.substring(0, sep)), UUID.fromString(bruto.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor de mensagens inválido");
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.benfica.encomendas_api.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Posição de uma notificação na ordem (data_envio DESC, id DESC), serializada como
+ * string opaca (base64url de "dataEnvio|id").
+ */
+public record CursorNotificacao(LocalDateTime dataEnvio, UUID id) {
+
+    public String codificar() {
+        String bruto = dataEnvio + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bruto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorNotificacao decodificar(String cursor) {
+        try {
+            String bruto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = bruto.indexOf('|');
+            return new CursorNotificacao(LocalDateTime.parse(bruto.substring(0, sep)), UUID.fromString(bruto.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor de notificações inválido");
+        }
+    }
+}
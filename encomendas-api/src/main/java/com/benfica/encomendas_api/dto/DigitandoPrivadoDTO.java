@@ -0,0 +1,19 @@
+package com.benfica.encomendas_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+// Evento de /user/queue/digitando: o outro participante de uma conversa privada começou ou parou de escrever
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DigitandoPrivadoDTO {
+    private UUID conversaId;
+    private Long usuarioId;
+    private boolean digitando;
+}
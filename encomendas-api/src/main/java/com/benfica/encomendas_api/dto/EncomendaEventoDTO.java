@@ -0,0 +1,20 @@
+package com.benfica.encomendas_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+// Evento publicado em /topic/encomendas/{equipeId} quando uma encomenda é criada, muda de etapa ou é removida
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EncomendaEventoDTO {
+    private String acao; // CRIADA, ATUALIZADA, REMOVIDA
+    private UUID encomendaId;
+    private String status;
+    private EncomendaResponseDTO encomenda; // null quando removida
+}
@@ -0,0 +1,38 @@
+package com.benfica.encomendas_api.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Cobertura da equipe no mês: porHora[d][h] = pessoas a trabalhar no dia d + 1
+ * durante a faixa [h, h + 1); porDia[d] = pessoas com escala TRABALHO nesse dia.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EscalaCoberturaDTO {
+    private String mes; // yyyy-MM
+    private int dias;
+    private int[][] porHora;
+    private int[] porDia;
+    private List<AlertaDTO> alertas;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class AlertaDTO {
+        @JsonFormat(pattern = "yyyy-MM-dd")
+        private LocalDate data;
+        private Integer hora; // null = alerta do dia inteiro
+        private int escalados;
+        private int minimo;
+    }
+}
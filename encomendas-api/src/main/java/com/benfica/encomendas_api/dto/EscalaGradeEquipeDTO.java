@@ -0,0 +1,29 @@
+package com.benfica.encomendas_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Grade mensal da equipe (membros × dias) em arrays densos, em vez de um DTO por dia.
+ *
+ * tipos[m][d]    = índice em 'legenda' + 1 (0 = sem escala)
+ * horarios[m][d] = "HH:mm-HH:mm" ou null
+ * A linha m corresponde a usuarioIds[m] / nomes[m]; a coluna d ao dia d + 1 do mês.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EscalaGradeEquipeDTO {
+    private String mes; // yyyy-MM
+    private int dias;
+    private List<String> legenda;
+    private long[] usuarioIds;
+    private String[] nomes;
+    private int[][] tipos;
+    private String[][] horarios;
+}
@@ -0,0 +1,38 @@
+package com.benfica.encomendas_api.dto;
+
+import com.benfica.encomendas_api.model.TipoEscala;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EscalaRecorrenciaDTO {
+    private Long id;
+    private Long usuarioId;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate dataInicio;
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate dataFim;
+
+    private List<Integer> diasSemana; // 1=Segunda ... 7=Domingo
+
+    @JsonFormat(pattern = "HH:mm:ss")
+    private LocalTime horarioInicio;
+
+    @JsonFormat(pattern = "HH:mm:ss")
+    private LocalTime horarioFim;
+
+    private TipoEscala tipo;
+    private String observacao;
+}
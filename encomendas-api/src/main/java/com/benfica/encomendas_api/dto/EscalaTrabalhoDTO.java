@@ -30,4 +30,7 @@ public class EscalaTrabalhoDTO {
 
     private TipoEscala tipo;
     private String observacao;
+
+    // Preenchido quando o dia vem da expansão de uma recorrência (id fica nulo)
+    private Long recorrenciaId;
 }
\ No newline at end of file
@@ -16,4 +16,6 @@ public class MensagemAnexoDTO {
     private String nomeArquivo;
     private String tipoArquivo;
     private String url;
+    private String miniaturaUrl; // variante reduzida; igual a url enquanto não estiver pronta
+    private String exibicaoUrl;  // variante comprimida para visualização; igual a url enquanto não estiver pronta
 }
@@ -0,0 +1,24 @@
+package com.benfica.encomendas_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MensagemBuscaDTO {
+    private UUID id;
+    private UUID conversaId;
+    private Long remetenteId;
+    private String remetenteNome;
+    private LocalDateTime enviadoEm;
+    private String trecho; // excerto em HTML escapado, com os termos encontrados entre <mark></mark>
+    private float rank;
+    private String cursor; // posição da mensagem na conversa (para abrir em /mensagens?depois=)
+}
@@ -0,0 +1,22 @@
+package com.benfica.encomendas_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de resultados da busca no chat, por relevância.
+ * proximoCursor é null quando não há mais resultados.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MensagemBuscaPaginaDTO {
+    private List<MensagemBuscaDTO> resultados;
+    private boolean temMais;
+    private String proximoCursor;
+}
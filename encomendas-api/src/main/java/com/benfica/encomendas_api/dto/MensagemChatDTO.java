@@ -16,10 +16,12 @@ import java.util.UUID;
 public class MensagemChatDTO {
     private UUID id;
     private UUID conversaId;
+    private Long seq;
     private Long remetenteId;
     private String remetenteNome;
     private String conteudo;
     private LocalDateTime enviadoEm;
     private boolean deletada;
     private List<MensagemAnexoDTO> anexos;
+    private String cursor; // posição (enviado_em, id) para /mensagens?antes|depois e /mensagens/desde
 }
@@ -0,0 +1,23 @@
+package com.benfica.encomendas_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de mensagens por cursor (keyset), em ordem cronológica.
+ * cursorAntes/cursorDepois apontam para a primeira/última mensagem da página.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MensagemPaginaDTO {
+    private List<MensagemChatDTO> mensagens;
+    private boolean temMais;
+    private String cursorAntes;
+    private String cursorDepois;
+}
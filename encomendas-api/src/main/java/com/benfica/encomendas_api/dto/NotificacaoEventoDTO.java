@@ -0,0 +1,20 @@
+package com.benfica.encomendas_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Evento em /user/queue/notificacoes (e no stream SSE): a notificação nova, se houver,
+ * e o total de não lidas atualizado. Sem notificação é só a atualização do contador
+ * (leitura, ler todas, limpar, ou o estado inicial do stream).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificacaoEventoDTO {
+    private NotificacaoDTO notificacao;
+    private long naoLidas;
+}
@@ -0,0 +1,22 @@
+package com.benfica.encomendas_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de notificações (mais recentes primeiro). proximoCursor vai no pedido seguinte
+ * como ?cursor= enquanto temMais for true.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificacaoPaginaDTO {
+    private List<NotificacaoDTO> notificacoes;
+    private boolean temMais;
+    private String proximoCursor;
+}
@@ -0,0 +1,21 @@
+package com.benfica.encomendas_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Snapshot publicado em /topic/presence/{equipeId}: quem está online e quem está a escrever no grupo
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PresencaEquipeDTO {
+    private UUID equipeId;
+    private List<Long> online;
+    private Map<UUID, List<Long>> digitando; // conversaId (só o grupo) -> usuarioIds
+}
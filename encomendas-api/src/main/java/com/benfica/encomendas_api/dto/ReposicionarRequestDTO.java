@@ -0,0 +1,16 @@
+package com.benfica.encomendas_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+// Vizinhos na nova posição (null = início/fim da lista)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReposicionarRequestDTO {
+    private UUID anteriorId;
+    private UUID posteriorId;
+}
@@ -0,0 +1,24 @@
+package com.benfica.encomendas_api.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.UUID;
+
+/** Recuperação após reconexão: última seq que o cliente viu em cada conversa que acompanha. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SincronizarMensagensRequest {
+
+    @NotNull(message = "O ID da equipe é obrigatório")
+    private String equipeId;
+
+    @NotNull(message = "Informe as posições das conversas")
+    @Size(max = 100, message = "Máximo de 100 conversas por pedido")
+    private Map<UUID, Long> posicoes;
+}
@@ -0,0 +1,55 @@
+package com.benfica.encomendas_api.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Conteúdo de um anexo, endereçado pelo SHA-256. Vários anexos (chat e checklist)
+ * podem apontar para o mesmo blob; referencias conta quantos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@BatchSize(size = 50)
+@Table(name = "arquivos_blob", indexes = {
+    @Index(name = "idx_arquivos_blob_url", columnList = "url")
+})
+public class ArquivoBlob {
+
+    @Id
+    @Column(length = 64)
+    private String hash; // SHA-256 em hexadecimal
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String url;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(nullable = false)
+    private long tamanho;
+
+    @Column(nullable = false)
+    private int referencias;
+
+    @CreationTimestamp
+    @Column(name = "criado_em", nullable = false, updatable = false)
+    private LocalDateTime criadoEm;
+
+    // Variantes de imagem (JPEG) geradas em segundo plano; null enquanto não estão prontas
+    @Column(name = "miniatura_url", columnDefinition = "TEXT")
+    private String miniaturaUrl;
+
+    @Column(name = "exibicao_url", columnDefinition = "TEXT")
+    private String exibicaoUrl;
+
+    // Último upload/consulta que reutilizou o blob; protege-o da limpeza até ser anexado
+    @Column(name = "ultimo_uso_em")
+    private LocalDateTime ultimoUsoEm;
+}
@@ -15,7 +15,8 @@ import java.util.UUID;
 @Builder
 @Entity
 @Table(name = "checklist_anexos", indexes = {
-    @Index(name = "idx_checklist_anexos_card_id", columnList = "card_id")
+    @Index(name = "idx_checklist_anexos_card_id", columnList = "card_id"),
+    @Index(name = "idx_checklist_anexos_blob", columnList = "blob_hash")
 })
 public class ChecklistAnexo {
     @Id
@@ -26,6 +27,16 @@ public class ChecklistAnexo {
     private String tipoArquivo; // ex: 'PDF', 'IMG', 'LINK'
     private String url; // URL ou caminho do arquivo
 
+    // SHA-256 do conteúdo em arquivos_blob (null em anexos antigos ou links externos)
+    @Column(name = "blob_hash", length = 64)
+    private String blobHash;
+
+    // Só leitura: dá acesso às variantes (miniatura/exibição) do blob
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "blob_hash", insertable = false, updatable = false)
+    @JsonIgnore
+    private ArquivoBlob blob;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "card_id")
     @JsonIgnore
@@ -43,6 +43,10 @@ public class ChecklistBoard {
     // --- CAMPO DE ORDENAÇÃO (ADICIONADO) ---
     @Column(name = "ordem")
     private Integer ordem;
+
+    // Chave fracionária (ver OrdemRank): mover um elemento altera só esta linha
+    @Column(name = "rank_ordem", length = 64)
+    private String rankOrdem;
     // ---------------------------------------
 
     @OneToMany(mappedBy = "board", cascade = CascadeType.ALL, orphanRemoval = true)
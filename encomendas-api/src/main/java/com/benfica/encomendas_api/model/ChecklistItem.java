@@ -32,4 +32,8 @@ public class ChecklistItem {
     // Define a ordem de exibição na tela
     @Column(nullable = false)
     private Integer ordem;
+
+    // Chave fracionária (ver OrdemRank): mover um item altera só esta linha
+    @Column(name = "rank_ordem", length = 64)
+    private String rankOrdem;
 }
\ No newline at end of file
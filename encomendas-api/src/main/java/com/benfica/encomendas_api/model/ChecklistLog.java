@@ -18,9 +18,11 @@ import java.util.UUID;
 @AllArgsConstructor
 @Builder
 @Entity
+// Tabela particionada por mês em data_referencia (ver ChecklistLogParticaoScheduler)
 @Table(name = "checklist_logs", indexes = {
         @Index(name = "idx_checklist_log_data", columnList = "data_referencia"),
-        @Index(name = "idx_checklist_log_item", columnList = "item_id")
+        @Index(name = "idx_checklist_log_item", columnList = "item_id"),
+        @Index(name = "idx_checklist_log_usuario_data", columnList = "usuario_id, data_referencia")
 })
 public class ChecklistLog {
 
@@ -34,7 +36,7 @@ public class ChecklistLog {
     private ChecklistItem item;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "usuario_id", nullable = false)
+    @JoinColumn(name = "usuario_id", nullable = false, foreignKey = @ForeignKey(name = "fk_log_usuario"))
     private Usuario usuario;
 
     // Data para qual esse checklist vale (ex: checklist do dia 25/01)
@@ -44,4 +44,14 @@ public class Conversa {
     @CreationTimestamp
     @Column(name = "criado_em", nullable = false, updatable = false)
     private LocalDateTime criadoEm;
+
+    // Resumo desnormalizado, atualizado a cada mensagem (a barra lateral sai numa só query)
+    @Column(name = "ultima_seq")
+    private Long ultimaSeq;
+
+    @Column(name = "ultima_mensagem_preview", length = 200)
+    private String ultimaMensagemPreview;
+
+    @Column(name = "ultima_mensagem_em")
+    private LocalDateTime ultimaMensagemEm;
 }
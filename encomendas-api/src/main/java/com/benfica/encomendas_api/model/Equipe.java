@@ -58,4 +58,8 @@ public class Equipe {
     @Builder.Default
     @Column(nullable = false)
     private Boolean ativa = true;
+
+    // Meses até as mensagens do chat irem para o arquivo (null = padrão da aplicação, 0 = nunca)
+    @Column(name = "retencao_chat_meses")
+    private Integer retencaoChatMeses;
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.benfica.encomendas_api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Padrão de escala guardado uma única vez (ex: "Seg–Sex 08:00–17:00 até dezembro").
+ * É expandido em memória na leitura; linhas de escala_trabalho no mesmo dia são
+ * exceções e prevalecem sobre a recorrência.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "escala_recorrencia", indexes = {
+        @Index(name = "idx_escala_recorrencia_usuario_periodo", columnList = "usuario_id, data_inicio, data_fim")
+})
+public class EscalaRecorrente {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_id", nullable = false)
+    private Usuario usuario;
+
+    @Column(name = "data_inicio", nullable = false)
+    private LocalDate dataInicio;
+
+    @Column(name = "data_fim", nullable = false)
+    private LocalDate dataFim;
+
+    // Bit 0 = Segunda ... bit 6 = Domingo
+    @Column(name = "dias_semana", nullable = false)
+    private Integer diasSemana;
+
+    @Column(name = "horario_inicio")
+    private LocalTime horarioInicio;
+
+    @Column(name = "horario_fim")
+    private LocalTime horarioFim;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TipoEscala tipo;
+
+    @Column(length = 255)
+    private String observacao;
+
+    @CreationTimestamp
+    @Column(name = "criado_em", updatable = false)
+    private LocalDateTime criadoEm;
+
+    public boolean aplicaEm(LocalDate data) {
+        return !data.isBefore(dataInicio) && !data.isAfter(dataFim)
+                && (diasSemana & (1 << (data.getDayOfWeek().getValue() - 1))) != 0;
+    }
+}
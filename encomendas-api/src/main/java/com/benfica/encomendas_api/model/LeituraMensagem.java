@@ -30,4 +30,8 @@ public class LeituraMensagem {
 
     @Column(name = "ultimo_visto_em", nullable = false)
     private LocalDateTime ultimoVistoEm;
+
+    // Última Conversa.ultimaSeq lida: não lidas = ultimaSeq - ultimaSeqLida
+    @Column(name = "ultima_seq_lida")
+    private Long ultimaSeqLida;
 }
@@ -10,7 +10,9 @@ import java.util.UUID;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "mensagem_anexos")
+@Table(name = "mensagem_anexos", indexes = {
+    @Index(name = "idx_mensagem_anexos_blob", columnList = "blob_hash")
+})
 public class MensagemAnexo {
 
     @Id
@@ -27,6 +29,15 @@ public class MensagemAnexo {
     @Column(nullable = false, columnDefinition = "TEXT")
     private String url;
 
+    // SHA-256 do conteúdo em arquivos_blob (null em anexos antigos ou links externos)
+    @Column(name = "blob_hash", length = 64)
+    private String blobHash;
+
+    // Só leitura: dá acesso às variantes (miniatura/exibição) do blob
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "blob_hash", insertable = false, updatable = false)
+    private ArquivoBlob blob;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "mensagem_id", nullable = false)
     private MensagemChat mensagem;
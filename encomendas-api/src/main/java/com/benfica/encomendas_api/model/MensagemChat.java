@@ -2,6 +2,7 @@ package com.benfica.encomendas_api.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
@@ -16,7 +17,9 @@ import java.util.UUID;
 @Table(name = "mensagens_chat", indexes = {
     @Index(name = "idx_mensagens_conversa", columnList = "conversa_id"),
     @Index(name = "idx_mensagens_enviado_em", columnList = "enviado_em"),
-    @Index(name = "idx_mensagens_remetente_id", columnList = "remetente_id")
+    @Index(name = "idx_mensagens_remetente_id", columnList = "remetente_id"),
+    @Index(name = "idx_mensagens_conversa_seq", columnList = "conversa_id, seq"),
+    @Index(name = "idx_mensagens_conversa_enviado", columnList = "conversa_id, enviado_em DESC, id DESC")
 })
 public class MensagemChat {
 
@@ -35,14 +38,25 @@ public class MensagemChat {
     @Column(columnDefinition = "TEXT", nullable = true)
     private String conteudo;
 
+    // Sequência crescente dentro da conversa (1, 2, 3...)
+    @Column(name = "seq")
+    private Long seq;
+
     @Builder.Default
     @Column(nullable = false)
     private boolean deletada = false;
 
+    // Quando foi marcada como deletada; a limpeza da retenção conta a partir daqui.
+    // Escrita só pelo trigger do banco (ver ChatRetencaoScheduler), nunca pelo JPA
+    @Column(name = "deletada_em", insertable = false, updatable = false)
+    private LocalDateTime deletadaEm;
+
     @CreationTimestamp
     @Column(name = "enviado_em", nullable = false, updatable = false)
     private LocalDateTime enviadoEm;
 
+    // Em lote para a página do histórico; o blob de cada anexo vem pelo @BatchSize de ArquivoBlob
     @OneToMany(mappedBy = "mensagem", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     private List<MensagemAnexo> anexos;
 }
@@ -14,6 +14,7 @@ import java.util.UUID;
 @Entity
 @Table(name = "notificacoes", indexes = {
     @Index(name = "idx_notificacoes_destinatario", columnList = "destinatario_id"),
+    @Index(name = "idx_notificacoes_destinatario_data", columnList = "destinatario_id, data_envio DESC, id DESC"),
     @Index(name = "idx_notificacoes_equipe", columnList = "equipe_id"),
     @Index(name = "idx_notificacoes_chave_dedup", columnList = "chave_dedup")
 })
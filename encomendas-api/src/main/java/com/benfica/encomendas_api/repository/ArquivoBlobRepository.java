@@ -0,0 +1,114 @@
+package com.benfica.encomendas_api.repository;
+
+import com.benfica.encomendas_api.model.ArquivoBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ArquivoBlobRepository extends JpaRepository<ArquivoBlob, String> {
+
+    List<ArquivoBlob> findAllByUrlIn(Collection<String> urls);
+
+    // O blob já é anexo de algo que o usuário pode ver: mensagem de uma conversa em que
+    // participa (grupo ou privada) ou card de checklist de uma equipe de que é membro/administrador
+    @Query(value = """
+            WITH equipes_usuario AS (
+                SELECT em.equipe_id FROM equipe_membros em WHERE em.usuario_id = :usuarioId
+                UNION
+                SELECT e.id FROM equipes e WHERE e.administrador_id = :usuarioId
+            )
+            SELECT EXISTS (
+                SELECT 1 FROM mensagem_anexos a
+                JOIN mensagens_chat m ON m.id = a.mensagem_id
+                JOIN conversas c ON c.id = m.conversa_id
+                WHERE a.blob_hash = :hash
+                  AND c.equipe_id IN (SELECT equipe_id FROM equipes_usuario)
+                  AND (c.tipo = 'GRUPO' OR c.participante_a_id = :usuarioId OR c.participante_b_id = :usuarioId)
+            ) OR EXISTS (
+                SELECT 1 FROM checklist_anexos ca
+                JOIN checklist_cards cc ON cc.id = ca.card_id
+                JOIN checklist_boards cb ON cb.id = cc.board_id
+                WHERE ca.blob_hash = :hash
+                  AND cb.equipe_id IN (SELECT equipe_id FROM equipes_usuario)
+            )
+            """, nativeQuery = true)
+    boolean isVisivelPara(@Param("hash") String hash, @Param("usuarioId") Long usuarioId);
+
+    // Dois uploads simultâneos do mesmo conteúdo: o segundo INSERT é ignorado
+    @Modifying
+    @Query(value = """
+            INSERT INTO arquivos_blob (hash, url, content_type, tamanho, referencias, criado_em, ultimo_uso_em)
+            VALUES (:hash, :url, :contentType, :tamanho, 0, now(), now())
+            ON CONFLICT (hash) DO NOTHING
+            """, nativeQuery = true)
+    int inserirSeAusente(@Param("hash") String hash, @Param("url") String url,
+                         @Param("contentType") String contentType, @Param("tamanho") long tamanho);
+
+    @Modifying
+    @Query("UPDATE ArquivoBlob b SET b.referencias = b.referencias + :delta WHERE b.hash = :hash")
+    int ajustarReferencias(@Param("hash") String hash, @Param("delta") int delta);
+
+    // Recalcula a partir dos anexos: cobre remoções em cascata (cards, boards, mensagens)
+    // e os anexos de mensagens arquivadas (JSONB em mensagens_chat_arquivo).
+    // Uma só passagem por cada tabela de anexos, agregada por hash, em vez de contar por blob.
+    // Blobs usados depois de :limite ficam de fora: a contagem vem de um snapshot tirado no
+    // início da instrução e escreveria por cima de incrementos de anexos criados entretanto
+    @Modifying
+    @Query(value = """
+            UPDATE arquivos_blob b SET referencias = COALESCE(r.total, 0)
+            FROM arquivos_blob b2
+            LEFT JOIN (
+                SELECT u.blob_hash, COUNT(*) AS total
+                FROM (
+                    SELECT m.blob_hash FROM mensagem_anexos m WHERE m.blob_hash IS NOT NULL
+                    UNION ALL
+                    SELECT c.blob_hash FROM checklist_anexos c WHERE c.blob_hash IS NOT NULL
+                    UNION ALL
+                    SELECT x->>'blobHash' FROM mensagens_chat_arquivo ma, jsonb_array_elements(ma.anexos) x
+                    WHERE ma.anexos IS NOT NULL AND x->>'blobHash' IS NOT NULL
+                ) u
+                GROUP BY u.blob_hash
+            ) r ON r.blob_hash = b2.hash
+            WHERE b.hash = b2.hash AND b.referencias <> COALESCE(r.total, 0)
+              AND COALESCE(b.ultimo_uso_em, b.criado_em) < :limite
+            """, nativeQuery = true)
+    int reconciliarReferencias(@Param("limite") LocalDateTime limite);
+
+    @Modifying
+    @Query("UPDATE ArquivoBlob b SET b.ultimoUsoEm = :agora WHERE b.hash = :hash")
+    int registrarUso(@Param("hash") String hash, @Param("agora") LocalDateTime agora);
+
+    // Também trava as linhas até ao commit de quem anexa: a limpeza de órfãos espera e revê
+    @Modifying
+    @Query("UPDATE ArquivoBlob b SET b.ultimoUsoEm = :agora WHERE b.url IN :urls")
+    int registrarUsoPorUrl(@Param("urls") Collection<String> urls, @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("UPDATE ArquivoBlob b SET b.miniaturaUrl = :miniatura, b.exibicaoUrl = :exibicao WHERE b.hash = :hash")
+    int registrarVariantes(@Param("hash") String hash, @Param("miniatura") String miniatura, @Param("exibicao") String exibicao);
+
+    @Query("SELECT b FROM ArquivoBlob b WHERE b.miniaturaUrl IS NULL AND LOWER(b.contentType) IN :tipos AND b.criadoEm < :limite")
+    List<ArquivoBlob> findSemVariantes(@Param("tipos") Collection<String> tipos, @Param("limite") LocalDateTime limite);
+
+    @Query("SELECT b FROM ArquivoBlob b WHERE b.referencias <= 0 AND COALESCE(b.ultimoUsoEm, b.criadoEm) < :limite")
+    List<ArquivoBlob> findOrfaos(@Param("limite") LocalDateTime limite);
+
+    // Só remove se continuar órfão: a linha é travada pelo DELETE e as condições revistas
+    // sobre a versão mais recente (um anexo pode ter sido criado entretanto), e confirma-se
+    // nas tabelas de anexos que nada aponta para o blob, mesmo que o contador esteja errado
+    @Modifying
+    @Query(value = """
+            DELETE FROM arquivos_blob b
+            WHERE b.hash = :hash AND b.referencias <= 0 AND COALESCE(b.ultimo_uso_em, b.criado_em) < :limite
+              AND NOT EXISTS (SELECT 1 FROM mensagem_anexos m WHERE m.blob_hash = b.hash)
+              AND NOT EXISTS (SELECT 1 FROM checklist_anexos c WHERE c.blob_hash = b.hash)
+            """, nativeQuery = true)
+    int removerSeOrfao(@Param("hash") String hash, @Param("limite") LocalDateTime limite);
+}
@@ -0,0 +1,11 @@
+package com.benfica.encomendas_api.repository;
+
+import com.benfica.encomendas_api.model.ChecklistAnexo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface ChecklistAnexoRepository extends JpaRepository<ChecklistAnexo, UUID> {
+}
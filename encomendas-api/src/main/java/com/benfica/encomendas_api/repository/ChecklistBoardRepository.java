@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface ChecklistBoardRepository extends JpaRepository<ChecklistBoard, UUID> {
@@ -22,4 +23,10 @@ public interface ChecklistBoardRepository extends JpaRepository<ChecklistBoard,
            "LEFT JOIN FETCH b.cards " +
            "WHERE b.equipe.id = :equipeId")
     List<ChecklistBoard> findByEquipeId(@Param("equipeId") UUID equipeId);
-}
\ No newline at end of file
+
+    @Query("SELECT b.id AS id, b.rankOrdem AS rankOrdem, b.ordem AS ordem FROM ChecklistBoard b WHERE b.equipe.id = :equipeId")
+    List<PosicaoOrdem> findPosicoesByEquipeId(@Param("equipeId") UUID equipeId);
+
+    @Query("SELECT b.equipe.id FROM ChecklistBoard b WHERE b.id = :id")
+    Optional<UUID> findEquipeIdById(@Param("id") UUID id);
+}
@@ -7,10 +7,17 @@ import org.springframework.data.repository.query.Param;
 
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface ChecklistCardRepository extends JpaRepository<ChecklistCard, UUID> {
 
     @Query("SELECT c FROM ChecklistCard c JOIN FETCH c.board b JOIN FETCH b.equipe WHERE c.horarioFechamento BETWEEN :inicio AND :fim")
     List<ChecklistCard> findCardsRecentlyClosedBetween(@Param("inicio") LocalTime inicio, @Param("fim") LocalTime fim);
-}
\ No newline at end of file
+
+    @Query("SELECT c.id AS id, c.rankOrdem AS rankOrdem, c.ordem AS ordem FROM ChecklistCard c WHERE c.board.id = :boardId")
+    List<PosicaoOrdem> findPosicoesByBoardId(@Param("boardId") UUID boardId);
+
+    @Query("SELECT c.board.id FROM ChecklistCard c WHERE c.id = :id")
+    Optional<UUID> findBoardIdById(@Param("id") UUID id);
+}
@@ -2,8 +2,21 @@ package com.benfica.encomendas_api.repository;
 
 import com.benfica.encomendas_api.model.ChecklistItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface ChecklistItemRepository extends JpaRepository<ChecklistItem, UUID> {
-}
\ No newline at end of file
+
+    @Query("SELECT i FROM ChecklistItem i JOIN FETCH i.card c JOIN FETCH c.board WHERE i.id = :id")
+    Optional<ChecklistItem> findByIdComBoard(@Param("id") UUID id);
+
+    @Query("SELECT i.id AS id, i.rankOrdem AS rankOrdem, i.ordem AS ordem FROM ChecklistItem i WHERE i.card.id = :cardId")
+    List<PosicaoOrdem> findPosicoesByCardId(@Param("cardId") UUID cardId);
+
+    @Query("SELECT i.card.id FROM ChecklistItem i WHERE i.id = :id")
+    Optional<UUID> findCardIdById(@Param("id") UUID id);
+}
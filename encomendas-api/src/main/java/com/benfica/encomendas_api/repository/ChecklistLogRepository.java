@@ -14,9 +14,6 @@ public interface ChecklistLogRepository extends JpaRepository<ChecklistLog, UUID
     // Busca todos os logs de um usuário numa data (para reconstruir o estado do checklist dele)
     List<ChecklistLog> findByUsuarioIdAndDataReferencia(Long usuarioId, LocalDate dataReferencia);
 
-    // Busca histórico de um item específico (para auditoria)
-    List<ChecklistLog> findByItemIdOrderByDataHoraAcaoDesc(UUID itemId);
-
     // Para relatórios: todos os logs de uma equipe num dia específico
     @Query("SELECT l FROM ChecklistLog l " +
            "JOIN FETCH l.usuario " +
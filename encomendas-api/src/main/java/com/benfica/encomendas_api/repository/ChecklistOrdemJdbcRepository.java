@@ -0,0 +1,57 @@
+package com.benfica.encomendas_api.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Escritas de ordenação set-based (sem carregar entidades).
+ */
+@Repository
+public class ChecklistOrdemJdbcRepository {
+
+    public enum Tabela {
+        BOARDS("checklist_boards"),
+        CARDS("checklist_cards"),
+        ITENS("checklist_itens");
+
+        private final String nome;
+
+        Tabela(String nome) {
+            this.nome = nome;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void atualizarRank(Tabela tabela, UUID id, String rank) {
+        jdbcTemplate.update("UPDATE " + tabela.nome + " SET rank_ordem = ? WHERE id = ?", rank, id);
+    }
+
+    /**
+     * Renumera os ids na ordem dada: ordem = índice e rank_ordem = chave correspondente.
+     * Um único UPDATE ... FROM (VALUES ...) independentemente do tamanho da lista.
+     */
+    public void renumerar(Tabela tabela, List<UUID> idsOrdenados, List<String> ranks) {
+        if (idsOrdenados.isEmpty()) return;
+
+        String valores = String.join(", ",
+                Collections.nCopies(idsOrdenados.size(), "(CAST(? AS uuid), CAST(? AS integer), CAST(? AS varchar))"));
+        String sql = "UPDATE " + tabela.nome + " t SET ordem = v.ordem, rank_ordem = v.rank_ordem " +
+                "FROM (VALUES " + valores + ") AS v(id, ordem, rank_ordem) WHERE t.id = v.id";
+
+        List<Object> params = new ArrayList<>(idsOrdenados.size() * 3);
+        for (int i = 0; i < idsOrdenados.size(); i++) {
+            params.add(idsOrdenados.get(i));
+            params.add(i);
+            params.add(ranks.get(i));
+        }
+        jdbcTemplate.update(sql, params.toArray());
+    }
+}
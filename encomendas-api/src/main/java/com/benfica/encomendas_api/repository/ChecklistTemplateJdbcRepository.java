@@ -0,0 +1,54 @@
+package com.benfica.encomendas_api.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Inserções em lote (JDBC batch) para instanciar templates de checklist.
+ * Os UUIDs são gerados antes, por isso pais e filhos seguem em lotes independentes.
+ */
+@Repository
+public class ChecklistTemplateJdbcRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // {id, nome, equipe_id, ordem, rank_ordem, data_criacao}
+    public void inserirBoards(List<Object[]> boards) {
+        if (boards.isEmpty()) return;
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO checklist_boards (id, nome, equipe_id, usuario_especifico_id, ordem, rank_ordem, data_criacao, ativo)
+                VALUES (?, ?, ?, NULL, ?, ?, ?, TRUE)
+                """, boards);
+    }
+
+    // {id, board_id, titulo, descricao, horario_abertura, horario_fechamento, ordem, rank_ordem}
+    public void inserirCards(List<Object[]> cards) {
+        if (cards.isEmpty()) return;
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO checklist_cards (id, board_id, titulo, descricao, horario_abertura, horario_fechamento, ordem, rank_ordem)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                """, cards);
+    }
+
+    // {id, card_id, descricao, ordem, rank_ordem}
+    public void inserirItens(List<Object[]> itens) {
+        if (itens.isEmpty()) return;
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO checklist_itens (id, card_id, descricao, ordem, rank_ordem)
+                VALUES (?, ?, ?, ?, ?)
+                """, itens);
+    }
+
+    // {id, card_id, nome_arquivo, tipo_arquivo, url, blob_hash}
+    public void inserirAnexos(List<Object[]> anexos) {
+        if (anexos.isEmpty()) return;
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO checklist_anexos (id, card_id, nome_arquivo, tipo_arquivo, url, blob_hash)
+                VALUES (?, ?, ?, ?, ?, ?)
+                """, anexos);
+    }
+}
@@ -0,0 +1,38 @@
+package com.benfica.encomendas_api.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Escritas no resumo da conversa que não precisam de carregar a entidade.
+ */
+@Repository
+public class ConversaJdbcRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Atribui a próxima sequência e atualiza o resumo numa só instrução. O UPDATE bloqueia a
+     * linha até ao commit, o que serializa envios simultâneos na mesma conversa.
+     *
+     * @return a nova sequência, ou null se a conversa não existir
+     */
+    public Long avancarSequencia(UUID conversaId, String preview, LocalDateTime enviadoEm) {
+        List<Long> seq = jdbcTemplate.queryForList("""
+                UPDATE conversas
+                SET ultima_seq = COALESCE(ultima_seq, 0) + 1,
+                    ultima_mensagem_preview = ?,
+                    ultima_mensagem_em = ?
+                WHERE id = ?
+                RETURNING ultima_seq
+                """, Long.class, preview, Timestamp.valueOf(enviadoEm), conversaId);
+        return seq.isEmpty() ? null : seq.get(0);
+    }
+}
@@ -26,6 +26,45 @@ public interface ConversaRepository extends JpaRepository<Conversa, UUID> {
     """)
     List<Conversa> findAllForUser(@Param("equipeId") UUID equipeId, @Param("userId") Long userId);
 
+    // Barra lateral numa única query: conversa + participantes + cursor de leitura do usuário
+    @Query("""
+        SELECT c, l.ultimaSeqLida FROM Conversa c
+        LEFT JOIN FETCH c.participanteA
+        LEFT JOIN FETCH c.participanteB
+        LEFT JOIN LeituraMensagem l ON l.conversa = c AND l.usuario.id = :userId
+        WHERE c.equipe.id = :equipeId
+        AND (
+            c.tipo = com.benfica.encomendas_api.model.TipoConversa.GRUPO
+            OR (c.participanteA IS NOT NULL AND c.participanteA.id = :userId)
+            OR (c.participanteB IS NOT NULL AND c.participanteB.id = :userId)
+        )
+        ORDER BY c.criadoEm ASC
+    """)
+    List<Object[]> findResumosForUser(@Param("equipeId") UUID equipeId, @Param("userId") Long userId);
+
+    // Total exato de não lidas do usuário na equipe (só linhas de conversas e leituras, não de mensagens)
+    @Query("""
+        SELECT COALESCE(SUM(COALESCE(c.ultimaSeq, 0) - COALESCE(l.ultimaSeqLida, 0)), 0) FROM Conversa c
+        LEFT JOIN LeituraMensagem l ON l.conversa = c AND l.usuario.id = :userId
+        WHERE c.equipe.id = :equipeId
+        AND (
+            c.tipo = com.benfica.encomendas_api.model.TipoConversa.GRUPO
+            OR (c.participanteA IS NOT NULL AND c.participanteA.id = :userId)
+            OR (c.participanteB IS NOT NULL AND c.participanteB.id = :userId)
+        )
+    """)
+    long sumNaoLidas(@Param("equipeId") UUID equipeId, @Param("userId") Long userId);
+
+    // Carregamento do cache de participantes (ChatMembrosCache)
+    @Query("""
+        SELECT c FROM Conversa c
+        JOIN FETCH c.equipe
+        LEFT JOIN FETCH c.participanteA
+        LEFT JOIN FETCH c.participanteB
+        WHERE c.id = :id
+    """)
+    Optional<Conversa> findComParticipantes(@Param("id") UUID id);
+
     @Query("""
         SELECT c FROM Conversa c
         WHERE c.equipe.id = :equipeId
@@ -3,6 +3,8 @@ package com.benfica.encomendas_api.repository;
 import com.benfica.encomendas_api.model.Equipe;
 import com.benfica.encomendas_api.model.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -20,4 +22,22 @@ public interface EquipeRepository extends JpaRepository<Equipe, UUID> {
 
     // Busca equipas onde o utilizador é Admin OU está na lista de Membros
     List<Equipe> findByAdministradorOrMembrosContaining(Usuario admin, Usuario membro);
+
+    // Só os ids dos membros (sem carregar as entidades Usuario)
+    @Query("SELECT m.id FROM Equipe e JOIN e.membros m WHERE e.id = :equipeId")
+    List<Long> findMembroIds(@Param("equipeId") UUID equipeId);
+
+    @Query("SELECT COUNT(m) FROM Equipe e JOIN e.membros m WHERE e.id = :equipeId")
+    long countMembros(@Param("equipeId") UUID equipeId);
+
+    // Membro ou administrador da equipe (autorização de subscrições em tempo real)
+    @Query("""
+        SELECT COUNT(e) > 0 FROM Equipe e LEFT JOIN e.membros m
+        WHERE e.id = :equipeId AND (e.administrador.id = :usuarioId OR m.id = :usuarioId)
+    """)
+    boolean isParticipante(@Param("equipeId") UUID equipeId, @Param("usuarioId") Long usuarioId);
+
+    // {id, nomeCompleto} dos membros
+    @Query("SELECT m.id, m.nomeCompleto FROM Equipe e JOIN e.membros m WHERE e.id = :equipeId")
+    List<Object[]> findMembrosResumo(@Param("equipeId") UUID equipeId);
 }
\ No newline at end of file
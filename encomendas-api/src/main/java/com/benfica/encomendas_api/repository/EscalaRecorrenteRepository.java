@@ -0,0 +1,31 @@
+package com.benfica.encomendas_api.repository;
+
+import com.benfica.encomendas_api.model.EscalaRecorrente;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public interface EscalaRecorrenteRepository extends JpaRepository<EscalaRecorrente, Long> {
+
+    List<EscalaRecorrente> findByUsuarioIdOrderByDataInicioDesc(Long usuarioId);
+
+    // Recorrências que tocam o período; a mais recente primeiro (prevalece em sobreposições)
+    @Query("SELECT r FROM EscalaRecorrente r WHERE r.usuario.id IN :usuarioIds " +
+           "AND r.dataInicio <= :fim AND r.dataFim >= :inicio ORDER BY r.id DESC")
+    List<EscalaRecorrente> findByUsuarioIdInAndPeriodo(
+            @Param("usuarioIds") List<Long> usuarioIds,
+            @Param("inicio") LocalDate inicio,
+            @Param("fim") LocalDate fim);
+
+    @Query("SELECT r FROM EscalaRecorrente r, Equipe eq JOIN eq.membros m " +
+           "WHERE eq.id = :equipeId AND r.usuario = m AND r.dataInicio <= :fim AND r.dataFim >= :inicio " +
+           "ORDER BY r.id DESC")
+    List<EscalaRecorrente> findByEquipeIdAndPeriodo(
+            @Param("equipeId") UUID equipeId,
+            @Param("inicio") LocalDate inicio,
+            @Param("fim") LocalDate fim);
+}
@@ -0,0 +1,81 @@
+package com.benfica.encomendas_api.repository;
+
+import com.benfica.encomendas_api.model.TipoEscala;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Upsert set-based da escala: gera os dias no próprio Postgres (generate_series) e usa a
+ * constraint única (usuario_id, data) com ON CONFLICT, sem materializar entidades.
+ */
+@Repository
+public class EscalaTrabalhoJdbcRepository {
+
+    private static final String UPSERT_PERIODO = """
+            INSERT INTO escala_trabalho (usuario_id, data, horario_inicio, horario_fim, tipo, observacao)
+            SELECT u.id, d::date, ?, ?, ?, ?
+            FROM usuarios u
+            CROSS JOIN generate_series(?::date, ?::date, INTERVAL '1 day') AS d
+            WHERE u.id = ANY(?)
+              AND EXTRACT(ISODOW FROM d)::int = ANY(?)
+            ON CONFLICT (usuario_id, data) DO UPDATE SET
+                horario_inicio = EXCLUDED.horario_inicio,
+                horario_fim = EXCLUDED.horario_fim,
+                tipo = EXCLUDED.tipo,
+                observacao = EXCLUDED.observacao
+            """;
+
+    private static final String REMOVER_PERIODO = """
+            DELETE FROM escala_trabalho
+            WHERE usuario_id = ANY(?)
+              AND data BETWEEN ? AND ?
+              AND EXTRACT(ISODOW FROM data)::int = ANY(?)
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Aplica o mesmo horário a todos os usuários, nos dias da semana indicados
+     * (1=Segunda ... 7=Domingo, igual ao ISODOW do Postgres). Devolve as linhas gravadas.
+     */
+    public int upsertPeriodo(List<Long> usuarioIds, LocalDate inicio, LocalDate fim, List<Integer> diasSemana,
+                             LocalTime horarioInicio, LocalTime horarioFim, TipoEscala tipo, String observacao) {
+        if (usuarioIds.isEmpty() || diasSemana.isEmpty()) return 0;
+
+        Integer linhas = jdbcTemplate.execute(UPSERT_PERIODO, (PreparedStatement ps) -> {
+            ps.setObject(1, horarioInicio, Types.TIME);
+            ps.setObject(2, horarioFim, Types.TIME);
+            ps.setString(3, tipo.name());
+            ps.setString(4, observacao);
+            ps.setDate(5, Date.valueOf(inicio));
+            ps.setDate(6, Date.valueOf(fim));
+            ps.setArray(7, ps.getConnection().createArrayOf("bigint", usuarioIds.toArray()));
+            ps.setArray(8, ps.getConnection().createArrayOf("integer", diasSemana.toArray()));
+            return ps.executeUpdate();
+        });
+        return linhas != null ? linhas : 0;
+    }
+
+    // Remove os dias materializados que passam a ser cobertos por uma recorrência
+    public int removerPeriodo(List<Long> usuarioIds, LocalDate inicio, LocalDate fim, List<Integer> diasSemana) {
+        if (usuarioIds.isEmpty() || diasSemana.isEmpty()) return 0;
+
+        Integer linhas = jdbcTemplate.execute(REMOVER_PERIODO, (PreparedStatement ps) -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", usuarioIds.toArray()));
+            ps.setDate(2, Date.valueOf(inicio));
+            ps.setDate(3, Date.valueOf(fim));
+            ps.setArray(4, ps.getConnection().createArrayOf("integer", diasSemana.toArray()));
+            return ps.executeUpdate();
+        });
+        return linhas != null ? linhas : 0;
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.UUID;
 
 public interface EscalaTrabalhoRepository extends JpaRepository<EscalaTrabalho, Long> {
 
@@ -16,15 +17,22 @@ public interface EscalaTrabalhoRepository extends JpaRepository<EscalaTrabalho,
     // Busca escala de um dia específico para validações
     EscalaTrabalho findByUsuarioIdAndData(Long usuarioId, LocalDate data);
 
-    // Para o ADM ver a escala de todos da equipe (faremos o filtro de equipe na Service/Controller)
-    // Mas podemos buscar todos por período para otimizar
-    @Query("SELECT e FROM EscalaTrabalho e WHERE e.data BETWEEN :inicio AND :fim")
-    List<EscalaTrabalho> findAllByDataBetween(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+    // Grade mensal da equipe numa única query: membros (equipe_membros) LEFT JOIN escala pelo índice (usuario_id, data)
+    @Query("SELECT m.id, m.nomeCompleto, e.data, e.tipo, e.horarioInicio, e.horarioFim " +
+           "FROM Equipe eq JOIN eq.membros m " +
+           "LEFT JOIN EscalaTrabalho e ON e.usuario = m AND e.data BETWEEN :inicio AND :fim " +
+           "WHERE eq.id = :equipeId ORDER BY m.nomeCompleto, m.id")
+    List<Object[]> findGradeEquipe(
+            @Param("equipeId") UUID equipeId,
+            @Param("inicio") LocalDate inicio,
+            @Param("fim") LocalDate fim);
 
-    // Busca escalas de múltiplos usuários num período (para replicação em massa)
-    @Query("SELECT e FROM EscalaTrabalho e WHERE e.usuario.id IN :usuarioIds AND e.data BETWEEN :inicio AND :fim")
-    List<EscalaTrabalho> findByUsuarioIdInAndDataBetween(
-            @Param("usuarioIds") List<Long> usuarioIds,
+    // Calendário do mês de todos os membros da equipe (1 query; membros sem escala vêm com data/tipo nulos)
+    @Query("SELECT m.id, e.data, e.tipo FROM Equipe eq JOIN eq.membros m " +
+           "LEFT JOIN EscalaTrabalho e ON e.usuario = m AND e.data BETWEEN :inicio AND :fim " +
+           "WHERE eq.id = :equipeId")
+    List<Object[]> findCalendarioEquipe(
+            @Param("equipeId") UUID equipeId,
             @Param("inicio") LocalDate inicio,
             @Param("fim") LocalDate fim);
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.benfica.encomendas_api.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Cursores de leitura gravados em lote (leituras_mensagem), sem carregar entidades.
+ */
+@Repository
+public class LeituraMensagemJdbcRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public record Leitura(UUID conversaId, Long usuarioId, LocalDateTime vistoEm) {}
+
+    /** Quantas mensagens cada leitura marcou como lidas (ultimaSeq - cursor anterior). */
+    public record LeituraAplicada(UUID conversaId, Long usuarioId, long lidas) {}
+
+    /**
+     * Avança os cursores até à ultima_seq atual de cada conversa numa só instrução.
+     * O SELECT de "anterior" vê a tabela antes do upsert, o que dá o cursor antigo para
+     * ajustar os contadores. Conversas ou usuários entretanto removidos são ignorados.
+     * Cada par (conversa, usuário) só pode aparecer uma vez na lista.
+     */
+    public List<LeituraAplicada> avancarCursores(List<Leitura> leituras) {
+        UUID[] conversas = leituras.stream().map(Leitura::conversaId).toArray(UUID[]::new);
+        Long[] usuarios = leituras.stream().map(Leitura::usuarioId).toArray(Long[]::new);
+        Timestamp[] vistos = leituras.stream().map(l -> Timestamp.valueOf(l.vistoEm())).toArray(Timestamp[]::new);
+
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("""
+                WITH entrada AS (
+                    SELECT * FROM unnest(?::uuid[], ?::bigint[], ?::timestamp[]) AS e(conversa_id, usuario_id, visto_em)
+                ), alvo AS (
+                    SELECT e.conversa_id, e.usuario_id, e.visto_em, COALESCE(c.ultima_seq, 0) AS seq
+                    FROM entrada e
+                    JOIN conversas c ON c.id = e.conversa_id
+                    JOIN usuarios u ON u.id = e.usuario_id
+                ), anterior AS (
+                    SELECT l.conversa_id, l.usuario_id, COALESCE(l.ultima_seq_lida, 0) AS lida
+                    FROM leituras_mensagem l
+                    JOIN alvo a ON a.conversa_id = l.conversa_id AND a.usuario_id = l.usuario_id
+                ), upsert AS (
+                    INSERT INTO leituras_mensagem (id, conversa_id, usuario_id, ultimo_visto_em, ultima_seq_lida)
+                    SELECT gen_random_uuid(), conversa_id, usuario_id, visto_em, seq FROM alvo
+                    ON CONFLICT (conversa_id, usuario_id) DO UPDATE SET
+                        ultimo_visto_em = GREATEST(leituras_mensagem.ultimo_visto_em, EXCLUDED.ultimo_visto_em),
+                        ultima_seq_lida = GREATEST(COALESCE(leituras_mensagem.ultima_seq_lida, 0), EXCLUDED.ultima_seq_lida)
+                )
+                SELECT a.conversa_id, a.usuario_id, GREATEST(a.seq - COALESCE(p.lida, 0), 0) AS lidas
+                FROM alvo a
+                LEFT JOIN anterior p ON p.conversa_id = a.conversa_id AND p.usuario_id = a.usuario_id
+                """);
+            ps.setArray(1, con.createArrayOf("uuid", conversas));
+            ps.setArray(2, con.createArrayOf("bigint", usuarios));
+            ps.setArray(3, con.createArrayOf("timestamp", vistos));
+            return ps;
+        }, (rs, i) -> new LeituraAplicada(
+                rs.getObject("conversa_id", UUID.class),
+                rs.getLong("usuario_id"),
+                rs.getLong("lidas")));
+    }
+}
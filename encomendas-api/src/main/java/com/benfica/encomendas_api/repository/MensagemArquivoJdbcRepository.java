@@ -0,0 +1,151 @@
+package com.benfica.encomendas_api.repository;
+
+import com.benfica.encomendas_api.dto.CursorMensagem;
+import com.benfica.encomendas_api.dto.MensagemAnexoDTO;
+import com.benfica.encomendas_api.dto.MensagemChatDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Mensagens antigas do chat em mensagens_chat_arquivo (tabela criada pelo ChatRetencaoScheduler).
+ *
+ * Cada linha guarda a mensagem e os anexos num só registo (coluna anexos em JSONB, com
+ * as URLs das variantes já resolvidas), por isso a leitura não precisa de joins com
+ * mensagem_anexos nem arquivos_blob.
+ */
+@Repository
+public class MensagemArquivoJdbcRepository {
+
+    private static final TypeReference<List<MensagemAnexoDTO>> LISTA_ANEXOS = new TypeReference<>() {};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Move para o arquivo até tamanho mensagens da equipe enviadas antes do limite.
+     * As linhas já bloqueadas por outra transação ficam para o lote seguinte.
+     *
+     * @return o número de mensagens arquivadas
+     */
+    public int arquivarLote(UUID equipeId, LocalDateTime limite, int tamanho) {
+        List<UUID> ids = jdbcTemplate.queryForList("""
+                SELECT m.id FROM mensagens_chat m
+                JOIN conversas c ON c.id = m.conversa_id
+                WHERE c.equipe_id = ? AND m.enviado_em < ? AND m.deletada = FALSE
+                ORDER BY m.enviado_em
+                LIMIT ?
+                FOR UPDATE OF m SKIP LOCKED
+                """, UUID.class, equipeId, Timestamp.valueOf(limite), tamanho);
+        if (ids.isEmpty()) return 0;
+
+        UUID[] lote = ids.toArray(UUID[]::new);
+        jdbcTemplate.update("""
+                INSERT INTO mensagens_chat_arquivo (id, conversa_id, remetente_id, seq, conteudo, enviado_em, anexos, arquivada_em)
+                SELECT m.id, m.conversa_id, m.remetente_id, m.seq, m.conteudo, m.enviado_em,
+                       (SELECT jsonb_agg(jsonb_build_object(
+                                   'id', a.id,
+                                   'nomeArquivo', a.nome_arquivo,
+                                   'tipoArquivo', a.tipo_arquivo,
+                                   'url', a.url,
+                                   'miniaturaUrl', COALESCE(b.miniatura_url, a.url),
+                                   'exibicaoUrl', COALESCE(b.exibicao_url, a.url),
+                                   'blobHash', a.blob_hash))
+                        FROM mensagem_anexos a
+                        LEFT JOIN arquivos_blob b ON b.hash = a.blob_hash
+                        WHERE a.mensagem_id = m.id),
+                       now()
+                FROM mensagens_chat m
+                WHERE m.id = ANY(?)
+                ON CONFLICT (id) DO NOTHING
+                """, ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", lote)));
+        jdbcTemplate.update("DELETE FROM mensagem_anexos WHERE mensagem_id = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", lote)));
+        jdbcTemplate.update("DELETE FROM mensagens_chat WHERE id = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", lote)));
+        return ids.size();
+    }
+
+    /**
+     * Remove de vez até tamanho mensagens deletadas antes do limite (deletada_em, preenchida
+     * pelo trigger criado no ChatRetencaoScheduler).
+     */
+    public int removerDeletadas(LocalDateTime limite, int tamanho) {
+        List<UUID> ids = jdbcTemplate.queryForList("""
+                SELECT id FROM mensagens_chat
+                WHERE deletada = TRUE AND deletada_em < ?
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+                """, UUID.class, Timestamp.valueOf(limite), tamanho);
+        if (ids.isEmpty()) return 0;
+
+        UUID[] lote = ids.toArray(UUID[]::new);
+        jdbcTemplate.update("DELETE FROM mensagem_anexos WHERE mensagem_id = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", lote)));
+        jdbcTemplate.update("DELETE FROM mensagens_chat WHERE id = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", lote)));
+        return ids.size();
+    }
+
+    /**
+     * Mensagens arquivadas da conversa anteriores ao cursor (ou as mais recentes do arquivo,
+     * sem cursor), da mais nova para a mais antiga. Devolve até limite linhas.
+     */
+    public List<MensagemChatDTO> findAntes(UUID conversaId, CursorMensagem antes, int limite) {
+        List<Object> params = new ArrayList<>(List.of(conversaId));
+        String filtroCursor = "";
+        if (antes != null) {
+            filtroCursor = "AND (m.enviado_em, m.id) < (?, ?)";
+            params.add(Timestamp.valueOf(antes.enviadoEm()));
+            params.add(antes.id());
+        }
+        params.add(limite);
+
+        return jdbcTemplate.query("""
+                SELECT m.id, m.conversa_id, m.seq, m.remetente_id, u.nome_completo, m.conteudo, m.enviado_em, m.anexos
+                FROM mensagens_chat_arquivo m
+                JOIN usuarios u ON u.id = m.remetente_id
+                WHERE m.conversa_id = ? %s
+                ORDER BY m.enviado_em DESC, m.id DESC
+                LIMIT ?
+                """.formatted(filtroCursor),
+                (rs, i) -> {
+                    UUID id = rs.getObject("id", UUID.class);
+                    LocalDateTime enviadoEm = rs.getTimestamp("enviado_em").toLocalDateTime();
+                    return MensagemChatDTO.builder()
+                            .id(id)
+                            .conversaId(rs.getObject("conversa_id", UUID.class))
+                            .seq(rs.getObject("seq", Long.class))
+                            .remetenteId(rs.getLong("remetente_id"))
+                            .remetenteNome(rs.getString("nome_completo"))
+                            .conteudo(rs.getString("conteudo"))
+                            .enviadoEm(enviadoEm)
+                            .deletada(false)
+                            .anexos(lerAnexos(rs.getString("anexos")))
+                            .cursor(new CursorMensagem(enviadoEm, id).codificar())
+                            .build();
+                },
+                params.toArray());
+    }
+
+    private List<MensagemAnexoDTO> lerAnexos(String json) {
+        if (json == null) return new ArrayList<>();
+        try {
+            return objectMapper.readValue(json, LISTA_ANEXOS);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Anexos arquivados ilegíveis", e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.benfica.encomendas_api.repository;
+
+import com.benfica.encomendas_api.dto.CursorBusca;
+import com.benfica.encomendas_api.dto.CursorMensagem;
+import com.benfica.encomendas_api.dto.MensagemBuscaDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Busca de texto completo no chat (coluna conteudo_tsv + índice GIN, dicionário 'portuguese').
+ *
+ * Só entram conversas da equipe em que o usuário participa: o grupo e os seus privados
+ * (a pertença à equipe é verificada no ChatService). A paginação é por keyset em
+ * (rank, enviado_em, id); o ts_headline, que é caro, só corre para as linhas da página.
+ *
+ * O trecho é HTML: o conteúdo é escapado antes do ts_headline, por isso as únicas tags
+ * são os &lt;mark&gt; dos termos encontrados.
+ */
+@Repository
+public class MensagemBuscaJdbcRepository {
+
+    private static final String HEADLINE_OPCOES = "StartSel=<mark>, StopSel=</mark>, MaxWords=25, MinWords=8, MaxFragments=2";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** Devolve até limite + 1 linhas (a extra indica se há mais). */
+    public List<MensagemBuscaDTO> buscar(UUID equipeId, Long usuarioId, String termos, CursorBusca apos, int limite) {
+        List<Object> params = new ArrayList<>(List.of(termos, equipeId, usuarioId, usuarioId));
+        String filtroCursor = "";
+        if (apos != null) {
+            filtroCursor = "WHERE (r.rank, r.enviado_em, r.id) < (CAST(? AS real), ?, ?)";
+            params.add(apos.rank());
+            params.add(Timestamp.valueOf(apos.enviadoEm()));
+            params.add(apos.id());
+        }
+        params.add(limite + 1);
+
+        return jdbcTemplate.query("""
+                SELECT r.id, r.conversa_id, r.remetente_id, u.nome_completo, r.enviado_em, r.rank,
+                       ts_headline('portuguese',
+                                   replace(replace(replace(replace(replace(r.conteudo,
+                                       '&', '&amp;'), '<', '&lt;'), '>', '&gt;'), '"', '&quot;'), '''', '&#39;'),
+                                   r.consulta, '%s') AS trecho
+                FROM (
+                    SELECT m.id, m.conversa_id, m.remetente_id, m.conteudo, m.enviado_em, q.consulta,
+                           ts_rank(m.conteudo_tsv, q.consulta) AS rank
+                    FROM mensagens_chat m
+                    JOIN conversas c ON c.id = m.conversa_id
+                    CROSS JOIN websearch_to_tsquery('portuguese', ?) AS q(consulta)
+                    WHERE c.equipe_id = ?
+                      AND (c.tipo = 'GRUPO' OR c.participante_a_id = ? OR c.participante_b_id = ?)
+                      AND m.deletada = FALSE
+                      AND m.conteudo_tsv @@ q.consulta
+                ) r
+                JOIN usuarios u ON u.id = r.remetente_id
+                %s
+                ORDER BY r.rank DESC, r.enviado_em DESC, r.id DESC
+                LIMIT ?
+                """.formatted(HEADLINE_OPCOES, filtroCursor),
+                (rs, i) -> {
+                    UUID id = rs.getObject("id", UUID.class);
+                    Timestamp enviadoEm = rs.getTimestamp("enviado_em");
+                    return MensagemBuscaDTO.builder()
+                            .id(id)
+                            .conversaId(rs.getObject("conversa_id", UUID.class))
+                            .remetenteId(rs.getLong("remetente_id"))
+                            .remetenteNome(rs.getString("nome_completo"))
+                            .enviadoEm(enviadoEm.toLocalDateTime())
+                            .rank(rs.getFloat("rank"))
+                            .trecho(rs.getString("trecho"))
+                            .cursor(new CursorMensagem(enviadoEm.toLocalDateTime(), id).codificar())
+                            .build();
+                },
+                params.toArray());
+    }
+}
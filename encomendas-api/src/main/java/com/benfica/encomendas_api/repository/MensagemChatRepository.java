@@ -1,60 +1,67 @@
 package com.benfica.encomendas_api.repository;
 
 import com.benfica.encomendas_api.model.MensagemChat;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.UUID;
 
+/**
+ * Histórico por keyset sobre (enviado_em, id), servido pelo índice
+ * idx_mensagens_conversa_enviado (conversa_id, enviado_em DESC, id DESC).
+ * Slice em vez de Page: lê limite + 1 linhas e não faz COUNT.
+ */
 @Repository
 public interface MensagemChatRepository extends JpaRepository<MensagemChat, UUID> {
 
-    Page<MensagemChat> findByConversaIdAndDeletadaFalseOrderByEnviadoEmDesc(UUID conversaId, Pageable pageable);
-
+    @EntityGraph(attributePaths = "remetente")
     @Query("""
-        SELECT COUNT(m) FROM MensagemChat m
-        JOIN m.conversa c
-        LEFT JOIN LeituraMensagem l ON l.conversa.id = c.id AND l.usuario.id = :userId
-        WHERE c.equipe.id = :equipeId
-        AND m.deletada = false
-        AND (
-            c.tipo = com.benfica.encomendas_api.model.TipoConversa.GRUPO
-            OR (c.participanteA IS NOT NULL AND c.participanteA.id = :userId)
-            OR (c.participanteB IS NOT NULL AND c.participanteB.id = :userId)
-        )
-        AND (l.ultimoVistoEm IS NULL OR m.enviadoEm > l.ultimoVistoEm)
-        AND m.remetente.id <> :userId
+        SELECT m FROM MensagemChat m
+        WHERE m.conversa.id = :conversaId AND m.deletada = false
+        ORDER BY m.enviadoEm DESC, m.id DESC
     """)
-    long countTotalUnread(@Param("equipeId") UUID equipeId, @Param("userId") Long userId);
+    Slice<MensagemChat> findRecentes(@Param("conversaId") UUID conversaId, Pageable pageable);
 
+    @EntityGraph(attributePaths = "remetente")
     @Query("""
-        SELECT COUNT(m) FROM MensagemChat m
-        WHERE m.conversa.id = :conversaId
-        AND m.deletada = false
-        AND m.enviadoEm > :depois
-        AND m.remetente.id <> :userId
+        SELECT m FROM MensagemChat m
+        WHERE m.conversa.id = :conversaId AND m.deletada = false
+        AND (m.enviadoEm < :enviadoEm OR (m.enviadoEm = :enviadoEm AND m.id < :id))
+        ORDER BY m.enviadoEm DESC, m.id DESC
     """)
-    long countUnreadInConversa(@Param("conversaId") UUID conversaId,
-                                @Param("depois") LocalDateTime depois,
-                                @Param("userId") Long userId);
+    Slice<MensagemChat> findAntes(@Param("conversaId") UUID conversaId,
+                                  @Param("enviadoEm") LocalDateTime enviadoEm,
+                                  @Param("id") UUID id,
+                                  Pageable pageable);
 
+    @EntityGraph(attributePaths = "remetente")
     @Query("""
-        SELECT MAX(m.enviadoEm) FROM MensagemChat m
+        SELECT m FROM MensagemChat m
         WHERE m.conversa.id = :conversaId AND m.deletada = false
+        AND (m.enviadoEm > :enviadoEm OR (m.enviadoEm = :enviadoEm AND m.id > :id))
+        ORDER BY m.enviadoEm ASC, m.id ASC
     """)
-    java.time.LocalDateTime findUltimaMensagemEm(@Param("conversaId") UUID conversaId);
+    Slice<MensagemChat> findDepois(@Param("conversaId") UUID conversaId,
+                                   @Param("enviadoEm") LocalDateTime enviadoEm,
+                                   @Param("id") UUID id,
+                                   Pageable pageable);
 
+    // Reconexão: mensagens da conversa com seq acima da última que o cliente viu. A seq é
+    // atribuída com a linha da conversa bloqueada até ao commit, por isso, ao contrário de
+    // enviado_em, segue a ordem dos commits e nenhuma mensagem fica para trás
+    @EntityGraph(attributePaths = "remetente")
     @Query("""
-        SELECT m.conteudo FROM MensagemChat m
-        WHERE m.conversa.id = :conversaId AND m.deletada = false
-        ORDER BY m.enviadoEm DESC
+        SELECT m FROM MensagemChat m
+        WHERE m.conversa.id = :conversaId AND m.seq > :seq AND m.deletada = false
+        ORDER BY m.seq ASC
     """)
-    List<String> findUltimasMensagensConteudo(@Param("conversaId") UUID conversaId,
-                                               org.springframework.data.domain.Pageable pageable);
+    Slice<MensagemChat> findDepoisDaSeq(@Param("conversaId") UUID conversaId,
+                                        @Param("seq") Long seq,
+                                        Pageable pageable);
 }
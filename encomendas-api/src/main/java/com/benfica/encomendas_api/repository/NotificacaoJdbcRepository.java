@@ -0,0 +1,84 @@
+package com.benfica.encomendas_api.repository;
+
+import com.benfica.encomendas_api.dto.NotificacaoDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Envio de notificações para vários destinatários num só INSERT ... SELECT, sem carregar
+ * a equipe nem os membros. Devolve as notificações criadas já em DTO, para a entrega em
+ * tempo real.
+ */
+@Repository
+public class NotificacaoJdbcRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public record NotificacaoCriada(Long destinatarioId, NotificacaoDTO notificacao) {}
+
+    /** Uma notificação para cada membro da equipe. */
+    public List<NotificacaoCriada> inserirParaMembros(UUID equipeId, Long remetenteId, String remetenteNome,
+                                                   String titulo, String mensagem) {
+        return inserir("""
+                SELECT em.usuario_id AS id FROM equipe_membros em WHERE em.equipe_id = ?
+                """, List.of(equipeId), equipeId, remetenteId, remetenteNome, titulo, mensagem, null);
+    }
+
+    /**
+     * Uma notificação para cada admin da equipe (membros ADMIN/SUPER_ADMIN e o administrador).
+     * A chave de deduplicação vai só numa delas, já que a coluna é única.
+     */
+    public List<NotificacaoCriada> inserirParaAdmins(UUID equipeId, String titulo, String mensagem, String chaveDedup) {
+        return inserir("""
+                SELECT em.usuario_id AS id FROM equipe_membros em
+                JOIN usuarios u ON u.id = em.usuario_id
+                WHERE em.equipe_id = ? AND u.role IN ('ROLE_ADMIN', 'ROLE_SUPER_ADMIN')
+                UNION
+                SELECT e.administrador_id FROM equipes e WHERE e.id = ?
+                """, List.of(equipeId, equipeId), equipeId, null, null, titulo, mensagem, chaveDedup);
+    }
+
+    private List<NotificacaoCriada> inserir(String destinatarios, List<Object> paramsDestinatarios, UUID equipeId,
+                                         Long remetenteId, String remetenteNome, String titulo, String mensagem,
+                                         String chaveDedup) {
+        // Pela ordem dos placeholders: destinatários, equipe, remetente, título, mensagem, chave
+        List<Object> params = new ArrayList<>(paramsDestinatarios);
+        params.add(equipeId);
+        params.add(remetenteId);
+        params.add(titulo);
+        params.add(mensagem);
+        params.add(chaveDedup);
+
+        return jdbcTemplate.query("""
+                WITH dest AS (%s),
+                criadas AS (
+                    INSERT INTO notificacoes (id, equipe_id, destinatario_id, remetente_id, titulo, mensagem, lida, data_envio, chave_dedup)
+                    SELECT gen_random_uuid(), CAST(? AS uuid), d.id, CAST(? AS bigint),
+                           CAST(? AS varchar), CAST(? AS text), FALSE, now(),
+                           CASE WHEN row_number() OVER (ORDER BY d.id) = 1 THEN CAST(? AS varchar) END
+                    FROM dest d
+                    RETURNING id, destinatario_id, data_envio
+                )
+                SELECT c.id, c.destinatario_id, c.data_envio, u.nome_completo
+                FROM criadas c
+                JOIN usuarios u ON u.id = c.destinatario_id
+                """.formatted(destinatarios),
+                (rs, i) -> new NotificacaoCriada(rs.getLong("destinatario_id"), NotificacaoDTO.builder()
+                        .id(rs.getObject("id", UUID.class))
+                        .titulo(titulo)
+                        .mensagem(mensagem)
+                        .lida(false)
+                        .dataEnvio(rs.getTimestamp("data_envio").toLocalDateTime())
+                        .remetenteId(remetenteId)
+                        .remetenteNome(remetenteNome)
+                        .destinatarioNome(rs.getString("nome_completo"))
+                        .build()),
+                params.toArray());
+    }
+}
@@ -1,17 +1,42 @@
 package com.benfica.encomendas_api.repository;
 
 import com.benfica.encomendas_api.model.Notificacao;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-import java.util.List;
+import java.time.LocalDateTime;
 import java.util.UUID;
 
+/**
+ * Lista por keyset sobre (data_envio, id), servida pelo índice
+ * idx_notificacoes_destinatario_data (destinatario_id, data_envio DESC, id).
+ */
 public interface NotificacaoRepository extends JpaRepository<Notificacao, UUID> {
 
-    List<Notificacao> findByDestinatarioIdOrderByDataEnvioDesc(Long destinatarioId);
+    @EntityGraph(attributePaths = {"remetente", "destinatario"})
+    @Query("""
+        SELECT n FROM Notificacao n
+        WHERE n.destinatario.id = :destinatarioId
+        ORDER BY n.dataEnvio DESC, n.id DESC
+    """)
+    Slice<Notificacao> findRecentes(@Param("destinatarioId") Long destinatarioId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"remetente", "destinatario"})
+    @Query("""
+        SELECT n FROM Notificacao n
+        WHERE n.destinatario.id = :destinatarioId
+        AND (n.dataEnvio < :dataEnvio OR (n.dataEnvio = :dataEnvio AND n.id < :id))
+        ORDER BY n.dataEnvio DESC, n.id DESC
+    """)
+    Slice<Notificacao> findAntes(@Param("destinatarioId") Long destinatarioId,
+                                 @Param("dataEnvio") LocalDateTime dataEnvio,
+                                 @Param("id") UUID id,
+                                 Pageable pageable);
 
     long countByDestinatarioIdAndLidaFalse(Long destinatarioId);
 
@@ -0,0 +1,10 @@
+package com.benfica.encomendas_api.repository;
+
+import java.util.UUID;
+
+// Projeção leve (id + chaves de ordenação) usada para reposicionar boards, cards e itens
+public interface PosicaoOrdem {
+    UUID getId();
+    String getRankOrdem();
+    Integer getOrdem();
+}
@@ -16,21 +16,32 @@ import java.io.IOException;
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String STREAM_SSE = "/api/notificacoes/stream";
+
     @Autowired
     private JwtTokenProvider tokenProvider;
 
     @Autowired
     private CustomUserDetailsService customUserDetailsService;
 
+    @Autowired
+    private StreamTicketService streamTicketService;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         try {
+            String username = null;
             String jwt = getJwtFromRequest(request);
-
             if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromJWT(jwt);
+                username = tokenProvider.getUsernameFromJWT(jwt);
+            } else if (STREAM_SSE.equals(request.getRequestURI())) {
+                // O EventSource não envia cabeçalhos: o stream SSE usa um ticket de uso único
+                String ticket = request.getParameter("ticket");
+                if (StringUtils.hasText(ticket)) username = streamTicketService.consumir(ticket);
+            }
 
+            if (username != null) {
                 UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
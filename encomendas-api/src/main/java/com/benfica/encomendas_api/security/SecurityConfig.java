@@ -4,6 +4,7 @@ import com.benfica.encomendas_api.security.CustomUserDetailsService;
 import com.benfica.encomendas_api.security.JwtAuthenticationEntryPoint;
 import com.benfica.encomendas_api.security.JwtAuthenticationFilter;
 import com.benfica.encomendas_api.security.TeamContextFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -80,6 +81,9 @@ public class SecurityConfig {
                 .exceptionHandling(exception -> exception.authenticationEntryPoint(unauthorizedHandler))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Redespacho assíncrono do SSE: o pedido original já foi autorizado e o
+                        // ticket do stream, de uso único, não volta a autenticar
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/actuator/health").permitAll()
                         .requestMatchers("/error").permitAll()
@@ -0,0 +1,69 @@
+package com.benfica.encomendas_api.security;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Tickets de uso único para abrir o stream SSE de notificações.
+ *
+ * O EventSource não envia cabeçalhos, e pôr o JWT na URL deixa-o em logs de proxy e no
+ * histórico. Por isso o cliente pede um ticket por POST autenticado e abre o stream com
+ * ?ticket=. O ticket expira em app.notificacoes.stream.ticket-ttl-ms e é apagado ao ser
+ * usado. Fica na base de dados (stream_tickets) porque, com vários nós, o POST e o GET
+ * podem cair em nós diferentes.
+ */
+@Component
+public class StreamTicketService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamTicketService.class);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.notificacoes.stream.ticket-ttl-ms:30000}")
+    private long ttlMs;
+
+    @PostConstruct
+    void preparar() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS stream_tickets (" +
+                "ticket VARCHAR(64) PRIMARY KEY, usuario_email VARCHAR(255) NOT NULL, expira_em TIMESTAMP NOT NULL)");
+    }
+
+    public String emitir(String email) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        jdbcTemplate.update("INSERT INTO stream_tickets (ticket, usuario_email, expira_em) " +
+                "VALUES (?, ?, now() + CAST(? AS bigint) * interval '1 millisecond')", ticket, email, ttlMs);
+        return ticket;
+    }
+
+    /** Apaga o ticket e devolve o e-mail do dono, ou null se não existir ou já tiver expirado. */
+    public String consumir(String ticket) {
+        List<String> emails = jdbcTemplate.queryForList(
+                "DELETE FROM stream_tickets WHERE ticket = ? RETURNING CASE WHEN expira_em > now() THEN usuario_email END",
+                String.class, ticket);
+        return emails.isEmpty() ? null : emails.get(0);
+    }
+
+    @Scheduled(fixedDelay = 300000)
+    public void limparExpirados() {
+        try {
+            jdbcTemplate.update("DELETE FROM stream_tickets WHERE expira_em < now()");
+        } catch (Exception e) {
+            logger.warn("Falha ao limpar stream_tickets: {}", e.getMessage());
+        }
+    }
+}
@@ -1,50 +1,138 @@
 package com.benfica.encomendas_api.security;
 
 import com.benfica.encomendas_api.model.Usuario;
+import com.benfica.encomendas_api.repository.EquipeRepository;
 import com.benfica.encomendas_api.repository.UsuarioRepository;
+import com.benfica.encomendas_api.service.ChatMembrosCache;
+import com.benfica.encomendas_api.service.PresencaService;
+import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
-import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
 import java.security.Principal;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Component
 public class WebSocketAuthChannelInterceptor implements ChannelInterceptor {
 
+    private static final Pattern TOPICO = Pattern.compile("^/topic/(chat|checklist|encomendas|presence)/([0-9a-fA-F-]{36})$");
+
     @Autowired
     private JwtTokenProvider tokenProvider;
 
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private EquipeRepository equipeRepository;
+
+    @Autowired
+    private ChatMembrosCache chatMembrosCache;
+
+    // Lazy: PresencaService publica pelo broker, que por sua vez depende deste interceptor
+    @Lazy
+    @Autowired
+    private PresencaService presencaService;
+
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
         StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) return message;
 
-        if (accessor != null && StompCommand.CONNECT.equals(accessor.getCommand())) {
-            String authHeader = accessor.getFirstNativeHeader("Authorization");
-            if (StringUtils.hasText(authHeader) && authHeader.startsWith("Bearer ")) {
-                String jwt = authHeader.substring(7);
-                if (tokenProvider.validateToken(jwt)) {
-                    String email = tokenProvider.getUsernameFromJWT(jwt);
-                    Usuario usuario = usuarioRepository.findByEmail(email).orElse(null);
-                    if (usuario != null) {
-                        // Principal must return userId as string for convertAndSendToUser
-                        final Long userId = usuario.getId();
-                        Principal principal = () -> userId.toString();
-                        accessor.setUser(principal);
-                    }
-                }
+        switch (accessor.getCommand()) {
+            case CONNECT, STOMP -> autenticar(accessor);
+            case SUBSCRIBE -> autorizarSubscricao(accessor);
+            case SEND -> autorizarEnvio(accessor);
+            case DISCONNECT -> presencaService.desconectar(accessor.getSessionId());
+            default -> { }
+        }
+        return message;
+    }
+
+    // Sem JWT válido não há sessão: o CONNECT é recusado com um frame ERROR
+    private void autenticar(StompHeaderAccessor accessor) {
+        String authHeader = accessor.getFirstNativeHeader("Authorization");
+        if (!StringUtils.hasText(authHeader) || !authHeader.startsWith("Bearer ")) {
+            throw new AccessDeniedException("CONNECT sem token");
+        }
+        String jwt = authHeader.substring(7);
+        if (!tokenProvider.validateToken(jwt)) {
+            throw new AccessDeniedException("CONNECT com token inválido");
+        }
+        Usuario usuario = usuarioRepository.findByEmail(tokenProvider.getUsernameFromJWT(jwt))
+                .orElseThrow(() -> new AccessDeniedException("CONNECT de usuário inexistente"));
+
+        // Principal must return userId as string for convertAndSendToUser
+        final Long userId = usuario.getId();
+        Principal principal = () -> userId.toString();
+        accessor.setUser(principal);
+        presencaService.registrar(accessor.getSessionId(), userId,
+                parseEquipeId(accessor.getFirstNativeHeader("equipeId")));
+    }
+
+    /**
+     * Só se subscreve o que o usuário pode ler:
+     * - /user/queue/... (o Spring resolve para as sessões do próprio usuário);
+     * - /topic/chat/{conversaId} se participa na conversa;
+     * - /topic/{checklist|encomendas|presence}/{equipeId} se é membro ou administrador da equipe.
+     * Qualquer outro destino (incluindo /queue/... direto) é recusado.
+     */
+    private void autorizarSubscricao(StompHeaderAccessor accessor) {
+        Long userId = usuarioDaSessao(accessor);
+        String destino = accessor.getDestination();
+        if (destino == null) throw new AccessDeniedException("SUBSCRIBE sem destino");
+
+        if (destino.startsWith("/user/queue/")) return;
+
+        Matcher m = TOPICO.matcher(destino);
+        if (m.matches()) {
+            UUID id = parseEquipeId(m.group(2));
+            if (id != null && (m.group(1).equals("chat") ? participaConversa(id, userId) : equipeRepository.isParticipante(id, userId))) {
+                return;
             }
         }
+        throw new AccessDeniedException("Subscrição não autorizada: " + destino);
+    }
 
-        return message;
+    // Os clientes só enviam para os @MessageMapping (/app/...); nunca diretamente para o broker
+    private void autorizarEnvio(StompHeaderAccessor accessor) {
+        usuarioDaSessao(accessor);
+        String destino = accessor.getDestination();
+        if (destino == null || !destino.startsWith("/app/")) {
+            throw new AccessDeniedException("Envio não autorizado: " + destino);
+        }
+    }
+
+    private Long usuarioDaSessao(StompHeaderAccessor accessor) {
+        Principal user = accessor.getUser();
+        if (user == null) throw new AccessDeniedException("Sessão STOMP sem autenticação");
+        return Long.parseLong(user.getName());
+    }
+
+    private boolean participaConversa(UUID conversaId, Long userId) {
+        try {
+            return chatMembrosCache.get(conversaId).participa(userId);
+        } catch (EntityNotFoundException e) {
+            return false;
+        }
+    }
+
+    private UUID parseEquipeId(String valor) {
+        if (!StringUtils.hasText(valor)) return null;
+        try {
+            return UUID.fromString(valor);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 }
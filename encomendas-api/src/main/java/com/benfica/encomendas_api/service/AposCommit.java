@@ -0,0 +1,27 @@
+package com.benfica.encomendas_api.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Adia uma ação em memória (cache, contador, broadcast) para depois do commit da
+ * transação atual, para não expor estado que ainda pode sofrer rollback.
+ * Fora de uma transação executa de imediato. As ações correm pela ordem de registo.
+ */
+final class AposCommit {
+
+    private AposCommit() {}
+
+    static void executar(Runnable acao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    acao.run();
+                }
+            });
+        } else {
+            acao.run();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.benfica.encomendas_api.service;
+
+import com.benfica.encomendas_api.model.ArquivoBlob;
+import com.benfica.encomendas_api.repository.ArquivoBlobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Armazenamento endereçado pelo conteúdo, partilhado pelos anexos do chat e da checklist.
+ *
+ * - O SHA-256 é calculado por um DigestInputStream enquanto o ficheiro é escrito num nome
+ *   temporário; no fim o ficheiro passa a blobs/{hash}.{ext} ou, se o hash já existir,
+ *   o temporário é apagado e devolve-se o blob existente.
+ * - Imagens novas seguem para o ImagemVariantesService (miniatura e versão de exibição).
+ * - O cliente pode perguntar antes por um hash (buscar) e não enviar o ficheiro se já existir.
+ * - arquivos_blob.referencias conta os anexos que apontam para o blob. É incrementado
+ *   ao criar anexos e recalculado periodicamente a partir das tabelas de anexos (o que
+ *   cobre as remoções em cascata); o recálculo ignora blobs usados na última hora.
+ *   Blobs sem referências e sem uso há mais de app.storage.blobs.retencao-horas são
+ *   removidos, depois de confirmar nas tabelas de anexos que nada aponta para eles.
+ */
+@Service
+public class ArquivoBlobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArquivoBlobService.class);
+
+    private static final String SUBDIR = "blobs";
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private ArquivoBlobRepository blobRepository;
+
+    @Autowired
+    private ImagemVariantesService imagemVariantesService;
+
+    @Value("${app.storage.blobs.retencao-horas:24}")
+    private long retencaoHoras;
+
+    @Transactional
+    public ArquivoBlob armazenar(MultipartFile file, String extensao) throws IOException {
+        String temporario = "tmp-" + UUID.randomUUID();
+        MessageDigest digest = novoDigest();
+
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            storageService.store(SUBDIR, temporario, in, file.getSize(), file.getContentType());
+        }
+        String hash = HexFormat.of().formatHex(digest.digest());
+
+        Optional<ArquivoBlob> existente = blobRepository.findById(hash);
+        if (existente.isPresent()) {
+            storageService.delete(SUBDIR, temporario);
+            blobRepository.registrarUso(hash, LocalDateTime.now());
+            logger.info("Upload deduplicado: {}", hash);
+            return existente.get();
+        }
+
+        // Mover primeiro e só depois registar: um blob registado tem sempre o ficheiro no destino.
+        // Numa corrida com o mesmo conteúdo os dois movem para o mesmo nome (conteúdo idêntico).
+        String url = storageService.move(SUBDIR, temporario, extensao.isEmpty() ? hash : hash + "." + extensao);
+        boolean novo = blobRepository.inserirSeAusente(hash, url, file.getContentType(), file.getSize()) == 1;
+        ArquivoBlob blob = blobRepository.findById(hash).orElseThrow();
+        if (novo) imagemVariantesService.agendar(blob);
+        return blob;
+    }
+
+    /**
+     * Blob pelo hash, só se já estiver anexado a algo que o usuário pode ver; caso
+     * contrário a consulta revelaria que outra equipe tem aquele conteúdo.
+     */
+    @Transactional
+    public Optional<ArquivoBlob> buscar(String hash, Long usuarioId) {
+        String chave = hash.toLowerCase();
+        if (!blobRepository.isVisivelPara(chave, usuarioId)) return Optional.empty();
+
+        Optional<ArquivoBlob> blob = blobRepository.findById(chave);
+        blob.ifPresent(b -> blobRepository.registrarUso(b.getHash(), LocalDateTime.now()));
+        return blob;
+    }
+
+    /**
+     * Resolve os blobs pelas URLs recebidas do cliente (URLs que não são blobs, como
+     * anexos antigos ou links, ficam de fora). Chamado ao anexar: regista o uso antes de
+     * ler, para que a limpeza de órfãos não apague um blob que está a ser anexado.
+     */
+    @Transactional
+    public Map<String, ArquivoBlob> resolverPorUrl(Collection<String> urls) {
+        List<String> distintas = urls.stream().filter(Objects::nonNull).distinct().toList();
+        if (distintas.isEmpty()) return Map.of();
+        blobRepository.registrarUsoPorUrl(distintas, LocalDateTime.now());
+        return blobRepository.findAllByUrlIn(distintas).stream()
+                .collect(Collectors.toMap(ArquivoBlob::getUrl, Function.identity(), (a, b) -> a));
+    }
+
+    /** Novos anexos a apontar para os blobs (hash -> quantidade). */
+    @Transactional
+    public void adicionarReferencias(Map<String, Long> porHash) {
+        porHash.forEach((hash, n) -> blobRepository.ajustarReferencias(hash, n.intValue()));
+    }
+
+    @Transactional
+    public void removerReferencia(String hash) {
+        if (hash != null) blobRepository.ajustarReferencias(hash, -1);
+    }
+
+    @Scheduled(cron = "${app.storage.blobs.limpeza-cron:0 15 4 * * *}")
+    @Transactional
+    public void limparOrfaos() {
+        int corrigidos = blobRepository.reconciliarReferencias(LocalDateTime.now().minusHours(1));
+        if (corrigidos > 0) logger.info("Referências de {} blobs recalculadas.", corrigidos);
+
+        LocalDateTime limite = LocalDateTime.now().minusHours(retencaoHoras);
+        for (ArquivoBlob blob : blobRepository.findOrfaos(limite)) {
+            if (blobRepository.removerSeOrfao(blob.getHash(), limite) == 0) continue;
+            try {
+                for (String url : new LinkedHashSet<>(Arrays.asList(blob.getUrl(), blob.getMiniaturaUrl(), blob.getExibicaoUrl()))) {
+                    if (url != null) storageService.delete(SUBDIR, url.substring(url.lastIndexOf('/') + 1));
+                }
+            } catch (IOException e) {
+                logger.warn("Falha ao remover ficheiro do blob {}: {}", blob.getHash(), e.getMessage());
+            }
+        }
+    }
+
+    private static MessageDigest novoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.benfica.encomendas_api.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prepara a busca de texto completo do chat: coluna gerada conteudo_tsv
+ * (to_tsvector 'portuguese', com stemming) e o índice GIN sobre ela.
+ *
+ * Sendo uma coluna GENERATED ... STORED, o Postgres mantém-na em cada INSERT/UPDATE;
+ * a entidade MensagemChat não a mapeia. Na primeira execução o ALTER preenche as
+ * mensagens existentes.
+ */
+@Component
+public class ChatBuscaIndice {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatBuscaIndice.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preparar() {
+        try {
+            jdbcTemplate.execute("""
+                ALTER TABLE mensagens_chat ADD COLUMN IF NOT EXISTS conteudo_tsv tsvector
+                GENERATED ALWAYS AS (to_tsvector('portuguese', coalesce(conteudo, ''))) STORED
+            """);
+            jdbcTemplate.execute(
+                    "CREATE INDEX IF NOT EXISTS idx_mensagens_conteudo_tsv ON mensagens_chat USING GIN (conteudo_tsv)");
+        } catch (Exception e) {
+            logger.error("Falha ao preparar a busca no chat: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.benfica.encomendas_api.service;
+
+import com.benfica.encomendas_api.repository.ConversaRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores de mensagens não lidas por (usuário, equipe), mantidos em memória.
+ *
+ * - Envio: +1 para cada destinatário; leitura: -N para quem leu. Tudo após o commit.
+ * - Em cluster os ajustes seguem pelo {@link RealtimeClusterRelay} e cada nó aplica-os aos
+ *   contadores que tem em memória.
+ * - Em falta na memória, o valor é calculado pela query exata (soma ultimaSeq - ultimaSeqLida).
+ * - Periodicamente são reconciliados com a query exata; contadores parados saem da memória.
+ *
+ * Não há cópia persistida: a query exata é a fonte de verdade após um restart ou despejo.
+ */
+@Service
+public class ChatContadorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatContadorService.class);
+
+    @Autowired
+    private ConversaRepository conversaRepository;
+
+    // Lazy, como no ChatMembrosCache: o relay depende do broker STOMP
+    @Lazy
+    @Autowired
+    private RealtimeClusterRelay clusterRelay;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.chat.contadores.inativo-ms:1800000}")
+    private long inativoMs;
+
+    private static final String TIPO_AJUSTE = "chat-contador";
+
+    private record Chave(Long usuarioId, UUID equipeId) {}
+
+    /** Ajuste enviado aos outros nós. */
+    public record Ajuste(UUID equipeId, List<Long> usuarioIds, long delta) {}
+
+    private static class Contador {
+        final AtomicLong valor;
+        volatile long ultimoAcesso = System.currentTimeMillis();
+
+        Contador(long inicial) {
+            valor = new AtomicLong(inicial);
+        }
+    }
+
+    private final Map<Chave, Contador> contadores = new ConcurrentHashMap<>();
+
+    public long getTotal(UUID equipeId, Long usuarioId) {
+        Chave chave = new Chave(usuarioId, equipeId);
+        Contador c = contadores.computeIfAbsent(chave,
+                k -> new Contador(conversaRepository.sumNaoLidas(equipeId, usuarioId)));
+        c.ultimoAcesso = System.currentTimeMillis();
+        return c.valor.get();
+    }
+
+    public void incrementar(UUID equipeId, Collection<Long> usuarioIds) {
+        if (usuarioIds.isEmpty()) return;
+        aplicarEReplicar(new Ajuste(equipeId, List.copyOf(usuarioIds), 1));
+    }
+
+    public void decrementar(UUID equipeId, Long usuarioId, long quantidade) {
+        if (quantidade <= 0) return;
+        aplicarEReplicar(new Ajuste(equipeId, List.of(usuarioId), -quantidade));
+    }
+
+    private void aplicarEReplicar(Ajuste ajuste) {
+        AposCommit.executar(() -> {
+            aplicar(ajuste);
+            clusterRelay.replicarAlteracao(TIPO_AJUSTE, ajuste);
+        });
+    }
+
+    @EventListener
+    public void aoAlterarRemoto(RealtimeClusterRelay.AlteracaoRemota evento) throws JsonProcessingException {
+        if (TIPO_AJUSTE.equals(evento.tipo())) aplicar(objectMapper.treeToValue(evento.dados(), Ajuste.class));
+    }
+
+    private void aplicar(Ajuste ajuste) {
+        ajuste.usuarioIds().forEach(id -> ajustar(new Chave(id, ajuste.equipeId()), ajuste.delta()));
+    }
+
+    // Só ajusta contadores já em memória; os restantes serão lidos da query exata quando pedidos
+    private void ajustar(Chave chave, long delta) {
+        Contador c = contadores.get(chave);
+        if (c == null) return;
+        c.valor.updateAndGet(v -> Math.max(0, v + delta));
+    }
+
+    // --- RECONCILIAÇÃO ---
+
+    @Scheduled(fixedDelayString = "${app.chat.contadores.reconciliar-ms:300000}")
+    public void reconciliar() {
+        long limite = System.currentTimeMillis() - inativoMs;
+        for (Map.Entry<Chave, Contador> entrada : contadores.entrySet()) {
+            Chave chave = entrada.getKey();
+            Contador c = entrada.getValue();
+
+            if (c.ultimoAcesso < limite) {
+                contadores.remove(chave, c);
+                continue;
+            }
+
+            long antes = c.valor.get();
+            long exato = conversaRepository.sumNaoLidas(chave.equipeId(), chave.usuarioId());
+            // Se mudou durante a query, fica para a próxima volta
+            if (antes != exato && c.valor.compareAndSet(antes, exato)) {
+                logger.debug("Contador de não lidas corrigido [{}]: {} -> {}", chave, antes, exato);
+            }
+        }
+    }
+}
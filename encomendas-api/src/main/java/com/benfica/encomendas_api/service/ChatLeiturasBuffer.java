@@ -0,0 +1,106 @@
+package com.benfica.encomendas_api.service;
+
+import com.benfica.encomendas_api.repository.LeituraMensagemJdbcRepository;
+import com.benfica.encomendas_api.repository.LeituraMensagemJdbcRepository.Leitura;
+import com.benfica.encomendas_api.repository.LeituraMensagemJdbcRepository.LeituraAplicada;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Confirmações de leitura do chat em write-behind.
+ *
+ * O cliente envia /chat.lida sempre que foca ou rola uma conversa. Cada pedido só guarda
+ * em memória o último instante visto por (usuário, conversa); a cada app.chat.leituras.flush-ms
+ * os pendentes são gravados num único upsert (LeituraMensagemJdbcRepository), os contadores
+ * de não lidas são ajustados e sai um badge por (usuário, equipe), em vez de um por evento.
+ *
+ * O cursor avança até à ultima_seq da conversa no momento da gravação: mensagens que
+ * chegam durante a janela contam como lidas, já que a conversa está aberta. Se a gravação
+ * falhar, os pendentes voltam ao buffer para a próxima volta.
+ */
+@Component
+public class ChatLeiturasBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatLeiturasBuffer.class);
+
+    @Autowired
+    private LeituraMensagemJdbcRepository leituraJdbcRepository;
+
+    @Autowired
+    private ChatContadorService contadorService;
+
+    @Autowired
+    private RealtimeGateway realtimeGateway;
+
+    @Value("${app.chat.leituras.lote-max:500}")
+    private int loteMax;
+
+    private record Chave(Long usuarioId, UUID conversaId) {}
+
+    private record Pendente(UUID equipeId, LocalDateTime vistoEm) {}
+
+    private record UsuarioEquipe(Long usuarioId, UUID equipeId) {}
+
+    private final Map<Chave, Pendente> pendentes = new ConcurrentHashMap<>();
+
+    public void registrar(UUID conversaId, UUID equipeId, Long usuarioId) {
+        pendentes.merge(new Chave(usuarioId, conversaId), new Pendente(equipeId, LocalDateTime.now()), ChatLeiturasBuffer::maisRecente);
+    }
+
+    @Scheduled(fixedDelayString = "${app.chat.leituras.flush-ms:1000}")
+    public void gravarPendentes() {
+        if (pendentes.isEmpty()) return;
+
+        Map<Chave, Pendente> lote = new HashMap<>();
+        for (Iterator<Chave> it = pendentes.keySet().iterator(); it.hasNext() && lote.size() < loteMax; ) {
+            Chave chave = it.next();
+            Pendente p = pendentes.remove(chave);
+            if (p != null) lote.put(chave, p);
+        }
+        if (lote.isEmpty()) return;
+
+        List<LeituraAplicada> aplicadas;
+        try {
+            aplicadas = leituraJdbcRepository.avancarCursores(lote.entrySet().stream()
+                    .map(e -> new Leitura(e.getKey().conversaId(), e.getKey().usuarioId(), e.getValue().vistoEm()))
+                    .toList());
+        } catch (Exception e) {
+            logger.warn("Falha ao gravar {} leituras do chat: {}", lote.size(), e.getMessage());
+            lote.forEach((chave, p) -> pendentes.merge(chave, p, ChatLeiturasBuffer::maisRecente));
+            return;
+        }
+
+        // Fora de transação, decrementar aplica de imediato
+        Map<UsuarioEquipe, Long> lidasPorUsuario = new HashMap<>();
+        for (LeituraAplicada a : aplicadas) {
+            Pendente p = lote.get(new Chave(a.usuarioId(), a.conversaId()));
+            lidasPorUsuario.merge(new UsuarioEquipe(a.usuarioId(), p.equipeId()), a.lidas(), Long::sum);
+        }
+        lidasPorUsuario.forEach((ue, lidas) -> {
+            contadorService.decrementar(ue.equipeId(), ue.usuarioId(), lidas);
+            realtimeGateway.publicarBadge(ue.usuarioId(), contadorService.getTotal(ue.equipeId(), ue.usuarioId()));
+        });
+    }
+
+    @PreDestroy
+    void gravarAoParar() {
+        while (!pendentes.isEmpty()) {
+            int antes = pendentes.size();
+            gravarPendentes();
+            if (pendentes.size() >= antes) break;
+        }
+    }
+
+    private static Pendente maisRecente(Pendente a, Pendente b) {
+        return a.vistoEm().isAfter(b.vistoEm()) ? a : b;
+    }
+}
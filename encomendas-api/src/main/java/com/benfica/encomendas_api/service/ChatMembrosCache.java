@@ -0,0 +1,136 @@
+package com.benfica.encomendas_api.service;
+
+import com.benfica.encomendas_api.model.Conversa;
+import com.benfica.encomendas_api.model.TipoConversa;
+import com.benfica.encomendas_api.repository.ConversaRepository;
+import com.benfica.encomendas_api.repository.EquipeRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Participantes de cada conversa em memória: equipe, tipo e participantes (id -> nome).
+ * No grupo são os membros da equipe; no privado, os dois participantes.
+ *
+ * Carregado no primeiro uso e invalidado (após o commit) pelo EquipeService quando os
+ * membros da equipe mudam e pelo UsuarioService quando um nome muda. Com isto o envio
+ * autoriza o remetente e escolhe os destinatários sem ir à base de dados.
+ *
+ * - As invalidações seguem pelo {@link RealtimeClusterRelay} para os outros nós.
+ * - Cada entrada vale no máximo app.chat.membros.ttl-ms, o que limita o efeito de uma
+ *   invalidação perdida (relay desligado, nó sem rede) ou de uma alteração feita fora
+ *   destes serviços.
+ * - Acima de app.chat.membros.cache-max entradas o cache é esvaziado e volta a encher
+ *   com as conversas em uso.
+ */
+@Component
+public class ChatMembrosCache {
+
+    @Autowired
+    private ConversaRepository conversaRepository;
+
+    @Autowired
+    private EquipeRepository equipeRepository;
+
+    // Lazy: o relay depende do broker, que depende do interceptor que usa este cache
+    @Lazy
+    @Autowired
+    private RealtimeClusterRelay clusterRelay;
+
+    @Value("${app.chat.membros.cache-max:10000}")
+    private int cacheMax;
+
+    @Value("${app.chat.membros.ttl-ms:300000}")
+    private long ttlMs;
+
+    public record MembrosConversa(UUID conversaId, UUID equipeId, boolean grupo, Map<Long, String> participantes) {
+
+        public boolean participa(Long usuarioId) {
+            return participantes.containsKey(usuarioId);
+        }
+
+        public String nome(Long usuarioId) {
+            return participantes.get(usuarioId);
+        }
+
+        public List<Long> destinatarios(Long remetenteId) {
+            return participantes.keySet().stream()
+                    .filter(id -> !id.equals(remetenteId))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private record Entrada(MembrosConversa membros, long carregadaEm) {}
+
+    private final Map<UUID, Entrada> conversas = new ConcurrentHashMap<>();
+
+    public MembrosConversa get(UUID conversaId) {
+        long agora = System.currentTimeMillis();
+        Entrada entrada = conversas.get(conversaId);
+        if (entrada != null && agora - entrada.carregadaEm() <= ttlMs) return entrada.membros();
+
+        if (conversas.size() >= cacheMax) conversas.clear();
+        return conversas.compute(conversaId, (id, atual) ->
+                atual != null && agora - atual.carregadaEm() <= ttlMs ? atual : new Entrada(carregar(id), agora)).membros();
+    }
+
+    /** Membros da equipe mudaram: as conversas dela voltam a ser carregadas no próximo uso. */
+    public void invalidarEquipe(UUID equipeId) {
+        AposCommit.executar(() -> {
+            removerEquipe(equipeId);
+            clusterRelay.replicarInvalidacaoMembros(equipeId, null);
+        });
+    }
+
+    /** O nome do usuário mudou: saem as conversas em que participa. */
+    public void invalidarUsuario(Long usuarioId) {
+        AposCommit.executar(() -> {
+            removerUsuario(usuarioId);
+            clusterRelay.replicarInvalidacaoMembros(null, usuarioId);
+        });
+    }
+
+    /** Invalidação feita noutro nó. */
+    @EventListener
+    public void aoInvalidarRemoto(RealtimeClusterRelay.MembrosInvalidados evento) {
+        if (evento.equipeId() != null) removerEquipe(evento.equipeId());
+        if (evento.usuarioId() != null) removerUsuario(evento.usuarioId());
+    }
+
+    private void removerEquipe(UUID equipeId) {
+        conversas.values().removeIf(e -> e.membros().equipeId().equals(equipeId));
+    }
+
+    private void removerUsuario(Long usuarioId) {
+        conversas.values().removeIf(e -> e.membros().participa(usuarioId));
+    }
+
+    private MembrosConversa carregar(UUID conversaId) {
+        Conversa c = conversaRepository.findComParticipantes(conversaId)
+                .orElseThrow(() -> new EntityNotFoundException("Conversa não encontrada: " + conversaId));
+        UUID equipeId = c.getEquipe().getId();
+
+        Map<Long, String> participantes = new LinkedHashMap<>();
+        if (c.getTipo() == TipoConversa.GRUPO) {
+            for (Object[] m : equipeRepository.findMembrosResumo(equipeId)) {
+                participantes.put((Long) m[0], (String) m[1]);
+            }
+        } else {
+            participantes.put(c.getParticipanteA().getId(), c.getParticipanteA().getNomeCompleto());
+            participantes.put(c.getParticipanteB().getId(), c.getParticipanteB().getNomeCompleto());
+        }
+        return new MembrosConversa(conversaId, equipeId, c.getTipo() == TipoConversa.GRUPO,
+                Collections.unmodifiableMap(participantes));
+    }
+}
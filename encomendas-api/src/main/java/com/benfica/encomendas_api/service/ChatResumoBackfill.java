@@ -0,0 +1,72 @@
+package com.benfica.encomendas_api.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Preenche, para conversas criadas antes do resumo desnormalizado, a sequência das
+ * mensagens, o resumo da conversa (ultima_seq, preview, data) e o cursor de leitura
+ * (ultima_seq_lida, derivado de ultimo_visto_em). Só toca em linhas ainda a NULL.
+ */
+@Component
+public class ChatResumoBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatResumoBackfill.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preencher() {
+        try {
+            Boolean pendente = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM conversas WHERE ultima_seq IS NULL)", Boolean.class);
+            if (!Boolean.TRUE.equals(pendente)) return;
+
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                int mensagens = jdbcTemplate.update("""
+                    UPDATE mensagens_chat m SET seq = s.rn
+                    FROM (
+                        SELECT id, ROW_NUMBER() OVER (PARTITION BY conversa_id ORDER BY enviado_em, id) AS rn
+                        FROM mensagens_chat
+                        WHERE conversa_id IN (SELECT id FROM conversas WHERE ultima_seq IS NULL)
+                    ) s
+                    WHERE m.id = s.id
+                """);
+                jdbcTemplate.update("""
+                    UPDATE conversas c SET
+                        ultima_seq = COALESCE(u.seq, 0),
+                        ultima_mensagem_em = u.enviado_em,
+                        ultima_mensagem_preview = LEFT(u.conteudo, 200)
+                    FROM conversas c2
+                    LEFT JOIN LATERAL (
+                        SELECT m.seq, m.enviado_em, m.conteudo FROM mensagens_chat m
+                        WHERE m.conversa_id = c2.id AND m.deletada = FALSE
+                        ORDER BY m.seq DESC LIMIT 1
+                    ) u ON TRUE
+                    WHERE c.id = c2.id AND c.ultima_seq IS NULL
+                """);
+                jdbcTemplate.update("""
+                    UPDATE leituras_mensagem l SET ultima_seq_lida = COALESCE((
+                        SELECT MAX(m.seq) FROM mensagens_chat m
+                        WHERE m.conversa_id = l.conversa_id AND m.enviado_em <= l.ultimo_visto_em
+                    ), 0)
+                    WHERE l.ultima_seq_lida IS NULL
+                """);
+                logger.info("Resumo das conversas preenchido ({} mensagens numeradas).", mensagens);
+            });
+        } catch (Exception e) {
+            logger.error("Falha ao preencher resumo das conversas: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.benfica.encomendas_api.service;
+
+import com.benfica.encomendas_api.repository.MensagemArquivoJdbcRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntSupplier;
+
+/**
+ * Retenção do chat.
+ *
+ * - Mensagens mais antigas que a retenção da equipe (equipes.retencao_chat_meses, ou
+ *   app.chat.retencao.meses quando não definida; 0 desativa) passam para
+ *   mensagens_chat_arquivo, com os anexos embutidos em JSONB.
+ * - Mensagens deletadas há mais de app.chat.retencao.deletadas-dias (contados de
+ *   deletada_em, preenchida por trigger) são removidas de vez.
+ * - Tudo em lotes de app.chat.retencao.lote, cada um na sua transação e com uma pausa
+ *   entre eles, para não segurar bloqueios nem competir com o tráfego do chat. As pausas
+ *   só ocupam uma thread do agendador (spring.task.scheduling.pool.size), não as outras
+ *   tarefas.
+ *
+ * O arquivo usa toast_tuple_target baixo para o Postgres comprimir também conteúdos curtos.
+ * O histórico (ChatService.getMensagens) só lê o arquivo quando o usuário rola para lá do
+ * início da tabela principal. A busca de texto completo cobre apenas a tabela principal.
+ */
+@Component
+public class ChatRetencaoScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatRetencaoScheduler.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MensagemArquivoJdbcRepository arquivoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.chat.retencao.enabled:true}")
+    private boolean ativo;
+
+    @Value("${app.chat.retencao.meses:12}")
+    private int mesesPadrao;
+
+    @Value("${app.chat.retencao.deletadas-dias:30}")
+    private int deletadasDias;
+
+    @Value("${app.chat.retencao.lote:500}")
+    private int tamanhoLote;
+
+    @Value("${app.chat.retencao.pausa-ms:200}")
+    private long pausaMs;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preparar() {
+        try {
+            jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS mensagens_chat_arquivo (
+                    id UUID PRIMARY KEY,
+                    conversa_id UUID NOT NULL REFERENCES conversas(id) ON DELETE CASCADE,
+                    remetente_id BIGINT NOT NULL REFERENCES usuarios(id),
+                    seq BIGINT,
+                    conteudo TEXT,
+                    enviado_em TIMESTAMP(6) NOT NULL,
+                    anexos JSONB,
+                    arquivada_em TIMESTAMP(6) NOT NULL
+                ) WITH (toast_tuple_target = 128)
+            """);
+            // O índice antigo (id ASC) não servia o ORDER BY enviado_em DESC, id DESC do histórico
+            jdbcTemplate.execute("DROP INDEX IF EXISTS idx_mensagens_arquivo_conversa_enviado");
+            jdbcTemplate.execute("""
+                CREATE INDEX IF NOT EXISTS idx_mensagens_arquivo_conversa_enviado_id
+                ON mensagens_chat_arquivo (conversa_id, enviado_em DESC, id DESC)
+            """);
+        } catch (Exception e) {
+            logger.error("Falha ao preparar o arquivo do chat: {}", e.getMessage());
+        }
+
+        try {
+            // deletada_em é preenchida pelo banco sempre que deletada muda, venha a escrita de onde vier
+            jdbcTemplate.execute("""
+                CREATE OR REPLACE FUNCTION mensagens_chat_marcar_deletada() RETURNS trigger AS $$
+                BEGIN
+                    IF NEW.deletada IS DISTINCT FROM OLD.deletada THEN
+                        NEW.deletada_em := CASE WHEN NEW.deletada THEN now() END;
+                    END IF;
+                    RETURN NEW;
+                END
+                $$ LANGUAGE plpgsql
+            """);
+            jdbcTemplate.execute("DROP TRIGGER IF EXISTS trg_mensagens_chat_deletada ON mensagens_chat");
+            jdbcTemplate.execute("""
+                CREATE TRIGGER trg_mensagens_chat_deletada
+                BEFORE UPDATE OF deletada ON mensagens_chat
+                FOR EACH ROW EXECUTE FUNCTION mensagens_chat_marcar_deletada()
+            """);
+            // Deletadas antes da coluna existir: o prazo conta a partir de agora
+            jdbcTemplate.update("UPDATE mensagens_chat SET deletada_em = now() WHERE deletada = TRUE AND deletada_em IS NULL");
+        } catch (Exception e) {
+            logger.error("Falha ao preparar deletada_em das mensagens do chat: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${app.chat.retencao.cron:0 0 4 * * *}")
+    public void executar() {
+        if (!ativo) return;
+
+        LocalDateTime agora = LocalDateTime.now();
+        List<Object[]> equipes = jdbcTemplate.query("SELECT id, retencao_chat_meses FROM equipes",
+                (rs, i) -> new Object[]{rs.getObject("id", UUID.class), rs.getObject("retencao_chat_meses", Integer.class)});
+
+        for (Object[] e : equipes) {
+            UUID equipeId = (UUID) e[0];
+            int meses = e[1] != null ? (Integer) e[1] : mesesPadrao;
+            if (meses <= 0) continue;
+
+            LocalDateTime limite = agora.minusMonths(meses);
+            int total = emLotes(() -> arquivoRepository.arquivarLote(equipeId, limite, tamanhoLote));
+            if (total > 0) logger.info("Equipe {}: {} mensagens do chat arquivadas.", equipeId, total);
+        }
+
+        LocalDateTime limiteDeletadas = agora.minusDays(deletadasDias);
+        int removidas = emLotes(() -> arquivoRepository.removerDeletadas(limiteDeletadas, tamanhoLote));
+        if (removidas > 0) logger.info("{} mensagens deletadas removidas do chat.", removidas);
+    }
+
+    // Repete o lote (uma transação por lote) até vir incompleto
+    private int emLotes(IntSupplier lote) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int total = 0;
+        try {
+            while (true) {
+                Integer n = tx.execute(status -> lote.getAsInt());
+                total += n;
+                if (n < tamanhoLote) break;
+                Thread.sleep(pausaMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("Retenção do chat interrompida após {} mensagens: {}", total, e.getMessage());
+        }
+        return total;
+    }
+}
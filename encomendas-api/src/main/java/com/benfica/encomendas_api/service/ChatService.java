@@ -3,18 +3,22 @@ package com.benfica.encomendas_api.service;
 import com.benfica.encomendas_api.dto.*;
 import com.benfica.encomendas_api.model.*;
 import com.benfica.encomendas_api.repository.*;
+import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -36,14 +40,34 @@ public class ChatService {
     private EquipeRepository equipeRepository;
 
     @Autowired
-    private SupabaseBroadcastService supabaseBroadcastService;
+    private RealtimeGateway realtimeGateway;
+
+    @Autowired
+    private ChatContadorService contadorService;
+
+    @Autowired
+    private MensagemBuscaJdbcRepository mensagemBuscaRepository;
+
+    @Autowired
+    private ArquivoBlobService arquivoBlobService;
+
+    @Autowired
+    private ChatMembrosCache membrosCache;
+
+    @Autowired
+    private ConversaJdbcRepository conversaJdbcRepository;
+
+    @Autowired
+    private ChatLeiturasBuffer leiturasBuffer;
+
+    @Autowired
+    private MensagemArquivoJdbcRepository mensagemArquivoRepository;
 
     @Transactional(readOnly = true)
     public List<ConversaDTO> getConversasDoUsuario(String equipeId, Long userId) {
         UUID equipeUuid = UUID.fromString(equipeId);
-        List<Conversa> conversas = conversaRepository.findAllForUser(equipeUuid, userId);
-        return conversas.stream()
-                .map(c -> toConversaDTO(c, userId))
+        return conversaRepository.findResumosForUser(equipeUuid, userId).stream()
+                .map(r -> toConversaDTO((Conversa) r[0], (Long) r[1], userId))
                 .collect(Collectors.toList());
     }
 
@@ -84,97 +108,257 @@ public class ChatService {
                 });
     }
 
+    // Histórico por cursor: sem cursor = mais recentes; 'antes' = rolar para trás; 'depois' = novas
+    @Transactional(readOnly = true)
+    public MensagemPaginaDTO getMensagens(UUID conversaId, String antes, String depois, int limite) {
+        int tamanho = limiteValido(limite);
+        Pageable pagina = PageRequest.of(0, tamanho);
+        Slice<MensagemChat> slice;
+        boolean ascendente = false;
+
+        if (depois != null) {
+            CursorMensagem c = CursorMensagem.decodificar(depois);
+            slice = mensagemChatRepository.findDepois(conversaId, c.enviadoEm(), c.id(), pagina);
+            ascendente = true;
+        } else if (antes != null) {
+            CursorMensagem c = CursorMensagem.decodificar(antes);
+            slice = mensagemChatRepository.findAntes(conversaId, c.enviadoEm(), c.id(), pagina);
+        } else {
+            slice = mensagemChatRepository.findRecentes(conversaId, pagina);
+        }
+
+        MensagemPaginaDTO resultado = toPagina(slice, ascendente);
+        // Chegou ao início da tabela principal a rolar para trás: o resto vem do arquivo
+        if (!ascendente && !slice.hasNext()) {
+            return completarComArquivo(conversaId, resultado, antes, tamanho);
+        }
+        return resultado;
+    }
+
+    /**
+     * Recuperação após reconexão, conversa a conversa: as mensagens com seq acima da última
+     * que o cliente viu em cada uma. temMais indica que alguma ficou por completar; o cliente
+     * repete o pedido com as posições já avançadas.
+     */
     @Transactional(readOnly = true)
-    public List<MensagemChatDTO> getMensagens(UUID conversaId, int page) {
-        Page<MensagemChat> pagina = mensagemChatRepository
-                .findByConversaIdAndDeletadaFalseOrderByEnviadoEmDesc(
-                        conversaId, PageRequest.of(page, 30));
-        List<MensagemChatDTO> lista = pagina.getContent().stream()
+    public MensagemPaginaDTO getMensagensDesde(String equipeId, Long userId, Map<UUID, Long> posicoes, int limite) {
+        UUID equipeUuid = equipeDoParticipante(equipeId, userId);
+        int restantes = limiteValido(limite, 500);
+        List<MensagemChatDTO> mensagens = new ArrayList<>();
+        boolean temMais = false;
+
+        for (Map.Entry<UUID, Long> posicao : posicoes.entrySet()) {
+            ChatMembrosCache.MembrosConversa membros = membrosCache.get(posicao.getKey());
+            if (!membros.equipeId().equals(equipeUuid) || !membros.participa(userId)) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Usuário não participa desta conversa.");
+            }
+            if (restantes == 0) {
+                temMais = true;
+                continue;
+            }
+            Slice<MensagemChat> slice = mensagemChatRepository.findDepoisDaSeq(posicao.getKey(),
+                    posicao.getValue() != null ? posicao.getValue() : 0L, PageRequest.of(0, restantes));
+            slice.forEach(m -> mensagens.add(toMensagemDTO(m)));
+            restantes -= slice.getNumberOfElements();
+            temMais |= slice.hasNext();
+        }
+        return MensagemPaginaDTO.builder()
+                .mensagens(mensagens)
+                .temMais(temMais)
+                .build();
+    }
+
+    /** Busca por relevância nas conversas do usuário (grupo + privados), paginada por cursor. */
+    @Transactional(readOnly = true)
+    public MensagemBuscaPaginaDTO buscarMensagens(String equipeId, Long userId, String termos, String cursor, int limite) {
+        if (termos == null || termos.isBlank()) {
+            throw new IllegalArgumentException("Informe o texto a buscar");
+        }
+        int tamanho = limiteValido(limite, 50);
+        CursorBusca apos = cursor != null ? CursorBusca.decodificar(cursor) : null;
+
+        List<MensagemBuscaDTO> linhas = mensagemBuscaRepository.buscar(
+                equipeDoParticipante(equipeId, userId), userId, termos.trim(), apos, tamanho);
+        boolean temMais = linhas.size() > tamanho;
+        List<MensagemBuscaDTO> resultados = temMais ? linhas.subList(0, tamanho) : linhas;
+
+        String proximo = null;
+        if (temMais) {
+            MensagemBuscaDTO ultimo = resultados.get(resultados.size() - 1);
+            proximo = new CursorBusca(ultimo.getRank(), ultimo.getEnviadoEm(), ultimo.getId()).codificar();
+        }
+        return MensagemBuscaPaginaDTO.builder()
+                .resultados(new ArrayList<>(resultados))
+                .temMais(temMais)
+                .proximoCursor(proximo)
+                .build();
+    }
+
+    // O grupo da equipe só é visível a quem participa nela
+    private UUID equipeDoParticipante(String equipeId, Long userId) {
+        UUID id = UUID.fromString(equipeId);
+        if (!equipeRepository.isParticipante(id, userId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Usuário não participa desta equipe.");
+        }
+        return id;
+    }
+
+    private static int limiteValido(int limite) {
+        return limiteValido(limite, 100);
+    }
+
+    private static int limiteValido(int limite, int maximo) {
+        return Math.max(1, Math.min(limite, maximo));
+    }
+
+    private MensagemPaginaDTO completarComArquivo(UUID conversaId, MensagemPaginaDTO pagina, String antes, int tamanho) {
+        List<MensagemChatDTO> recentes = pagina.getMensagens();
+        String cursor = recentes.isEmpty() ? antes : recentes.get(0).getCursor();
+        int faltam = tamanho - recentes.size();
+
+        List<MensagemChatDTO> arquivadas = mensagemArquivoRepository.findAntes(
+                conversaId, cursor != null ? CursorMensagem.decodificar(cursor) : null, faltam + 1);
+        boolean temMais = arquivadas.size() > faltam;
+
+        List<MensagemChatDTO> lista = new ArrayList<>(arquivadas.subList(0, Math.min(faltam, arquivadas.size())));
+        Collections.reverse(lista);
+        lista.addAll(recentes);
+
+        return MensagemPaginaDTO.builder()
+                .mensagens(lista)
+                .temMais(temMais)
+                .cursorAntes(lista.isEmpty() ? null : lista.get(0).getCursor())
+                .cursorDepois(lista.isEmpty() ? null : lista.get(lista.size() - 1).getCursor())
+                .build();
+    }
+
+    private MensagemPaginaDTO toPagina(Slice<MensagemChat> slice, boolean ascendente) {
+        List<MensagemChatDTO> lista = slice.getContent().stream()
                 .map(this::toMensagemDTO)
                 .collect(Collectors.toList());
-        Collections.reverse(lista);
-        return lista;
+        if (!ascendente) Collections.reverse(lista);
+
+        return MensagemPaginaDTO.builder()
+                .mensagens(lista)
+                .temMais(slice.hasNext())
+                .cursorAntes(lista.isEmpty() ? null : lista.get(0).getCursor())
+                .cursorDepois(lista.isEmpty() ? null : lista.get(lista.size() - 1).getCursor())
+                .build();
     }
 
     @Transactional
     public MensagemChatDTO enviarMensagem(EnviarMensagemRequest req, Long remetenteId) {
-        Conversa conversa = conversaRepository.findById(req.getConversaId())
-                .orElseThrow(() -> new RuntimeException("Conversa não encontrada: " + req.getConversaId()));
-        Usuario remetente = usuarioRepository.findById(remetenteId)
-                .orElseThrow(() -> new RuntimeException("Usuário não encontrado: " + remetenteId));
+        // Autorização e destinatários em memória; a conversa e o remetente entram só como referências
+        ChatMembrosCache.MembrosConversa membros = membrosCache.get(req.getConversaId());
+        if (!membros.participa(remetenteId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Usuário não participa desta conversa.");
+        }
+
+        // Próxima sequência + resumo da conversa (a linha fica bloqueada até ao commit)
+        Long seq = conversaJdbcRepository.avancarSequencia(req.getConversaId(), preview(req), LocalDateTime.now());
+        if (seq == null) {
+            throw new EntityNotFoundException("Conversa não encontrada: " + req.getConversaId());
+        }
+        Conversa conversa = conversaRepository.getReferenceById(req.getConversaId());
+        Usuario remetente = usuarioRepository.getReferenceById(remetenteId);
 
         MensagemChat mensagem = MensagemChat.builder()
                 .conversa(conversa)
                 .remetente(remetente)
                 .conteudo(req.getConteudo())
+                .seq(seq)
                 .deletada(false)
                 .build();
 
         if (req.getUrlsAnexos() != null && !req.getUrlsAnexos().isEmpty()) {
+            Map<String, ArquivoBlob> blobs = arquivoBlobService.resolverPorUrl(
+                    req.getUrlsAnexos().stream().map(MensagemAnexoDTO::getUrl).toList());
             List<MensagemAnexo> anexos = req.getUrlsAnexos().stream()
                     .map(a -> MensagemAnexo.builder()
                             .nomeArquivo(a.getNomeArquivo())
                             .tipoArquivo(TipoAnexo.valueOf(a.getTipoArquivo()))
                             .url(a.getUrl())
+                            .blobHash(blobs.containsKey(a.getUrl()) ? blobs.get(a.getUrl()).getHash() : null)
                             .mensagem(mensagem)
                             .build())
                     .collect(Collectors.toList());
             mensagem.setAnexos(anexos);
+            arquivoBlobService.adicionarReferencias(anexos.stream()
+                    .filter(a -> a.getBlobHash() != null)
+                    .collect(Collectors.groupingBy(MensagemAnexo::getBlobHash, Collectors.counting())));
         } else {
             mensagem.setAnexos(new ArrayList<>());
         }
 
         MensagemChat saved = mensagemChatRepository.save(mensagem);
-        MensagemChatDTO dto = toMensagemDTO(saved);
+        MensagemChatDTO dto = toMensagemDTO(saved, membros.nome(remetenteId));
+
+        // Quem envia está com a conversa aberta: o cursor de leitura avança até à própria mensagem
+        long lidaAntes = registrarLeitura(conversa, remetente, seq);
+        UUID equipeId = membros.equipeId();
+        contadorService.decrementar(equipeId, remetenteId, (seq - 1) - lidaAntes);
+        List<Long> destinatarios = membros.destinatarios(remetenteId);
+        contadorService.incrementar(equipeId, destinatarios);
 
-        // Broadcast para todos os participantes do canal via Supabase Realtime
-        String channelId = conversa.getId().toString();
-        CompletableFuture.runAsync(() ->
-                supabaseBroadcastService.broadcast("chat:" + channelId, "mensagem", dto));
+        // Entrega a todos os participantes do canal (/topic/chat/{id})
+        UUID conversaId = membros.conversaId();
+        AposCommit.executar(() -> realtimeGateway.publicarConversa(conversaId, dto));
 
-        pushBadgeUpdate(conversa, remetenteId);
+        pushBadgeUpdate(equipeId, destinatarios);
 
         return dto;
     }
 
-    @Transactional
+    // Só autoriza e regista em memória; o ChatLeiturasBuffer grava em lote e envia o badge
     public void marcarLida(UUID conversaId, Long userId) {
-        Conversa conversa = conversaRepository.findById(conversaId)
-                .orElseThrow(() -> new RuntimeException("Conversa não encontrada: " + conversaId));
-        Usuario usuario = usuarioRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("Usuário não encontrado: " + userId));
+        ChatMembrosCache.MembrosConversa membros = membrosCache.get(conversaId);
+        if (!membros.participa(userId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Usuário não participa desta conversa.");
+        }
+        leiturasBuffer.registrar(conversaId, membros.equipeId(), userId);
+    }
+
+    @Transactional(readOnly = true)
+    public long getTotalNaoLidas(String equipeId, Long userId) {
+        return contadorService.getTotal(UUID.fromString(equipeId), userId);
+    }
 
+    // Contadores já ajustados (após o commit): os badges saem da memória, sem COUNT.
+    // Com a entrega em processo já compensa avisar também os membros do grupo.
+    private void pushBadgeUpdate(UUID equipeId, List<Long> destinatarios) {
+        AposCommit.executar(() -> destinatarios.forEach(id ->
+                realtimeGateway.publicarBadge(id, contadorService.getTotal(equipeId, id))));
+    }
+
+    // Avança o cursor de leitura e devolve o valor anterior
+    private long registrarLeitura(Conversa conversa, Usuario usuario, long seq) {
         LeituraMensagem leitura = leituraMensagemRepository
-                .findByConversaIdAndUsuarioId(conversaId, userId)
+                .findByConversaIdAndUsuarioId(conversa.getId(), usuario.getId())
                 .orElseGet(() -> LeituraMensagem.builder()
                         .conversa(conversa)
                         .usuario(usuario)
                         .build());
+        long anterior = valorSeq(leitura.getUltimaSeqLida());
         leitura.setUltimoVistoEm(LocalDateTime.now());
+        leitura.setUltimaSeqLida(Math.max(seq, anterior));
         leituraMensagemRepository.save(leitura);
-
-        long total = mensagemChatRepository.countTotalUnread(conversa.getEquipe().getId(), userId);
-        CompletableFuture.runAsync(() ->
-                supabaseBroadcastService.broadcast("badge:" + userId, "update", total));
+        return anterior;
     }
 
-    @Transactional(readOnly = true)
-    public long getTotalNaoLidas(String equipeId, Long userId) {
-        return mensagemChatRepository.countTotalUnread(UUID.fromString(equipeId), userId);
+    private static long valorSeq(Long seq) {
+        return seq != null ? seq : 0L;
     }
 
-    private void pushBadgeUpdate(Conversa conversa, Long remetenteId) {
-        if (conversa.getTipo() != TipoConversa.GRUPO) {
-            Long otherUserId = conversa.getParticipanteA().getId().equals(remetenteId)
-                    ? conversa.getParticipanteB().getId()
-                    : conversa.getParticipanteA().getId();
-            long total = mensagemChatRepository.countTotalUnread(conversa.getEquipe().getId(), otherUserId);
-            CompletableFuture.runAsync(() ->
-                    supabaseBroadcastService.broadcast("badge:" + otherUserId, "update", total));
+    private static String preview(EnviarMensagemRequest req) {
+        String conteudo = req.getConteudo();
+        if (conteudo == null || conteudo.isBlank()) {
+            return req.getUrlsAnexos() != null && !req.getUrlsAnexos().isEmpty() ? "[Anexo]" : null;
         }
+        return conteudo.length() > 200 ? conteudo.substring(0, 197) + "..." : conteudo;
     }
 
-    private ConversaDTO toConversaDTO(Conversa c, Long userId) {
+    // Tudo vem da própria linha da conversa: não lidas = ultimaSeq - ultimaSeqLida
+    private ConversaDTO toConversaDTO(Conversa c, Long ultimaSeqLida, Long userId) {
         String nomeExibicao;
         Long outroUsuarioId = null;
 
@@ -188,30 +372,24 @@ public class ChatService {
             outroUsuarioId = outro.getId();
         }
 
-        List<String> ultimasList = mensagemChatRepository.findUltimasMensagensConteudo(
-                c.getId(), PageRequest.of(0, 1));
-        String ultimaMensagem = ultimasList.isEmpty() ? null : ultimasList.get(0);
-        LocalDateTime ultimaMensagemEm = mensagemChatRepository.findUltimaMensagemEm(c.getId());
-
-        LocalDateTime ultimoVisto = leituraMensagemRepository
-                .findByConversaIdAndUsuarioId(c.getId(), userId)
-                .map(LeituraMensagem::getUltimoVistoEm)
-                .orElse(LocalDateTime.of(1970, 1, 1, 0, 0));
-
-        long naoLidas = mensagemChatRepository.countUnreadInConversa(c.getId(), ultimoVisto, userId);
-
+        long ultimaSeq = valorSeq(c.getUltimaSeq());
         return ConversaDTO.builder()
                 .id(c.getId())
                 .tipo(c.getTipo().name())
                 .nomeExibicao(nomeExibicao)
                 .outroUsuarioId(outroUsuarioId)
-                .ultimaMensagem(ultimaMensagem)
-                .ultimaMensagemEm(ultimaMensagemEm)
-                .naoLidas(naoLidas)
+                .ultimaMensagem(c.getUltimaMensagemPreview())
+                .ultimaMensagemEm(c.getUltimaMensagemEm())
+                .naoLidas(Math.max(0, ultimaSeq - valorSeq(ultimaSeqLida)))
+                .ultimaSeq(ultimaSeq)
                 .build();
     }
 
     private MensagemChatDTO toMensagemDTO(MensagemChat m) {
+        return toMensagemDTO(m, m.getRemetente().getNomeCompleto());
+    }
+
+    private MensagemChatDTO toMensagemDTO(MensagemChat m, String remetenteNome) {
         List<MensagemAnexoDTO> anexos = m.getAnexos() != null
                 ? m.getAnexos().stream()
                     .map(a -> MensagemAnexoDTO.builder()
@@ -219,6 +397,8 @@ public class ChatService {
                             .nomeArquivo(a.getNomeArquivo())
                             .tipoArquivo(a.getTipoArquivo().name())
                             .url(a.getUrl())
+                            .miniaturaUrl(variante(a.getBlob() != null ? a.getBlob().getMiniaturaUrl() : null, a.getUrl()))
+                            .exibicaoUrl(variante(a.getBlob() != null ? a.getBlob().getExibicaoUrl() : null, a.getUrl()))
                             .build())
                     .collect(Collectors.toList())
                 : new ArrayList<>();
@@ -226,12 +406,19 @@ public class ChatService {
         return MensagemChatDTO.builder()
                 .id(m.getId())
                 .conversaId(m.getConversa().getId())
+                .seq(m.getSeq())
                 .remetenteId(m.getRemetente().getId())
-                .remetenteNome(m.getRemetente().getNomeCompleto())
+                .remetenteNome(remetenteNome)
                 .conteudo(m.getConteudo())
                 .enviadoEm(m.getEnviadoEm())
                 .deletada(m.isDeletada())
                 .anexos(anexos)
+                .cursor(m.getEnviadoEm() != null ? new CursorMensagem(m.getEnviadoEm(), m.getId()).codificar() : null)
                 .build();
     }
+
+    // Enquanto as variantes não estão prontas (ou não há blob) o cliente usa o original
+    private static String variante(String url, String original) {
+        return url != null ? url : original;
+    }
 }
@@ -0,0 +1,203 @@
+package com.benfica.encomendas_api.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Particionamento mensal (RANGE em data_referencia) da tabela checklist_logs.
+ *
+ * - No arranque converte a tabela (criada pelo Hibernate) numa tabela particionada,
+ *   movendo os dados existentes para as partições mensais.
+ * - Diariamente pré-cria as partições dos próximos meses e move as partições mais
+ *   antigas que a retenção para checklist_logs_arquivo (DETACH/ATTACH, sem cópia de dados).
+ *
+ * Como todas as queries do repositório filtram por data_referencia, o Postgres
+ * descarta as partições que não interessam (partition pruning).
+ */
+@Component
+public class ChecklistLogParticaoScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChecklistLogParticaoScheduler.class);
+
+    private static final String TABELA = "checklist_logs";
+    private static final String TABELA_ARQUIVO = "checklist_logs_arquivo";
+    private static final String PARTICAO_DEFAULT = "checklist_logs_default";
+    private static final Pattern NOME_PARTICAO = Pattern.compile("^checklist_logs_p(\\d{4})_(\\d{2})$");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.checklist.logs.particionamento.enabled:true}")
+    private boolean particionamentoAtivo;
+
+    @Value("${app.checklist.logs.meses-a-frente:3}")
+    private int mesesAFrente;
+
+    @Value("${app.checklist.logs.retencao-meses:12}")
+    private int retencaoMeses;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        if (!particionamentoAtivo) return;
+        try {
+            converterParaParticionada();
+            executarManutencao();
+        } catch (Exception e) {
+            logger.error("Falha ao preparar particionamento de {}: {}", TABELA, e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${app.checklist.logs.manutencao-cron:0 30 3 * * *}")
+    public void executarManutencao() {
+        if (!particionamentoAtivo || !isParticionada(TABELA)) return;
+
+        YearMonth atual = YearMonth.now();
+        for (int i = 0; i <= mesesAFrente; i++) {
+            garantirParticao(atual.plusMonths(i));
+        }
+        arquivarParticoesAntigas(atual.minusMonths(retencaoMeses));
+    }
+
+    // --- CONVERSÃO INICIAL (executa uma única vez) ---
+    private void converterParaParticionada() {
+        if (!tabelaExiste(TABELA) || isParticionada(TABELA)) return;
+
+        logger.info("Convertendo {} para tabela particionada por mês...", TABELA);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.execute("ALTER TABLE checklist_logs RENAME TO checklist_logs_legado");
+            jdbcTemplate.execute("ALTER TABLE checklist_logs_legado RENAME CONSTRAINT checklist_logs_pkey TO checklist_logs_legado_pkey");
+            jdbcTemplate.execute("ALTER INDEX IF EXISTS idx_checklist_log_data RENAME TO idx_checklist_log_data_legado");
+            jdbcTemplate.execute("ALTER INDEX IF EXISTS idx_checklist_log_item RENAME TO idx_checklist_log_item_legado");
+            jdbcTemplate.execute("ALTER INDEX IF EXISTS idx_checklist_log_usuario_data RENAME TO idx_checklist_log_usuario_data_legado");
+
+            // A chave primária de uma tabela particionada tem de incluir a chave de partição
+            jdbcTemplate.execute("""
+                CREATE TABLE checklist_logs (
+                    id UUID NOT NULL,
+                    item_id UUID NOT NULL,
+                    usuario_id BIGINT NOT NULL,
+                    data_referencia DATE NOT NULL,
+                    data_hora_acao TIMESTAMP(6) NOT NULL,
+                    valor BOOLEAN NOT NULL,
+                    CONSTRAINT checklist_logs_pkey PRIMARY KEY (id, data_referencia),
+                    CONSTRAINT fk_log_item FOREIGN KEY (item_id) REFERENCES checklist_itens(id) ON DELETE CASCADE,
+                    CONSTRAINT fk_log_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios(id)
+                ) PARTITION BY RANGE (data_referencia)
+            """);
+            jdbcTemplate.execute("CREATE INDEX idx_checklist_log_data ON checklist_logs (data_referencia)");
+            jdbcTemplate.execute("CREATE INDEX idx_checklist_log_item ON checklist_logs (item_id)");
+            jdbcTemplate.execute("CREATE INDEX idx_checklist_log_usuario_data ON checklist_logs (usuario_id, data_referencia)");
+            jdbcTemplate.execute("CREATE TABLE " + PARTICAO_DEFAULT + " PARTITION OF checklist_logs DEFAULT");
+
+            // Cria uma partição para cada mês que já tem dados
+            List<LocalDate> meses = jdbcTemplate.queryForList(
+                    "SELECT DISTINCT date_trunc('month', data_referencia)::date FROM checklist_logs_legado",
+                    LocalDate.class);
+            meses.forEach(m -> criarParticao(YearMonth.from(m)));
+
+            jdbcTemplate.execute("""
+                INSERT INTO checklist_logs (id, item_id, usuario_id, data_referencia, data_hora_acao, valor)
+                SELECT id, item_id, usuario_id, data_referencia, data_hora_acao, valor FROM checklist_logs_legado
+            """);
+            jdbcTemplate.execute("DROP TABLE checklist_logs_legado");
+        });
+        logger.info("{} convertida para particionamento mensal.", TABELA);
+    }
+
+    // --- PRÉ-CRIAÇÃO DE PARTIÇÕES ---
+    private void garantirParticao(YearMonth mes) {
+        if (tabelaExiste(nomeParticao(mes))) return;
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> criarParticao(mes));
+            logger.info("Partição {} criada.", nomeParticao(mes));
+        } catch (Exception e) {
+            logger.warn("Falha ao criar partição {}: {}", nomeParticao(mes), e.getMessage());
+        }
+    }
+
+    /**
+     * Cria a partição do mês. Linhas desse intervalo que tenham caído na partição DEFAULT
+     * são movidas antes do ATTACH (senão o Postgres recusa a nova partição).
+     */
+    private void criarParticao(YearMonth mes) {
+        String nome = nomeParticao(mes);
+        String inicio = mes.atDay(1).toString();
+        String fim = mes.plusMonths(1).atDay(1).toString();
+
+        jdbcTemplate.execute("CREATE TABLE " + nome + " (LIKE checklist_logs INCLUDING DEFAULTS)");
+        if (tabelaExiste(PARTICAO_DEFAULT)) {
+            String filtro = " WHERE data_referencia >= DATE '" + inicio + "' AND data_referencia < DATE '" + fim + "'";
+            jdbcTemplate.execute("INSERT INTO " + nome + " SELECT * FROM " + PARTICAO_DEFAULT + filtro);
+            jdbcTemplate.execute("DELETE FROM " + PARTICAO_DEFAULT + filtro);
+        }
+        jdbcTemplate.execute("ALTER TABLE checklist_logs ATTACH PARTITION " + nome +
+                " FOR VALUES FROM ('" + inicio + "') TO ('" + fim + "')");
+    }
+
+    // --- RETENÇÃO: move partições antigas para o arquivo ---
+    private void arquivarParticoesAntigas(YearMonth limite) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TABELA_ARQUIVO +
+                " (LIKE checklist_logs) PARTITION BY RANGE (data_referencia)");
+
+        for (String particao : listarParticoes(TABELA)) {
+            Matcher m = NOME_PARTICAO.matcher(particao);
+            if (!m.matches()) continue;
+
+            YearMonth mes = YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+            if (!mes.isBefore(limite)) continue;
+
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    jdbcTemplate.execute("ALTER TABLE checklist_logs DETACH PARTITION " + particao);
+                    jdbcTemplate.execute("ALTER TABLE " + TABELA_ARQUIVO + " ATTACH PARTITION " + particao +
+                            " FOR VALUES FROM ('" + mes.atDay(1) + "') TO ('" + mes.plusMonths(1).atDay(1) + "')");
+                });
+                logger.info("Partição {} movida para {}.", particao, TABELA_ARQUIVO);
+            } catch (Exception e) {
+                logger.warn("Falha ao arquivar partição {}: {}", particao, e.getMessage());
+            }
+        }
+    }
+
+    // --- HELPERS DE CATÁLOGO ---
+    private List<String> listarParticoes(String tabela) {
+        return jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = to_regclass(?)
+                """, String.class, tabela);
+    }
+
+    private boolean tabelaExiste(String tabela) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, tabela));
+    }
+
+    private boolean isParticionada(String tabela) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass(?))",
+                Boolean.class, tabela));
+    }
+
+    private String nomeParticao(YearMonth mes) {
+        return String.format("checklist_logs_p%04d_%02d", mes.getYear(), mes.getMonthValue());
+    }
+}
@@ -0,0 +1,58 @@
+package com.benfica.encomendas_api.service;
+
+import com.benfica.encomendas_api.dto.ChecklistProgressoEventoDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publica o progresso das checklists em /topic/checklist/{equipeId} pelo RealtimeGateway.
+ *
+ * Os eventos só entram na fila após o commit e são agrupados por equipe: dentro de um
+ * intervalo, vários cliques no mesmo (usuário, item) ficam reduzidos ao último valor,
+ * e cada equipe recebe no máximo um frame por intervalo.
+ */
+@Component
+public class ChecklistRealtimePublisher {
+
+    @Autowired
+    private RealtimeGateway realtimeGateway;
+
+    // equipeId -> ("usuarioId:itemId" -> último evento), em ordem de chegada
+    private final Map<UUID, Map<String, ChecklistProgressoEventoDTO>> pendentes = new ConcurrentHashMap<>();
+
+    public void publicarAposCommit(UUID equipeId, ChecklistProgressoEventoDTO evento) {
+        AposCommit.executar(() -> enfileirar(equipeId, evento));
+    }
+
+    private void enfileirar(UUID equipeId, ChecklistProgressoEventoDTO evento) {
+        String chave = evento.getUsuarioId() + ":" + evento.getItemId();
+        pendentes.compute(equipeId, (id, eventos) -> {
+            if (eventos == null) eventos = new LinkedHashMap<>();
+            eventos.remove(chave); // reinsere no fim para manter a ordem do último clique
+            eventos.put(chave, evento);
+            return eventos;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.checklist.realtime.intervalo-ms:1000}")
+    public void enviarPendentes() {
+        for (UUID equipeId : pendentes.keySet()) {
+            List<ChecklistProgressoEventoDTO> frame = new ArrayList<>();
+            pendentes.computeIfPresent(equipeId, (id, eventos) -> {
+                frame.addAll(eventos.values());
+                return null; // remove a entrada de forma atómica
+            });
+            if (frame.isEmpty()) continue;
+
+            realtimeGateway.publicarEquipe("checklist", equipeId, frame);
+        }
+    }
+}
@@ -9,9 +9,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -36,7 +38,22 @@ public class ChecklistService {
     private EquipeRepository equipeRepository;
 
     @Autowired
-    private EscalaTrabalhoRepository escalaRepository;
+    private EscalaCalendarioCache calendarioCache;
+
+    @Autowired
+    private ChecklistRealtimePublisher realtimePublisher;
+
+    @Autowired
+    private ChecklistOrdemJdbcRepository ordemJdbcRepository;
+
+    @Autowired
+    private ChecklistTemplateJdbcRepository templateJdbcRepository;
+
+    @Autowired
+    private ChecklistAnexoRepository anexoRepository;
+
+    @Autowired
+    private ArquivoBlobService arquivoBlobService;
 
     // --- VISÃO FUNCIONÁRIO: LEITURA DO DIA (Com validação de Escala) ---
     @Transactional(readOnly = true)
@@ -44,10 +61,9 @@ public class ChecklistService {
 
         // 1. REGRA DE NEGÓCIO: Verificar Escala
         if (usuarioId != null) {
-            EscalaTrabalho escala = escalaRepository.findByUsuarioIdAndData(usuarioId, dataReferencia);
-
+            // Calendário da equipe em memória (1 query por equipe/mês, não por pedido)
             // Se não tiver escala ou não for dia de trabalho, retorna vazio para o funcionário
-            if (escala == null || escala.getTipo() != TipoEscala.TRABALHO) {
+            if (!calendarioCache.estaTrabalhando(equipeId, usuarioId, dataReferencia)) {
                 return List.of();
             }
         }
@@ -60,61 +76,59 @@ public class ChecklistService {
                 ? logRepository.findByUsuarioIdAndDataReferencia(usuarioId, dataReferencia)
                 : List.of();
 
-        // 4. Monta o DTO com status calculado e ORDENAÇÃO
-        return boards.stream()
-                // Garante que a lista venha ordenada do backend
-                .sorted(Comparator.comparingInt(b -> b.getOrdem() != null ? b.getOrdem() : 9999))
-                .map(board -> {
-                    List<ChecklistCardDTO> cardsDTO = board.getCards().stream()
-                            // Garante que os cards venham ordenados
-                            .sorted(Comparator.comparingInt(c -> c.getOrdem() != null ? c.getOrdem() : 9999))
-                            .map(card -> mapCardToDTO(card, logsDoDia, dataReferencia, true)) // true = calcula status
-                            .collect(Collectors.toList());
-
-                    return ChecklistBoardDTO.builder()
-                            .id(board.getId())
-                            .nome(board.getNome())
-                            .equipeId(board.getEquipe().getId())
-                            .usuarioEspecificoId(board.getUsuarioEspecifico() != null ? board.getUsuarioEspecifico().getId() : null)
-                            .ordem(board.getOrdem())
-                            .cards(cardsDTO)
-                            .build();
-                }).collect(Collectors.toList());
+        // 4. Monta o DTO com status calculado e ORDENAÇÃO (true = calcula status)
+        return mapBoardsToDTO(boards, logsDoDia, dataReferencia, true);
     }
 
     // --- VISÃO ADMIN: LISTAR TUDO (Ignora Escala) ---
     @Transactional(readOnly = true)
     public List<ChecklistBoardDTO> listarTodosBoards(UUID equipeId) {
         List<ChecklistBoard> boards = boardRepository.findByEquipeId(equipeId);
+        return mapBoardsToDTO(boards, List.of(), LocalDate.now(), false);
+    }
 
-        return boards.stream()
-                .sorted(Comparator.comparingInt(b -> b.getOrdem() != null ? b.getOrdem() : 9999))
-                .map(board -> {
-                    List<ChecklistCardDTO> cardsDTO = board.getCards().stream()
-                            .sorted(Comparator.comparingInt(c -> c.getOrdem() != null ? c.getOrdem() : 9999))
-                            .map(card -> mapCardToDTO(card, List.of(), LocalDate.now(), false))
-                            .collect(Collectors.toList());
-
-                    return ChecklistBoardDTO.builder()
-                            .id(board.getId())
-                            .nome(board.getNome())
-                            .equipeId(board.getEquipe().getId())
-                            .usuarioEspecificoId(board.getUsuarioEspecifico() != null ? board.getUsuarioEspecifico().getId() : null)
-                            .ordem(board.getOrdem())
-                            .cards(cardsDTO)
-                            .build();
-                }).collect(Collectors.toList());
+    // --- HELPERS DE MAPEAMENTO ---
+    // A 'ordem' devolvida ao cliente é a posição na lista ordenada por rank_ordem
+    private List<ChecklistBoardDTO> mapBoardsToDTO(List<ChecklistBoard> boards, List<ChecklistLog> logsDoDia,
+                                                   LocalDate data, boolean calcularStatus) {
+        List<ChecklistBoard> ordenados = ordenar(boards, ChecklistBoard::getRankOrdem, ChecklistBoard::getOrdem);
+        List<ChecklistBoardDTO> dtos = new ArrayList<>(ordenados.size());
+
+        for (int i = 0; i < ordenados.size(); i++) {
+            ChecklistBoard board = ordenados.get(i);
+            List<ChecklistCard> cards = ordenar(board.getCards(), ChecklistCard::getRankOrdem, ChecklistCard::getOrdem);
+            List<ChecklistCardDTO> cardsDTO = new ArrayList<>(cards.size());
+            for (int j = 0; j < cards.size(); j++) {
+                cardsDTO.add(mapCardToDTO(cards.get(j), j, logsDoDia, data, calcularStatus));
+            }
+
+            dtos.add(ChecklistBoardDTO.builder()
+                    .id(board.getId())
+                    .nome(board.getNome())
+                    .equipeId(board.getEquipe().getId())
+                    .usuarioEspecificoId(board.getUsuarioEspecifico() != null ? board.getUsuarioEspecifico().getId() : null)
+                    .ordem(i)
+                    .cards(cardsDTO)
+                    .build());
+        }
+        return dtos;
+    }
+
+    // Ordena por rank_ordem; linhas antigas sem rank ficam no fim, pela ordem inteira
+    private static <T> List<T> ordenar(List<T> lista, Function<T, String> rank, Function<T, Integer> ordem) {
+        return lista.stream()
+                .sorted(Comparator.comparing(rank, Comparator.nullsLast(Comparator.<String>naturalOrder()))
+                        .thenComparing(ordem, Comparator.nullsLast(Comparator.<Integer>naturalOrder())))
+                .collect(Collectors.toList());
     }
 
-    // --- HELPER DE MAPEAMENTO ---
-    private ChecklistCardDTO mapCardToDTO(ChecklistCard card, List<ChecklistLog> logsDoDia, LocalDate data, boolean calcularStatus) {
+    private ChecklistCardDTO mapCardToDTO(ChecklistCard card, int posicao, List<ChecklistLog> logsDoDia, LocalDate data, boolean calcularStatus) {
         String status = "CONFIG";
         if (calcularStatus) {
             status = calcularStatusCartao(card, data);
         }
 
-        List<ChecklistItemDTO> itens = card.getItens().stream()
-                .sorted(Comparator.comparingInt(i -> i.getOrdem() != null ? i.getOrdem() : 9999))
+        List<ChecklistItemDTO> itens = ordenar(card.getItens(), ChecklistItem::getRankOrdem, ChecklistItem::getOrdem).stream()
                 .map(item -> {
                     boolean marcado = false;
                     if (calcularStatus) {
@@ -145,7 +159,7 @@ public class ChecklistService {
                 .horarioAbertura(card.getHorarioAbertura())
                 .horarioFechamento(card.getHorarioFechamento())
                 .itens(itens)
-                .ordem(card.getOrdem())
+                .ordem(posicao)
                 .status(status)
                 .build();
     }
@@ -187,7 +201,8 @@ public class ChecklistService {
     // --- AÇÕES E CRUD (Sem Alterações na Lógica) ---
     @Transactional
     public void registrarAcao(ChecklistLogRequestDTO request, Long usuarioId) {
-        ChecklistItem item = itemRepository.findById(request.getItemId())
+        // Traz card + board na mesma query para obter a equipe sem lazy loads
+        ChecklistItem item = itemRepository.findByIdComBoard(request.getItemId())
                 .orElseThrow(() -> new EntityNotFoundException("Item não encontrado"));
 
         if (!request.getDataReferencia().isEqual(LocalDate.now())) {
@@ -204,7 +219,16 @@ public class ChecklistService {
                 .valor(request.getValor())
                 .build();
 
-        logRepository.save(log);
+        ChecklistLog salvo = logRepository.save(log);
+
+        // Delta para os painéis abertos (enviado após o commit, agrupado por intervalo)
+        realtimePublisher.publicarAposCommit(item.getCard().getBoard().getEquipe().getId(),
+                ChecklistProgressoEventoDTO.builder()
+                        .usuarioId(usuarioId)
+                        .itemId(item.getId())
+                        .valor(Boolean.TRUE.equals(salvo.getValor()))
+                        .hora(salvo.getDataHoraAcao() != null ? salvo.getDataHoraAcao() : LocalDateTime.now())
+                        .build());
     }
 
     @Transactional
@@ -218,11 +242,14 @@ public class ChecklistService {
                     .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado"));
         }
 
+        // Novo board entra no fim da lista da equipe
+        List<PosicaoOrdem> irmaos = boardRepository.findPosicoesByEquipeId(equipeId);
         ChecklistBoard board = ChecklistBoard.builder()
                 .nome(nome)
                 .equipe(equipe)
                 .usuarioEspecifico(usuario)
-                .ordem(9999)
+                .ordem(irmaos.size())
+                .rankOrdem(rankNoFim(ChecklistOrdemJdbcRepository.Tabela.BOARDS, irmaos))
                 .build();
 
         ChecklistBoard salvo = boardRepository.save(board);
@@ -242,12 +269,14 @@ public class ChecklistService {
         ChecklistBoard board = boardRepository.findById(boardId)
                 .orElseThrow(() -> new EntityNotFoundException("Board não encontrado"));
 
+        List<PosicaoOrdem> irmaos = cardRepository.findPosicoesByBoardId(boardId);
         ChecklistCard card = ChecklistCard.builder()
                 .titulo(titulo)
                 .board(board)
                 .horarioAbertura(inicio)
                 .horarioFechamento(fim)
-                .ordem(9999)
+                .ordem(irmaos.size())
+                .rankOrdem(rankNoFim(ChecklistOrdemJdbcRepository.Tabela.CARDS, irmaos))
                 .build();
 
         ChecklistCard salvo = cardRepository.save(card);
@@ -306,14 +335,48 @@ public class ChecklistService {
         cardRepository.delete(card);
     }
 
+    // --- ANEXOS (blobs partilhados com o chat) ---
+
+    @Transactional
+    public ChecklistAnexoDTO adicionarAnexo(UUID cardId, ChecklistAnexoDTO dto) {
+        ChecklistCard card = cardRepository.findById(cardId)
+                .orElseThrow(() -> new EntityNotFoundException("Card não encontrado"));
+        String blobHash = arquivoBlobService.resolverPorUrl(List.of(dto.getUrl())).values().stream()
+                .findFirst().map(ArquivoBlob::getHash).orElse(null);
+
+        ChecklistAnexo anexo = anexoRepository.save(ChecklistAnexo.builder()
+                .card(card)
+                .nomeArquivo(dto.getNomeArquivo())
+                .tipoArquivo(dto.getTipoArquivo())
+                .url(dto.getUrl())
+                .blobHash(blobHash)
+                .build());
+        if (blobHash != null) arquivoBlobService.adicionarReferencias(Map.of(blobHash, 1L));
+        return ChecklistAnexoDTO.fromEntity(anexo);
+    }
+
+    @Transactional
+    public void removerAnexo(UUID anexoId) {
+        ChecklistAnexo anexo = anexoRepository.findById(anexoId)
+                .orElseThrow(() -> new EntityNotFoundException("Anexo não encontrado"));
+        anexo.getCard().getAnexos().remove(anexo);
+        anexoRepository.delete(anexo);
+        arquivoBlobService.removerReferencia(anexo.getBlobHash());
+    }
+
     @Transactional
-    public void moverCard(UUID cardId, UUID novoBoardId) {
+    public void moverCard(UUID cardId, UUID novoBoardId, ReposicionarRequestDTO posicao) {
         ChecklistCard card = cardRepository.findById(cardId)
                 .orElseThrow(() -> new EntityNotFoundException("Card não encontrado"));
         ChecklistBoard board = boardRepository.findById(novoBoardId)
                 .orElseThrow(() -> new EntityNotFoundException("Board não encontrado"));
         card.setBoard(board);
-        cardRepository.save(card);
+        cardRepository.saveAndFlush(card);
+
+        // Sem vizinhos indicados, o card vai para o fim do novo board
+        ReposicionarRequestDTO destino = posicao != null ? posicao : new ReposicionarRequestDTO();
+        reposicionar(ChecklistOrdemJdbcRepository.Tabela.CARDS, cardId, destino,
+                cardRepository.findPosicoesByBoardId(novoBoardId));
     }
 
     @Transactional
@@ -321,13 +384,26 @@ public class ChecklistService {
         ChecklistCard card = cardRepository.findById(cardId)
                 .orElseThrow(() -> new EntityNotFoundException("Card não encontrado"));
 
+        List<PosicaoOrdem> irmaos = itemRepository.findPosicoesByCardId(cardId);
         ChecklistItem item = ChecklistItem.builder()
                 .descricao(descricao)
                 .card(card)
-                .ordem(ordem)
+                .ordem(ordem != null ? ordem : irmaos.size())
+                .rankOrdem(rankNoFim(ChecklistOrdemJdbcRepository.Tabela.ITENS, irmaos))
                 .build();
 
-        ChecklistItem salvo = itemRepository.save(item);
+        ChecklistItem salvo = itemRepository.saveAndFlush(item);
+
+        // Posição pedida antes do fim: entra entre os itens que hoje ocupam ordem-1 e ordem
+        if (ordem != null && ordem < irmaos.size()) {
+            List<PosicaoOrdem> ordenados = ordenar(irmaos, PosicaoOrdem::getRankOrdem, PosicaoOrdem::getOrdem);
+            int posicao = Math.max(ordem, 0);
+            UUID anteriorId = posicao > 0 ? ordenados.get(posicao - 1).getId() : null;
+            reposicionar(ChecklistOrdemJdbcRepository.Tabela.ITENS, salvo.getId(),
+                    new ReposicionarRequestDTO(anteriorId, ordenados.get(posicao).getId()),
+                    itemRepository.findPosicoesByCardId(cardId));
+        }
+
         return ChecklistItemDTO.builder()
                 .id(salvo.getId())
                 .descricao(salvo.getDescricao())
@@ -343,42 +419,219 @@ public class ChecklistService {
         itemRepository.delete(item);
     }
 
-    // --- REORDENAÇÃO CORRIGIDA (PERSISTÊNCIA GARANTIDA) ---
+    // --- REORDENAÇÃO ---
+    // Movimento unitário: calcula uma chave entre os vizinhos e altera uma única linha.
 
     @Transactional
-    public void atualizarOrdemBoards(List<ReorderRequestDTO> lista) {
-        List<UUID> ids = lista.stream()
-                .filter(i -> i.getId() != null)
-                .map(ReorderRequestDTO::getId)
-                .collect(Collectors.toList());
+    public void reposicionarBoard(UUID boardId, ReposicionarRequestDTO posicao) {
+        UUID equipeId = boardRepository.findEquipeIdById(boardId)
+                .orElseThrow(() -> new EntityNotFoundException("Board não encontrado"));
+        reposicionar(ChecklistOrdemJdbcRepository.Tabela.BOARDS, boardId, posicao,
+                boardRepository.findPosicoesByEquipeId(equipeId));
+    }
 
-        if (ids.isEmpty()) return;
+    @Transactional
+    public void reposicionarCard(UUID cardId, ReposicionarRequestDTO posicao) {
+        UUID boardId = cardRepository.findBoardIdById(cardId)
+                .orElseThrow(() -> new EntityNotFoundException("Card não encontrado"));
+        reposicionar(ChecklistOrdemJdbcRepository.Tabela.CARDS, cardId, posicao,
+                cardRepository.findPosicoesByBoardId(boardId));
+    }
 
-        Map<UUID, Integer> ordemPorId = lista.stream()
-                .filter(i -> i.getId() != null)
-                .collect(Collectors.toMap(ReorderRequestDTO::getId, ReorderRequestDTO::getOrdem));
+    @Transactional
+    public void reposicionarItem(UUID itemId, ReposicionarRequestDTO posicao) {
+        UUID cardId = itemRepository.findCardIdById(itemId)
+                .orElseThrow(() -> new EntityNotFoundException("Item não encontrado"));
+        reposicionar(ChecklistOrdemJdbcRepository.Tabela.ITENS, itemId, posicao,
+                itemRepository.findPosicoesByCardId(cardId));
+    }
+
+    // Renumeração em lote (lista completa): um único UPDATE ... FROM (VALUES ...), sem carregar entidades
 
-        List<ChecklistBoard> boards = boardRepository.findAllById(ids);
-        boards.forEach(b -> b.setOrdem(ordemPorId.get(b.getId())));
-        boardRepository.saveAll(boards);
+    @Transactional
+    public void atualizarOrdemBoards(List<ReorderRequestDTO> lista) {
+        renumerar(ChecklistOrdemJdbcRepository.Tabela.BOARDS, lista);
     }
 
     @Transactional
     public void atualizarOrdemCards(List<ReorderRequestDTO> lista) {
+        renumerar(ChecklistOrdemJdbcRepository.Tabela.CARDS, lista);
+    }
+
+    @Transactional
+    public void atualizarOrdemItens(List<ReorderRequestDTO> lista) {
+        renumerar(ChecklistOrdemJdbcRepository.Tabela.ITENS, lista);
+    }
+
+    private void renumerar(ChecklistOrdemJdbcRepository.Tabela tabela, List<ReorderRequestDTO> lista) {
         List<UUID> ids = lista.stream()
                 .filter(i -> i.getId() != null)
+                .sorted(Comparator.comparing(ReorderRequestDTO::getOrdem, Comparator.nullsLast(Comparator.<Integer>naturalOrder())))
                 .map(ReorderRequestDTO::getId)
                 .collect(Collectors.toList());
 
         if (ids.isEmpty()) return;
+        ordemJdbcRepository.renumerar(tabela, ids, OrdemRank.distribuir(ids.size()));
+    }
 
-        Map<UUID, Integer> ordemPorId = lista.stream()
-                .filter(i -> i.getId() != null)
-                .collect(Collectors.toMap(ReorderRequestDTO::getId, ReorderRequestDTO::getOrdem));
+    private void reposicionar(ChecklistOrdemJdbcRepository.Tabela tabela, UUID id,
+                              ReposicionarRequestDTO posicao, List<PosicaoOrdem> irmaos) {
+        List<PosicaoOrdem> ordenados = ordenar(irmaos, PosicaoOrdem::getRankOrdem, PosicaoOrdem::getOrdem);
+        List<UUID> ids = ordenados.stream()
+                .map(PosicaoOrdem::getId)
+                .filter(i -> !i.equals(id))
+                .collect(Collectors.toCollection(ArrayList::new));
+
+        UUID anteriorId = posicao.getAnteriorId();
+        UUID posteriorId = posicao.getPosteriorId();
+        if (anteriorId != null && !ids.contains(anteriorId)) {
+            throw new IllegalArgumentException("O vizinho anterior (anteriorId) não pertence à lista de destino.");
+        }
+        if (posteriorId != null && !ids.contains(posteriorId)) {
+            throw new IllegalArgumentException("O vizinho posterior (posteriorId) não pertence à lista de destino.");
+        }
 
-        List<ChecklistCard> cards = cardRepository.findAllById(ids);
-        cards.forEach(c -> c.setOrdem(ordemPorId.get(c.getId())));
-        cardRepository.saveAll(cards);
+        // Caminho rápido: todas as linhas já têm rank e há espaço entre os vizinhos
+        boolean temLegado = ordenados.stream().anyMatch(p -> p.getRankOrdem() == null);
+        if (!temLegado) {
+            Map<UUID, String> rankPorId = ordenados.stream()
+                    .collect(Collectors.toMap(PosicaoOrdem::getId, PosicaoOrdem::getRankOrdem));
+            String anterior = anteriorId != null ? rankPorId.get(anteriorId) : null;
+            String posterior = posteriorId != null ? rankPorId.get(posteriorId) : null;
+            if (anteriorId == null && posteriorId == null && !ids.isEmpty()) {
+                anterior = rankPorId.get(ids.get(ids.size() - 1));
+            }
+
+            String novoRank = OrdemRank.entre(anterior, posterior);
+            if (novoRank != null) {
+                ordemJdbcRepository.atualizarRank(tabela, id, novoRank);
+                return;
+            }
+        }
+
+        // Fallback: aplica o movimento na lista e renumera tudo num único UPDATE
+        int destino;
+        if (anteriorId != null) destino = ids.indexOf(anteriorId) + 1;
+        else if (posteriorId != null) destino = ids.indexOf(posteriorId);
+        else destino = ids.size();
+        ids.add(destino, id);
+        ordemJdbcRepository.renumerar(tabela, ids, OrdemRank.distribuir(ids.size()));
+    }
+
+    // Chave para um elemento novo no fim da lista (renumera antes se houver linhas sem rank)
+    private String rankNoFim(ChecklistOrdemJdbcRepository.Tabela tabela, List<PosicaoOrdem> irmaos) {
+        List<PosicaoOrdem> ordenados = ordenar(irmaos, PosicaoOrdem::getRankOrdem, PosicaoOrdem::getOrdem);
+        if (ordenados.isEmpty()) return OrdemRank.entre(null, null);
+
+        String ultimo = ordenados.get(ordenados.size() - 1).getRankOrdem();
+        String novoRank = ordenados.stream().allMatch(p -> p.getRankOrdem() != null)
+                ? OrdemRank.entre(ultimo, null)
+                : null;
+        if (novoRank != null) return novoRank;
+
+        List<UUID> ids = ordenados.stream().map(PosicaoOrdem::getId).collect(Collectors.toList());
+        List<String> ranks = OrdemRank.distribuir(ids.size() + 1);
+        ordemJdbcRepository.renumerar(tabela, ids, ranks.subList(0, ids.size()));
+        return ranks.get(ids.size());
+    }
+
+    // --- TEMPLATES (clonar checklists entre equipes) ---
+
+    // Snapshot dos boards gerais da equipe (boards de um funcionário específico não entram)
+    @Transactional(readOnly = true)
+    public ChecklistTemplateDTO exportarTemplate(UUID equipeId) {
+        List<ChecklistBoard> boards = ordenar(boardRepository.findByEquipeId(equipeId),
+                ChecklistBoard::getRankOrdem, ChecklistBoard::getOrdem);
+
+        List<ChecklistTemplateDTO.TemplateBoardDTO> boardsTemplate = boards.stream()
+                .filter(b -> b.getUsuarioEspecifico() == null && !Boolean.FALSE.equals(b.getAtivo()))
+                .map(b -> ChecklistTemplateDTO.TemplateBoardDTO.builder()
+                        .nome(b.getNome())
+                        .cards(ordenar(b.getCards(), ChecklistCard::getRankOrdem, ChecklistCard::getOrdem).stream()
+                                .map(c -> ChecklistTemplateDTO.TemplateCardDTO.builder()
+                                        .titulo(c.getTitulo())
+                                        .descricao(c.getDescricao())
+                                        .horarioAbertura(c.getHorarioAbertura())
+                                        .horarioFechamento(c.getHorarioFechamento())
+                                        .itens(ordenar(c.getItens(), ChecklistItem::getRankOrdem, ChecklistItem::getOrdem).stream()
+                                                .map(ChecklistItem::getDescricao)
+                                                .collect(Collectors.toList()))
+                                        .anexos(c.getAnexos().stream()
+                                                .map(ChecklistAnexoDTO::fromEntity)
+                                                .collect(Collectors.toList()))
+                                        .build())
+                                .collect(Collectors.toList()))
+                        .build())
+                .collect(Collectors.toList());
+
+        return ChecklistTemplateDTO.builder().boards(boardsTemplate).build();
+    }
+
+    /**
+     * Instancia o template na equipe, depois dos boards que ela já tem.
+     * Os ids são gerados aqui e cada nível vai num único JDBC batch (4 round-trips no total),
+     * em vez de um INSERT por entidade via JPA. Uma transação por equipe de destino.
+     */
+    @Transactional
+    public int importarTemplate(ChecklistTemplateDTO template, UUID equipeId) {
+        if (!equipeRepository.existsById(equipeId)) {
+            throw new EntityNotFoundException("Equipe não encontrada");
+        }
+        if (template == null || template.getBoards() == null || template.getBoards().isEmpty()) return 0;
+
+        List<PosicaoOrdem> existentes = boardRepository.findPosicoesByEquipeId(equipeId);
+        String rankBoard = rankNoFim(ChecklistOrdemJdbcRepository.Tabela.BOARDS, existentes);
+        int ordemBoard = existentes.size();
+        LocalDateTime agora = LocalDateTime.now();
+
+        List<Object[]> boards = new ArrayList<>();
+        List<Object[]> cards = new ArrayList<>();
+        List<Object[]> itens = new ArrayList<>();
+        List<Object[]> anexos = new ArrayList<>();
+
+        for (ChecklistTemplateDTO.TemplateBoardDTO b : template.getBoards()) {
+            UUID boardId = UUID.randomUUID();
+            boards.add(new Object[]{boardId, b.getNome(), equipeId, ordemBoard++, rankBoard, agora});
+            rankBoard = OrdemRank.entre(rankBoard, null);
+
+            List<ChecklistTemplateDTO.TemplateCardDTO> cardsTemplate = b.getCards() != null ? b.getCards() : List.of();
+            List<String> ranksCards = OrdemRank.distribuir(cardsTemplate.size());
+            for (int i = 0; i < cardsTemplate.size(); i++) {
+                ChecklistTemplateDTO.TemplateCardDTO c = cardsTemplate.get(i);
+                UUID cardId = UUID.randomUUID();
+                cards.add(new Object[]{cardId, boardId, c.getTitulo(), c.getDescricao(),
+                        c.getHorarioAbertura(), c.getHorarioFechamento(), i, ranksCards.get(i)});
+
+                List<String> itensTemplate = c.getItens() != null ? c.getItens() : List.of();
+                List<String> ranksItens = OrdemRank.distribuir(itensTemplate.size());
+                for (int j = 0; j < itensTemplate.size(); j++) {
+                    itens.add(new Object[]{UUID.randomUUID(), cardId, itensTemplate.get(j), j, ranksItens.get(j)});
+                }
+
+                // O arquivo é compartilhado: o anexo clonado aponta para o mesmo blob
+                if (c.getAnexos() != null) {
+                    for (ChecklistAnexoDTO a : c.getAnexos()) {
+                        anexos.add(new Object[]{UUID.randomUUID(), cardId, a.getNomeArquivo(), a.getTipoArquivo(), a.getUrl(), null});
+                    }
+                }
+            }
+        }
+
+        templateJdbcRepository.inserirBoards(boards);
+        templateJdbcRepository.inserirCards(cards);
+        templateJdbcRepository.inserirItens(itens);
+        Map<String, ArquivoBlob> blobs = arquivoBlobService.resolverPorUrl(
+                anexos.stream().map(a -> (String) a[4]).toList());
+        Map<String, Long> novasReferencias = new HashMap<>();
+        for (Object[] a : anexos) {
+            ArquivoBlob blob = blobs.get((String) a[4]);
+            if (blob == null) continue;
+            a[5] = blob.getHash();
+            novasReferencias.merge(blob.getHash(), 1L, Long::sum);
+        }
+        templateJdbcRepository.inserirAnexos(anexos);
+        arquivoBlobService.adicionarReferencias(novasReferencias);
+        return boards.size();
     }
 
     // --- RELATÓRIO DE ATIVIDADES (Admin) ---
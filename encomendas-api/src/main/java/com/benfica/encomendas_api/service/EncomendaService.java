@@ -1,5 +1,6 @@
 package com.benfica.encomendas_api.service;
 
+import com.benfica.encomendas_api.dto.EncomendaEventoDTO;
 import com.benfica.encomendas_api.dto.EncomendaRequestDTO;
 import com.benfica.encomendas_api.dto.EncomendaResponseDTO;
 import com.benfica.encomendas_api.model.*;
@@ -42,6 +43,8 @@ public class EncomendaService {
     private ProdutoRepository produtoRepository;
     @Autowired
     private FornecedorRepository fornecedorRepository;
+    @Autowired
+    private RealtimeGateway realtimeGateway;
 
     @Transactional(readOnly = true)
     public Page<EncomendaResponseDTO> listarEncomendasPorEquipe(UUID equipeId, Pageable pageable) {
@@ -118,7 +121,7 @@ public class EncomendaService {
         encomenda.setItens(itens);
 
         Encomenda salva = encomendaRepository.save(encomenda);
-        return EncomendaResponseDTO.fromEntity(salva);
+        return publicar("CRIADA", equipeId, EncomendaResponseDTO.fromEntity(salva));
     }
 
     // --- MÉTODOS DE GESTÃO DE ESTADO COM HISTÓRICO ---
@@ -140,7 +143,7 @@ public class EncomendaService {
         encomenda.setStatus(novoStatus);
         registrarHistorico(encomenda, novoStatus);
 
-        return EncomendaResponseDTO.fromEntity(encomendaRepository.save(encomenda));
+        return publicar("ATUALIZADA", equipeId, EncomendaResponseDTO.fromEntity(encomendaRepository.save(encomenda)));
     }
 
     @Transactional
@@ -160,7 +163,7 @@ public class EncomendaService {
         encomenda.setStatus(novoStatus);
         registrarHistorico(encomenda, novoStatus);
 
-        return EncomendaResponseDTO.fromEntity(encomendaRepository.save(encomenda));
+        return publicar("ATUALIZADA", equipeId, EncomendaResponseDTO.fromEntity(encomendaRepository.save(encomenda)));
     }
 
     @Transactional
@@ -171,7 +174,7 @@ public class EncomendaService {
         encomenda.setStatus(STATUS_CANCELADO);
         registrarHistorico(encomenda, STATUS_CANCELADO);
 
-        return EncomendaResponseDTO.fromEntity(encomendaRepository.save(encomenda));
+        return publicar("ATUALIZADA", equipeId, EncomendaResponseDTO.fromEntity(encomendaRepository.save(encomenda)));
     }
 
     @Transactional
@@ -182,17 +185,31 @@ public class EncomendaService {
         encomenda.setStatus(STATUS_CRIADA);
         registrarHistorico(encomenda, STATUS_CRIADA);
 
-        return EncomendaResponseDTO.fromEntity(encomendaRepository.save(encomenda));
+        return publicar("ATUALIZADA", equipeId, EncomendaResponseDTO.fromEntity(encomendaRepository.save(encomenda)));
     }
 
     @Transactional
     public void removerEncomenda(UUID id, UUID equipeId) {
         Encomenda encomenda = buscarEValidarEncomenda(id, equipeId);
         encomendaRepository.delete(encomenda);
+        EncomendaEventoDTO evento = EncomendaEventoDTO.builder().acao("REMOVIDA").encomendaId(id).build();
+        AposCommit.executar(() -> realtimeGateway.publicarEquipe("encomendas", equipeId, evento));
     }
 
     // --- MÉTODOS AUXILIARES ---
 
+    // Avisa quem tem o quadro da equipe aberto (/topic/encomendas/{equipeId}) depois do commit
+    private EncomendaResponseDTO publicar(String acao, UUID equipeId, EncomendaResponseDTO dto) {
+        EncomendaEventoDTO evento = EncomendaEventoDTO.builder()
+                .acao(acao)
+                .encomendaId(dto.getId())
+                .status(dto.getStatus())
+                .encomenda(dto)
+                .build();
+        AposCommit.executar(() -> realtimeGateway.publicarEquipe("encomendas", equipeId, evento));
+        return dto;
+    }
+
     private void registrarHistorico(Encomenda encomenda, String status) {
         String usuarioLogado = "Sistema";
         try {
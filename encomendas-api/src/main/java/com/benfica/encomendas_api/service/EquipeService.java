@@ -35,6 +35,15 @@ public class EquipeService {
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private ChatMembrosCache chatMembrosCache;
+
+    @Autowired
+    private EscalaCalendarioCache escalaCalendarioCache;
+
+    @Autowired
+    private EscalaCoberturaService escalaCoberturaService;
+
     // --- LÓGICA DE SEGURANÇA: SUPER ADMIN OU DONO ---
     private void validarPermissaoGestor(Equipe equipe, Usuario usuarioExecutor) {
         boolean isSuperAdmin = "ROLE_SUPER_ADMIN".equals(usuarioExecutor.getRole());
@@ -45,6 +54,14 @@ public class EquipeService {
                     "Você não tem permissão para gerenciar esta equipe.");
         }
     }
+
+    // Mesma regra para quem chama de fora (ex.: templates de checklist entre equipes)
+    @Transactional(readOnly = true)
+    public void verificarGestor(UUID equipeId, Usuario usuarioExecutor) {
+        Equipe equipe = equipeRepository.findById(equipeId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Equipe não encontrada"));
+        validarPermissaoGestor(equipe, usuarioExecutor);
+    }
     // ------------------------------------------------
 
     @Transactional(readOnly = true)
@@ -170,6 +187,23 @@ public class EquipeService {
         }
 
         equipeRepository.save(equipe);
+        chatMembrosCache.invalidarEquipe(equipeId);
+        escalaCalendarioCache.invalidarEquipe(equipeId);
+        escalaCoberturaService.invalidarEquipe(equipeId);
+    }
+
+    @Transactional
+    public void definirRetencaoChat(UUID equipeId, Integer meses, Usuario usuarioExecutor) {
+        Equipe equipe = equipeRepository.findById(equipeId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Equipe não encontrada"));
+
+        validarPermissaoGestor(equipe, usuarioExecutor);
+
+        if (meses != null && meses < 0) {
+            throw new IllegalArgumentException("A retenção do chat não pode ser negativa.");
+        }
+        equipe.setRetencaoChatMeses(meses);
+        equipeRepository.save(equipe);
     }
 
     // --- CONVITES ---
@@ -232,5 +266,8 @@ public class EquipeService {
         Equipe equipe = convite.getEquipe();
         equipe.getMembros().add(novoMembro);
         equipeRepository.save(equipe);
+        chatMembrosCache.invalidarEquipe(equipe.getId());
+        escalaCalendarioCache.invalidarEquipe(equipe.getId());
+        escalaCoberturaService.invalidarEquipe(equipe.getId());
     }
 }
\ No newline at end of file
@@ -0,0 +1,187 @@
+package com.benfica.encomendas_api.service;
+
+import com.benfica.encomendas_api.model.EscalaRecorrente;
+import com.benfica.encomendas_api.model.EscalaTrabalho;
+import com.benfica.encomendas_api.model.TipoEscala;
+import com.benfica.encomendas_api.repository.EscalaRecorrenteRepository;
+import com.benfica.encomendas_api.repository.EscalaTrabalhoRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Calendário de escalas em memória, por equipe e mês.
+ *
+ * Cada membro ocupa um byte[] com um byte por dia (0 = sem escala, senão ordinal de
+ * TipoEscala + 1), já com as recorrências expandidas. O mês é carregado numa única query e mantido pelas escritas do
+ * EscalaTrabalhoService, por isso "trabalha hoje?" não vai à base de dados.
+ *
+ * - Um carregamento que coincide com uma alteração (contador geracao) não fica em cache:
+ *   a leitura pode ter sido feita antes do commit dessa alteração.
+ * - Mudanças de membros (EquipeService) descartam os meses da equipe.
+ * - As alterações seguem pelo {@link RealtimeClusterRelay}; os outros nós descartam os meses.
+ * - Cada mês vale no máximo app.escala.calendario.ttl-ms, o que limita o efeito de uma
+ *   invalidação perdida.
+ */
+@Component
+public class EscalaCalendarioCache {
+
+    private static final TipoEscala[] TIPOS = TipoEscala.values();
+
+    // Meses anteriores a este deslocamento (em relação ao atual) são descartados ao carregar
+    private static final int MESES_RETIDOS = 2;
+
+    @Autowired
+    private EscalaTrabalhoRepository escalaRepository;
+
+    @Autowired
+    private EscalaRecorrenteRepository recorrenteRepository;
+
+    // Lazy, como no ChatMembrosCache: o relay depende do broker STOMP
+    @Lazy
+    @Autowired
+    private RealtimeClusterRelay clusterRelay;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.escala.calendario.ttl-ms:600000}")
+    private long ttlMs;
+
+    private static final String TIPO_INVALIDACAO = "escala-calendario";
+
+    /** Meses a descartar: de uma equipe (equipeId) e/ou de um período (inicio/fim); null = todos. */
+    public record Invalidacao(UUID equipeId, LocalDate inicio, LocalDate fim) {}
+
+    private record ChaveMes(UUID equipeId, YearMonth mes) {}
+
+    private record Calendario(Map<Long, byte[]> dias, long carregadoEm) {}
+
+    // (equipe, mês) -> usuarioId -> tipo de cada dia
+    private final Map<ChaveMes, Calendario> calendarios = new ConcurrentHashMap<>();
+
+    // Avança antes de cada alteração aplicada à memória
+    private final AtomicLong geracao = new AtomicLong();
+
+    public boolean estaTrabalhando(UUID equipeId, Long usuarioId, LocalDate data) {
+        return getTipo(equipeId, usuarioId, data) == TipoEscala.TRABALHO;
+    }
+
+    public TipoEscala getTipo(UUID equipeId, Long usuarioId, LocalDate data) {
+        byte[] dias = calendario(equipeId, YearMonth.from(data)).get(usuarioId);
+        if (dias == null) {
+            // Não é membro desta equipe (ou entrou depois do carregamento): consulta direta
+            EscalaTrabalho escala = escalaRepository.findByUsuarioIdAndData(usuarioId, data);
+            if (escala != null) return escala.getTipo();
+            return recorrenteRepository.findByUsuarioIdInAndPeriodo(List.of(usuarioId), data, data).stream()
+                    .filter(r -> r.aplicaEm(data))
+                    .map(EscalaRecorrente::getTipo)
+                    .findFirst()
+                    .orElse(null);
+        }
+        byte valor = dias[data.getDayOfMonth() - 1];
+        return valor == 0 ? null : TIPOS[valor - 1];
+    }
+
+    // --- ESCRITA (chamada pelo EscalaTrabalhoService; aplicada só após o commit) ---
+
+    // Aqui o dia é corrigido no lugar; nos outros nós o mês é descartado
+    public void registrar(Long usuarioId, LocalDate data, TipoEscala tipo) {
+        AposCommit.executar(() -> {
+            geracao.incrementAndGet();
+            for (Map.Entry<ChaveMes, Calendario> entrada : calendarios.entrySet()) {
+                if (!entrada.getKey().mes().equals(YearMonth.from(data))) continue;
+                byte[] dias = entrada.getValue().dias().get(usuarioId);
+                if (dias != null) dias[data.getDayOfMonth() - 1] = codificar(tipo);
+            }
+            clusterRelay.replicarAlteracao(TIPO_INVALIDACAO, new Invalidacao(null, data, data));
+        });
+    }
+
+    // Escritas em massa: descarta os meses afetados, que voltam a ser carregados sob demanda
+    public void invalidar(LocalDate inicio, LocalDate fim) {
+        invalidarAposCommit(new Invalidacao(null, inicio, fim));
+    }
+
+    // Membros da equipe mudaram
+    public void invalidarEquipe(UUID equipeId) {
+        invalidarAposCommit(new Invalidacao(equipeId, null, null));
+    }
+
+    private void invalidarAposCommit(Invalidacao invalidacao) {
+        AposCommit.executar(() -> {
+            aplicar(invalidacao);
+            clusterRelay.replicarAlteracao(TIPO_INVALIDACAO, invalidacao);
+        });
+    }
+
+    @EventListener
+    public void aoAlterarRemoto(RealtimeClusterRelay.AlteracaoRemota evento) throws JsonProcessingException {
+        if (TIPO_INVALIDACAO.equals(evento.tipo())) aplicar(objectMapper.treeToValue(evento.dados(), Invalidacao.class));
+    }
+
+    private void aplicar(Invalidacao i) {
+        geracao.incrementAndGet();
+        calendarios.keySet().removeIf(chave ->
+                (i.equipeId() == null || i.equipeId().equals(chave.equipeId()))
+                        && (i.inicio() == null || !chave.mes().isBefore(YearMonth.from(i.inicio())))
+                        && (i.fim() == null || !chave.mes().isAfter(YearMonth.from(i.fim()))));
+    }
+
+    // --- CARREGAMENTO ---
+
+    private Map<Long, byte[]> calendario(UUID equipeId, YearMonth mes) {
+        ChaveMes chave = new ChaveMes(equipeId, mes);
+        long agora = System.currentTimeMillis();
+        Calendario atual = calendarios.get(chave);
+        if (atual != null && agora - atual.carregadoEm() <= ttlMs) return atual.dias();
+
+        long antes = geracao.get();
+        Calendario novo = new Calendario(carregar(equipeId, mes), agora);
+        calendarios.put(chave, novo);
+        // Houve alteração durante a leitura: serve este pedido, mas não fica em cache
+        if (geracao.get() != antes) calendarios.remove(chave, novo);
+
+        YearMonth limite = YearMonth.now().minusMonths(MESES_RETIDOS);
+        calendarios.keySet().removeIf(c -> c.mes().isBefore(limite));
+        return novo.dias();
+    }
+
+    private Map<Long, byte[]> carregar(UUID equipeId, YearMonth mes) {
+        List<Object[]> linhas = escalaRepository.findCalendarioEquipe(equipeId, mes.atDay(1), mes.atEndOfMonth());
+        Map<Long, byte[]> calendario = new HashMap<>();
+        for (Object[] linha : linhas) {
+            byte[] dias = calendario.computeIfAbsent((Long) linha[0], id -> new byte[mes.lengthOfMonth()]);
+            if (linha[1] != null) {
+                dias[((LocalDate) linha[1]).getDayOfMonth() - 1] = codificar((TipoEscala) linha[2]);
+            }
+        }
+
+        // Recorrências (a mais recente primeiro) só preenchem os dias sem exceção
+        for (EscalaRecorrente r : recorrenteRepository.findByEquipeIdAndPeriodo(equipeId, mes.atDay(1), mes.atEndOfMonth())) {
+            byte[] dias = calendario.get(r.getUsuario().getId());
+            if (dias == null) continue;
+            for (int d = 0; d < dias.length; d++) {
+                if (dias[d] == 0 && r.aplicaEm(mes.atDay(d + 1))) dias[d] = codificar(r.getTipo());
+            }
+        }
+        return calendario;
+    }
+
+    private static byte codificar(TipoEscala tipo) {
+        return tipo == null ? 0 : (byte) (tipo.ordinal() + 1);
+    }
+}
@@ -0,0 +1,242 @@
+package com.benfica.encomendas_api.service;
+
+import com.benfica.encomendas_api.dto.EscalaCoberturaDTO;
+import com.benfica.encomendas_api.model.EscalaRecorrente;
+import com.benfica.encomendas_api.model.TipoEscala;
+import com.benfica.encomendas_api.repository.EscalaRecorrenteRepository;
+import com.benfica.encomendas_api.repository.EscalaTrabalhoRepository;
+import com.benfica.encomendas_api.service.EscalaCalendarioCache.Invalidacao;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cobertura de pessoal por equipe: quantas pessoas estão escaladas por dia e por hora.
+ *
+ * O histograma de cada (equipe, mês) é calculado por varrimento dos intervalos
+ * horarioInicio/horarioFim (array de diferenças por dia) e fica em cache. Uma escala
+ * individual recalcula só o dia afetado; replicações e recorrências descartam os meses.
+ *
+ * A consistência segue o EscalaCalendarioCache. Um carregamento que coincide com uma
+ * alteração não fica em cache. Mudanças de membros descartam os meses da equipe. As
+ * alterações seguem pelo relay para os outros nós, e cada mês expira ao fim de
+ * app.escala.cobertura.ttl-ms.
+ */
+@Service
+public class EscalaCoberturaService {
+
+    private static final int HORAS = 24;
+
+    @Autowired
+    private EscalaTrabalhoRepository escalaRepository;
+
+    @Autowired
+    private EscalaRecorrenteRepository recorrenteRepository;
+
+    // Lazy, como no ChatMembrosCache: o relay depende do broker STOMP
+    @Lazy
+    @Autowired
+    private RealtimeClusterRelay clusterRelay;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.escala.cobertura.ttl-ms:600000}")
+    private long ttlMs;
+
+    @Value("${app.escala.cobertura.minimo-dia:2}")
+    private int minimoDiaPadrao;
+
+    @Value("${app.escala.cobertura.minimo-hora:1}")
+    private int minimoHoraPadrao;
+
+    @Value("${app.escala.cobertura.hora-abertura:8}")
+    private int horaAbertura;
+
+    @Value("${app.escala.cobertura.hora-fecho:18}")
+    private int horaFecho;
+
+    private static final String TIPO_INVALIDACAO = "escala-cobertura";
+
+    private record ChaveMes(UUID equipeId, YearMonth mes) {}
+
+    private static class Cobertura {
+        final int[][] porHora;
+        final int[] porDia;
+        // Todos os membros no carregamento, com ou sem escala (a grade vem por LEFT JOIN)
+        final Set<Long> membros = new HashSet<>();
+        final long carregadaEm = System.currentTimeMillis();
+
+        Cobertura(int dias) {
+            porHora = new int[dias][HORAS];
+            porDia = new int[dias];
+        }
+    }
+
+    private final Map<ChaveMes, Cobertura> cache = new ConcurrentHashMap<>();
+
+    // Avança antes de cada alteração aplicada à memória
+    private final AtomicLong geracao = new AtomicLong();
+
+    @Transactional(readOnly = true)
+    public EscalaCoberturaDTO getCobertura(UUID equipeId, YearMonth mes, Integer minimoDia, Integer minimoHora) {
+        Cobertura c = cobertura(equipeId, mes);
+
+        int minDia = minimoDia != null ? minimoDia : minimoDiaPadrao;
+        int minHora = minimoHora != null ? minimoHora : minimoHoraPadrao;
+        List<EscalaCoberturaDTO.AlertaDTO> alertas = new ArrayList<>();
+
+        synchronized (c) {
+            for (int d = 0; d < c.porDia.length; d++) {
+                LocalDate data = mes.atDay(d + 1);
+                if (c.porDia[d] < minDia) {
+                    alertas.add(new EscalaCoberturaDTO.AlertaDTO(data, null, c.porDia[d], minDia));
+                    continue; // dia já sinalizado; não repete por hora
+                }
+                for (int h = horaAbertura; h < horaFecho; h++) {
+                    if (c.porHora[d][h] < minHora) {
+                        alertas.add(new EscalaCoberturaDTO.AlertaDTO(data, h, c.porHora[d][h], minHora));
+                    }
+                }
+            }
+
+            return EscalaCoberturaDTO.builder()
+                    .mes(mes.toString())
+                    .dias(c.porDia.length)
+                    .porHora(Arrays.stream(c.porHora).map(int[]::clone).toArray(int[][]::new))
+                    .porDia(c.porDia.clone())
+                    .alertas(alertas)
+                    .build();
+        }
+    }
+
+    // --- ATUALIZAÇÃO INCREMENTAL (chamada pelo EscalaTrabalhoService, aplicada após o commit) ---
+
+    // Só as equipes de que o usuário era membro no carregamento; quem entra depois
+    // descarta os meses da equipe (invalidarEquipe). Nos outros nós o mês é descartado
+    public void recalcularDia(Long usuarioId, LocalDate data) {
+        AposCommit.executar(() -> {
+            geracao.incrementAndGet();
+            cache.forEach((chave, c) -> {
+                if (!chave.mes().equals(YearMonth.from(data)) || !c.membros.contains(usuarioId)) return;
+                synchronized (c) {
+                    int d = data.getDayOfMonth() - 1;
+                    Arrays.fill(c.porHora[d], 0);
+                    c.porDia[d] = 0;
+                    acumular(chave.equipeId(), data, data, c);
+                }
+            });
+            clusterRelay.replicarAlteracao(TIPO_INVALIDACAO, new Invalidacao(null, data, data));
+        });
+    }
+
+    public void invalidar(LocalDate inicio, LocalDate fim) {
+        invalidarAposCommit(new Invalidacao(null, inicio, fim));
+    }
+
+    // Membros da equipe mudaram
+    public void invalidarEquipe(UUID equipeId) {
+        invalidarAposCommit(new Invalidacao(equipeId, null, null));
+    }
+
+    private void invalidarAposCommit(Invalidacao invalidacao) {
+        AposCommit.executar(() -> {
+            aplicar(invalidacao);
+            clusterRelay.replicarAlteracao(TIPO_INVALIDACAO, invalidacao);
+        });
+    }
+
+    @EventListener
+    public void aoAlterarRemoto(RealtimeClusterRelay.AlteracaoRemota evento) throws JsonProcessingException {
+        if (TIPO_INVALIDACAO.equals(evento.tipo())) aplicar(objectMapper.treeToValue(evento.dados(), Invalidacao.class));
+    }
+
+    private void aplicar(Invalidacao i) {
+        geracao.incrementAndGet();
+        cache.keySet().removeIf(chave ->
+                (i.equipeId() == null || i.equipeId().equals(chave.equipeId()))
+                        && (i.inicio() == null || !chave.mes().isBefore(YearMonth.from(i.inicio())))
+                        && (i.fim() == null || !chave.mes().isAfter(YearMonth.from(i.fim()))));
+    }
+
+    // Carrega fora do mapa (sem bloquear a entrada) e só guarda se nada mudou entretanto
+    private Cobertura cobertura(UUID equipeId, YearMonth mes) {
+        ChaveMes chave = new ChaveMes(equipeId, mes);
+        Cobertura atual = cache.get(chave);
+        if (atual != null && System.currentTimeMillis() - atual.carregadaEm <= ttlMs) return atual;
+
+        long antes = geracao.get();
+        Cobertura nova = new Cobertura(mes.lengthOfMonth());
+        acumular(equipeId, mes.atDay(1), mes.atEndOfMonth(), nova);
+        cache.put(chave, nova);
+        if (geracao.get() != antes) cache.remove(chave, nova);
+        return nova;
+    }
+
+    // --- VARRIMENTO ---
+
+    /** Soma ao histograma os dias [inicio, fim] (mesmo mês): exceções primeiro, recorrências nos restantes. */
+    private void acumular(UUID equipeId, LocalDate inicio, LocalDate fim, Cobertura c) {
+        int dias = fim.getDayOfMonth() - inicio.getDayOfMonth() + 1;
+        // usuarioId -> turno de cada dia do intervalo (null = sem escala)
+        Map<Long, Object[][]> turnos = new HashMap<>();
+
+        for (Object[] r : escalaRepository.findGradeEquipe(equipeId, inicio, fim)) {
+            Object[][] dia = turnos.computeIfAbsent((Long) r[0], id -> new Object[dias][]);
+            if (r[2] != null) {
+                dia[((LocalDate) r[2]).getDayOfMonth() - inicio.getDayOfMonth()] = new Object[]{r[3], r[4], r[5]};
+            }
+        }
+        for (EscalaRecorrente rec : recorrenteRepository.findByEquipeIdAndPeriodo(equipeId, inicio, fim)) {
+            Object[][] dia = turnos.get(rec.getUsuario().getId());
+            if (dia == null) continue;
+            for (int i = 0; i < dias; i++) {
+                if (dia[i] == null && rec.aplicaEm(inicio.plusDays(i))) {
+                    dia[i] = new Object[]{rec.getTipo(), rec.getHorarioInicio(), rec.getHorarioFim()};
+                }
+            }
+        }
+
+        c.membros.addAll(turnos.keySet());
+        int[][] diferencas = new int[dias][HORAS + 1];
+        for (Object[][] dia : turnos.values()) {
+            for (int i = 0; i < dias; i++) {
+                if (dia[i] == null || dia[i][0] != TipoEscala.TRABALHO) continue;
+                c.porDia[inicio.getDayOfMonth() - 1 + i]++;
+
+                LocalTime entrada = (LocalTime) dia[i][1];
+                LocalTime saida = (LocalTime) dia[i][2];
+                if (entrada == null || saida == null) continue;
+
+                // Conta toda a faixa horária tocada; turnos que passam da meia-noite ficam até às 24h
+                int de = entrada.getHour();
+                int ate = saida.isAfter(entrada)
+                        ? saida.getHour() + (saida.getMinute() > 0 || saida.getSecond() > 0 ? 1 : 0)
+                        : HORAS;
+                diferencas[i][de]++;
+                diferencas[i][ate]--;
+            }
+        }
+
+        for (int i = 0; i < dias; i++) {
+            int[] horas = c.porHora[inicio.getDayOfMonth() - 1 + i];
+            int acumulado = 0;
+            for (int h = 0; h < HORAS; h++) {
+                acumulado += diferencas[i][h];
+                horas[h] = acumulado;
+            }
+        }
+    }
+}
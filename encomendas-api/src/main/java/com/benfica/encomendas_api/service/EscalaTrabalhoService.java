@@ -1,10 +1,16 @@
 package com.benfica.encomendas_api.service;
 
+import com.benfica.encomendas_api.dto.EscalaGradeEquipeDTO;
+import com.benfica.encomendas_api.dto.EscalaRecorrenciaDTO;
 import com.benfica.encomendas_api.dto.EscalaReplicacaoDTO;
 import com.benfica.encomendas_api.dto.EscalaReplicacaoMassaDTO;
 import com.benfica.encomendas_api.dto.EscalaTrabalhoDTO;
+import com.benfica.encomendas_api.model.EscalaRecorrente;
 import com.benfica.encomendas_api.model.EscalaTrabalho;
+import com.benfica.encomendas_api.model.TipoEscala;
 import com.benfica.encomendas_api.model.Usuario;
+import com.benfica.encomendas_api.repository.EscalaRecorrenteRepository;
+import com.benfica.encomendas_api.repository.EscalaTrabalhoJdbcRepository;
 import com.benfica.encomendas_api.repository.EscalaTrabalhoRepository;
 import com.benfica.encomendas_api.repository.UsuarioRepository;
 import jakarta.persistence.EntityNotFoundException;
@@ -13,25 +19,104 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class EscalaTrabalhoService {
 
+    private static final DateTimeFormatter HORA = DateTimeFormatter.ofPattern("HH:mm");
+
     @Autowired
     private EscalaTrabalhoRepository escalaRepository;
 
+    @Autowired
+    private EscalaTrabalhoJdbcRepository escalaJdbcRepository;
+
+    @Autowired
+    private EscalaRecorrenteRepository recorrenteRepository;
+
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private EscalaCalendarioCache calendarioCache;
+
+    @Autowired
+    private EscalaCoberturaService coberturaService;
+
     // --- LEITURA ---
+    // Junta as exceções (escala_trabalho) com as recorrências expandidas em memória
     @Transactional(readOnly = true)
     public List<EscalaTrabalhoDTO> getEscalas(Long usuarioId, LocalDate inicio, LocalDate fim) {
-        List<EscalaTrabalho> escalas = escalaRepository.findByUsuarioIdAndDataBetween(usuarioId, inicio, fim);
-        return escalas.stream().map(this::toDTO).collect(Collectors.toList());
+        Map<LocalDate, EscalaTrabalhoDTO> porDia = new TreeMap<>();
+        for (EscalaRecorrente r : recorrenteRepository.findByUsuarioIdInAndPeriodo(List.of(usuarioId), inicio, fim)) {
+            expandir(r, inicio, fim, dto -> porDia.putIfAbsent(dto.getData(), dto));
+        }
+        for (EscalaTrabalho e : escalaRepository.findByUsuarioIdAndDataBetween(usuarioId, inicio, fim)) {
+            porDia.put(e.getData(), toDTO(e));
+        }
+        return new ArrayList<>(porDia.values());
+    }
+
+    // --- GRADE MENSAL DA EQUIPE (1 query para os dias gravados + 1 para as recorrências) ---
+    @Transactional(readOnly = true)
+    public EscalaGradeEquipeDTO getGradeEquipe(UUID equipeId, YearMonth mes) {
+        LocalDate inicio = mes.atDay(1);
+        LocalDate fim = mes.atEndOfMonth();
+        int dias = mes.lengthOfMonth();
+
+        // Ordem de chegada = ordem das linhas da grade
+        Map<Long, Integer> linhaPorUsuario = new LinkedHashMap<>();
+        List<String> nomes = new ArrayList<>();
+        List<int[]> tipos = new ArrayList<>();
+        List<String[]> horarios = new ArrayList<>();
+
+        for (Object[] r : escalaRepository.findGradeEquipe(equipeId, inicio, fim)) {
+            Long usuarioId = (Long) r[0];
+            Integer linha = linhaPorUsuario.get(usuarioId);
+            if (linha == null) {
+                linha = nomes.size();
+                linhaPorUsuario.put(usuarioId, linha);
+                nomes.add((String) r[1]);
+                tipos.add(new int[dias]);
+                horarios.add(new String[dias]);
+            }
+            if (r[2] == null) continue;
+            int d = ((LocalDate) r[2]).getDayOfMonth() - 1;
+            tipos.get(linha)[d] = ((TipoEscala) r[3]).ordinal() + 1;
+            horarios.get(linha)[d] = formatarHorario((LocalTime) r[4], (LocalTime) r[5]);
+        }
+
+        // Recorrências preenchem os dias sem exceção (a mais recente primeiro)
+        for (EscalaRecorrente rec : recorrenteRepository.findByEquipeIdAndPeriodo(equipeId, inicio, fim)) {
+            Integer linha = linhaPorUsuario.get(rec.getUsuario().getId());
+            if (linha == null) continue;
+            for (int d = 0; d < dias; d++) {
+                if (tipos.get(linha)[d] != 0 || !rec.aplicaEm(mes.atDay(d + 1))) continue;
+                tipos.get(linha)[d] = rec.getTipo().ordinal() + 1;
+                horarios.get(linha)[d] = formatarHorario(rec.getHorarioInicio(), rec.getHorarioFim());
+            }
+        }
+
+        return EscalaGradeEquipeDTO.builder()
+                .mes(mes.toString())
+                .dias(dias)
+                .legenda(Arrays.stream(TipoEscala.values()).map(Enum::name).collect(Collectors.toList()))
+                .usuarioIds(linhaPorUsuario.keySet().stream().mapToLong(Long::longValue).toArray())
+                .nomes(nomes.toArray(new String[0]))
+                .tipos(tipos.toArray(new int[0][]))
+                .horarios(horarios.toArray(new String[0][]))
+                .build();
+    }
+
+    private static String formatarHorario(LocalTime inicio, LocalTime fim) {
+        if (inicio == null || fim == null) return null;
+        return HORA.format(inicio) + "-" + HORA.format(fim);
     }
 
     // --- SALVAR (Upsert: Cria ou Atualiza) ---
@@ -57,96 +142,139 @@ public class EscalaTrabalhoService {
         escala.setObservacao(dto.getObservacao());
 
         EscalaTrabalho salva = escalaRepository.save(escala);
+        calendarioCache.registrar(usuario.getId(), salva.getData(), salva.getTipo());
+        coberturaService.recalcularDia(usuario.getId(), salva.getData());
         return toDTO(salva);
     }
 
-    // --- REPLICAÇÃO (Upsert em lote) ---
+    // --- REPLICAÇÃO (Upsert set-based: INSERT ... ON CONFLICT numa única instrução) ---
     @Transactional
     public void replicarEscala(EscalaReplicacaoDTO dto) {
-        Usuario usuario = usuarioRepository.findById(dto.getUsuarioId())
-                .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado"));
-
-        // Pré-carrega todas as escalas do período de uma só vez (evita N SELECT por dia)
-        Map<LocalDate, EscalaTrabalho> existentes = escalaRepository
-                .findByUsuarioIdAndDataBetween(usuario.getId(), dto.getDataInicio(), dto.getDataFim())
-                .stream()
-                .collect(Collectors.toMap(EscalaTrabalho::getData, e -> e));
-
-        List<EscalaTrabalho> paraSalvar = new ArrayList<>();
-        LocalDate atual = dto.getDataInicio();
-
-        while (!atual.isAfter(dto.getDataFim())) {
-            // getDayOfWeek().getValue(): 1=Segunda ... 7=Domingo (compatível com o front)
-            if (dto.getDiasSemana().contains(atual.getDayOfWeek().getValue())) {
-                EscalaTrabalho escala = existentes.getOrDefault(atual, null);
+        if (!usuarioRepository.existsById(dto.getUsuarioId())) {
+            throw new EntityNotFoundException("Usuário não encontrado");
+        }
 
-                if (escala == null) {
-                    escala = new EscalaTrabalho();
-                    escala.setUsuario(usuario);
-                    escala.setData(atual);
-                }
+        escalaJdbcRepository.upsertPeriodo(List.of(dto.getUsuarioId()), dto.getDataInicio(), dto.getDataFim(),
+                dto.getDiasSemana(), dto.getHorarioInicio(), dto.getHorarioFim(), dto.getTipo(), dto.getObservacao());
+        calendarioCache.invalidar(dto.getDataInicio(), dto.getDataFim());
+        coberturaService.invalidar(dto.getDataInicio(), dto.getDataFim());
+    }
 
-                escala.setTipo(dto.getTipo());
-                escala.setHorarioInicio(dto.getHorarioInicio());
-                escala.setHorarioFim(dto.getHorarioFim());
-                escala.setObservacao(dto.getObservacao());
+    // --- REPLICAÇÃO EM MASSA (múltiplos utilizadores) ---
+    // Os dias são gerados no Postgres; nenhuma EscalaTrabalho é carregada nem criada em memória
+    @Transactional
+    public void replicarEscalaMassa(EscalaReplicacaoMassaDTO dto) {
+        int linhas = escalaJdbcRepository.upsertPeriodo(dto.getUsuarioIds(), dto.getDataInicio(), dto.getDataFim(),
+                dto.getDiasSemana(), dto.getHorarioInicio(), dto.getHorarioFim(), dto.getTipo(), dto.getObservacao());
 
-                paraSalvar.add(escala);
-            }
-            atual = atual.plusDays(1);
+        if (linhas == 0 && usuarioRepository.findAllById(dto.getUsuarioIds()).isEmpty()) {
+            throw new EntityNotFoundException("Nenhum usuário encontrado");
         }
+        calendarioCache.invalidar(dto.getDataInicio(), dto.getDataFim());
+        coberturaService.invalidar(dto.getDataInicio(), dto.getDataFim());
+    }
 
-        if (!paraSalvar.isEmpty()) {
-            escalaRepository.saveAll(paraSalvar);
-        }
+    // --- RECORRÊNCIAS (padrão guardado uma vez, expandido na leitura) ---
+
+    @Transactional(readOnly = true)
+    public List<EscalaRecorrenciaDTO> listarRecorrencias(Long usuarioId) {
+        return recorrenteRepository.findByUsuarioIdOrderByDataInicioDesc(usuarioId).stream()
+                .map(this::toRecorrenciaDTO)
+                .collect(Collectors.toList());
     }
 
-    // --- REPLICAÇÃO EM MASSA (múltiplos utilizadores) ---
+    /**
+     * Cria uma recorrência por usuário. Os dias já materializados no período (nos mesmos
+     * dias da semana) são removidos, para que a nova regra prevaleça como na replicação.
+     */
     @Transactional
-    public void replicarEscalaMassa(EscalaReplicacaoMassaDTO dto) {
+    public List<EscalaRecorrenciaDTO> criarRecorrencia(EscalaReplicacaoMassaDTO dto) {
+        if (dto.getDataInicio() == null || dto.getDataFim() == null || dto.getDataFim().isBefore(dto.getDataInicio())) {
+            throw new IllegalArgumentException("Período da recorrência inválido");
+        }
+        if (dto.getDiasSemana() == null || dto.getDiasSemana().isEmpty()) {
+            throw new IllegalArgumentException("Informe pelo menos um dia da semana");
+        }
+        // A máscara usa um bit por dia: fora de 1..7 o shift gravaria bits sem significado
+        if (dto.getDiasSemana().stream().anyMatch(dia -> dia == null || dia < 1 || dia > 7)) {
+            throw new IllegalArgumentException("Dias da semana devem estar entre 1 (segunda) e 7 (domingo)");
+        }
         List<Usuario> usuarios = usuarioRepository.findAllById(dto.getUsuarioIds());
         if (usuarios.isEmpty()) {
             throw new EntityNotFoundException("Nenhum usuário encontrado");
         }
 
-        // Pré-carrega TODAS as escalas existentes de TODOS os utilizadores no período (1 query)
-        Map<String, EscalaTrabalho> existentes = escalaRepository
-                .findByUsuarioIdInAndDataBetween(dto.getUsuarioIds(), dto.getDataInicio(), dto.getDataFim())
-                .stream()
-                .collect(Collectors.toMap(
-                        e -> e.getUsuario().getId() + "_" + e.getData(),
-                        e -> e
-                ));
-
-        List<EscalaTrabalho> paraSalvar = new ArrayList<>();
+        int mascara = 0;
+        for (Integer dia : dto.getDiasSemana()) mascara |= 1 << (dia - 1);
 
+        List<EscalaRecorrente> novas = new ArrayList<>();
         for (Usuario usuario : usuarios) {
-            LocalDate atual = dto.getDataInicio();
-            while (!atual.isAfter(dto.getDataFim())) {
-                if (dto.getDiasSemana().contains(atual.getDayOfWeek().getValue())) {
-                    String chave = usuario.getId() + "_" + atual;
-                    EscalaTrabalho escala = existentes.get(chave);
-
-                    if (escala == null) {
-                        escala = new EscalaTrabalho();
-                        escala.setUsuario(usuario);
-                        escala.setData(atual);
-                    }
-
-                    escala.setTipo(dto.getTipo());
-                    escala.setHorarioInicio(dto.getHorarioInicio());
-                    escala.setHorarioFim(dto.getHorarioFim());
-                    escala.setObservacao(dto.getObservacao());
-
-                    paraSalvar.add(escala);
-                }
-                atual = atual.plusDays(1);
-            }
+            novas.add(EscalaRecorrente.builder()
+                    .usuario(usuario)
+                    .dataInicio(dto.getDataInicio())
+                    .dataFim(dto.getDataFim())
+                    .diasSemana(mascara)
+                    .horarioInicio(dto.getHorarioInicio())
+                    .horarioFim(dto.getHorarioFim())
+                    .tipo(dto.getTipo())
+                    .observacao(dto.getObservacao())
+                    .build());
+        }
+        List<EscalaRecorrente> salvas = recorrenteRepository.saveAll(novas);
+
+        escalaJdbcRepository.removerPeriodo(
+                usuarios.stream().map(Usuario::getId).collect(Collectors.toList()),
+                dto.getDataInicio(), dto.getDataFim(), dto.getDiasSemana());
+        calendarioCache.invalidar(dto.getDataInicio(), dto.getDataFim());
+        coberturaService.invalidar(dto.getDataInicio(), dto.getDataFim());
+
+        return salvas.stream().map(this::toRecorrenciaDTO).collect(Collectors.toList());
+    }
+
+    @Transactional
+    public void excluirRecorrencia(Long id) {
+        EscalaRecorrente recorrente = recorrenteRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Recorrência não encontrada"));
+        recorrenteRepository.delete(recorrente);
+        calendarioCache.invalidar(recorrente.getDataInicio(), recorrente.getDataFim());
+        coberturaService.invalidar(recorrente.getDataInicio(), recorrente.getDataFim());
+    }
+
+    // Gera um DTO por dia do período coberto pela recorrência (limitado a [inicio, fim])
+    private void expandir(EscalaRecorrente r, LocalDate inicio, LocalDate fim, Consumer<EscalaTrabalhoDTO> destino) {
+        LocalDate dia = r.getDataInicio().isAfter(inicio) ? r.getDataInicio() : inicio;
+        LocalDate ultimo = r.getDataFim().isBefore(fim) ? r.getDataFim() : fim;
+        for (; !dia.isAfter(ultimo); dia = dia.plusDays(1)) {
+            if (!r.aplicaEm(dia)) continue;
+            destino.accept(EscalaTrabalhoDTO.builder()
+                    .usuarioId(r.getUsuario().getId())
+                    .nomeUsuario(r.getUsuario().getNomeCompleto())
+                    .data(dia)
+                    .horarioInicio(r.getHorarioInicio())
+                    .horarioFim(r.getHorarioFim())
+                    .tipo(r.getTipo())
+                    .observacao(r.getObservacao())
+                    .recorrenciaId(r.getId())
+                    .build());
         }
+    }
 
-        if (!paraSalvar.isEmpty()) {
-            escalaRepository.saveAll(paraSalvar);
+    private EscalaRecorrenciaDTO toRecorrenciaDTO(EscalaRecorrente r) {
+        List<Integer> dias = new ArrayList<>();
+        for (int d = 1; d <= 7; d++) {
+            if ((r.getDiasSemana() & (1 << (d - 1))) != 0) dias.add(d);
         }
+        return EscalaRecorrenciaDTO.builder()
+                .id(r.getId())
+                .usuarioId(r.getUsuario().getId())
+                .dataInicio(r.getDataInicio())
+                .dataFim(r.getDataFim())
+                .diasSemana(dias)
+                .horarioInicio(r.getHorarioInicio())
+                .horarioFim(r.getHorarioFim())
+                .tipo(r.getTipo())
+                .observacao(r.getObservacao())
+                .build();
     }
 
     // --- MAPPER ---
@@ -1,6 +1,8 @@
 package com.benfica.encomendas_api.service;
 
+import com.benfica.encomendas_api.dto.ChecklistAnexoDTO;
 import com.benfica.encomendas_api.dto.MensagemAnexoDTO;
+import com.benfica.encomendas_api.model.ArquivoBlob;
 import com.benfica.encomendas_api.model.TipoAnexo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,8 +11,8 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.Optional;
 import java.util.Set;
-import java.util.UUID;
 
 @Service
 public class FileUploadService {
@@ -21,35 +23,56 @@ public class FileUploadService {
             "jpg", "jpeg", "png", "gif", "webp", "pdf", "doc", "docx", "xls", "xlsx", "txt"
     );
 
-    private final StorageService storageService;
+    private final ArquivoBlobService arquivoBlobService;
 
-    public FileUploadService(StorageService storageService) {
-        this.storageService = storageService;
+    public FileUploadService(ArquivoBlobService arquivoBlobService) {
+        this.arquivoBlobService = arquivoBlobService;
     }
 
+    /**
+     * Guarda o ficheiro no armazenamento endereçado pelo conteúdo (partilhado com a checklist):
+     * se o mesmo conteúdo já foi enviado, reutiliza o blob existente.
+     */
     public MensagemAnexoDTO uploadChatFile(MultipartFile file) throws IOException {
         validateFile(file);
 
         String originalFilename = StringUtils.cleanPath(file.getOriginalFilename());
-        String nomeArquivo = UUID.randomUUID() + "_" + originalFilename;
-
-        String url = storageService.store(
-                "chat",
-                nomeArquivo,
-                file.getInputStream(),
-                file.getSize(),
-                file.getContentType()
-        );
-
-        TipoAnexo tipoAnexo = detectTipoAnexo(file.getContentType());
+        ArquivoBlob blob = arquivoBlobService.armazenar(file, extensao(originalFilename));
 
         return MensagemAnexoDTO.builder()
                 .nomeArquivo(originalFilename)
-                .tipoArquivo(tipoAnexo.name())
-                .url(url)
+                .tipoArquivo(detectTipoAnexo(blob.getContentType()).name())
+                .url(blob.getUrl())
+                .miniaturaUrl(blob.getMiniaturaUrl() != null ? blob.getMiniaturaUrl() : blob.getUrl())
+                .exibicaoUrl(blob.getExibicaoUrl() != null ? blob.getExibicaoUrl() : blob.getUrl())
+                .build();
+    }
+
+    public ChecklistAnexoDTO uploadChecklistFile(MultipartFile file) throws IOException {
+        MensagemAnexoDTO anexo = uploadChatFile(file);
+        return ChecklistAnexoDTO.builder()
+                .nomeArquivo(anexo.getNomeArquivo())
+                .tipoArquivo(anexo.getTipoArquivo())
+                .url(anexo.getUrl())
+                .miniaturaUrl(anexo.getMiniaturaUrl())
+                .exibicaoUrl(anexo.getExibicaoUrl())
                 .build();
     }
 
+    /**
+     * Consulta por SHA-256 antes do upload: se o conteúdo já existir num anexo visível ao
+     * usuário, o cliente usa a URL devolvida e não envia o ficheiro.
+     */
+    public Optional<MensagemAnexoDTO> buscarPorHash(String sha256, Long usuarioId) {
+        return arquivoBlobService.buscar(sha256, usuarioId)
+                .map(blob -> MensagemAnexoDTO.builder()
+                        .tipoArquivo(detectTipoAnexo(blob.getContentType()).name())
+                        .url(blob.getUrl())
+                        .miniaturaUrl(blob.getMiniaturaUrl() != null ? blob.getMiniaturaUrl() : blob.getUrl())
+                        .exibicaoUrl(blob.getExibicaoUrl() != null ? blob.getExibicaoUrl() : blob.getUrl())
+                        .build());
+    }
+
     private void validateFile(MultipartFile file) {
         if (file.isEmpty()) {
             throw new IllegalArgumentException("Ficheiro está vazio.");
@@ -66,16 +89,17 @@ public class FileUploadService {
             throw new IllegalArgumentException("Nome do ficheiro contém caracteres inválidos.");
         }
 
-        String ext = "";
-        int dotIdx = originalFilename.lastIndexOf('.');
-        if (dotIdx > 0) {
-            ext = originalFilename.substring(dotIdx + 1).toLowerCase();
-        }
+        String ext = extensao(originalFilename);
         if (!ALLOWED_EXTENSIONS.contains(ext)) {
             throw new IllegalArgumentException("Tipo de ficheiro não permitido: " + ext);
         }
     }
 
+    private String extensao(String filename) {
+        int dotIdx = filename.lastIndexOf('.');
+        return dotIdx > 0 ? filename.substring(dotIdx + 1).toLowerCase() : "";
+    }
+
     private TipoAnexo detectTipoAnexo(String contentType) {
         if (contentType == null) return TipoAnexo.DOC;
         if (contentType.startsWith("image/")) return TipoAnexo.IMG;
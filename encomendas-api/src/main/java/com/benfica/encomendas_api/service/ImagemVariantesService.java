@@ -0,0 +1,256 @@
+package com.benfica.encomendas_api.service;
+
+import com.benfica.encomendas_api.model.ArquivoBlob;
+import com.benfica.encomendas_api.repository.ArquivoBlobRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gera, em segundo plano, as variantes de imagens enviadas como anexo:
+ * miniatura (lado maior app.imagens.miniatura-px) e exibição (lado maior
+ * app.imagens.exibicao-px), ambas em JPEG comprimido, em blobs/{hash}_mini.jpg e
+ * blobs/{hash}_exib.jpg.
+ *
+ * - É disparado depois do commit de um blob novo; como os blobs são endereçados pelo
+ *   conteúdo, cada imagem é processada uma única vez, seja qual for o número de anexos.
+ * - Pool limitado (app.imagens.workers threads, fila app.imagens.fila-max): uma foto de
+ *   10 MB descomprimida ocupa dezenas de MB, por isso o paralelismo é baixo de propósito.
+ *   Se a fila encher a tarefa é largada e a varredura periódica volta a apanhá-la.
+ * - As dimensões são lidas do cabeçalho antes de descomprimir: acima de
+ *   app.imagens.max-pixels a imagem é lida com subamostragem (a memória fica limitada
+ *   mesmo para "bombas" de descompressão) e acima de app.imagens.limite-pixels nem é lida.
+ * - Enquanto não há variantes, os DTOs usam a URL do original. Se a imagem não puder
+ *   ser lida (sem leitor no ImageIO, ficheiro corrompido, grande demais), as variantes
+ *   ficam a apontar para o original e não há novas tentativas. Falhas de I/O do storage
+ *   não gravam nada: a varredura periódica volta a tentar.
+ */
+@Service
+public class ImagemVariantesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImagemVariantesService.class);
+
+    private static final String SUBDIR = "blobs";
+    // GIF fica de fora: redimensionar perde a animação
+    private static final Set<String> TIPOS_SUPORTADOS = Set.of("image/jpeg", "image/png", "image/bmp");
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private ArquivoBlobRepository blobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.imagens.workers:2}")
+    private int workers;
+
+    @Value("${app.imagens.fila-max:200}")
+    private int filaMax;
+
+    @Value("${app.imagens.miniatura-px:320}")
+    private int miniaturaPx;
+
+    @Value("${app.imagens.exibicao-px:1600}")
+    private int exibicaoPx;
+
+    @Value("${app.imagens.qualidade-miniatura:0.7}")
+    private float qualidadeMiniatura;
+
+    @Value("${app.imagens.qualidade-exibicao:0.8}")
+    private float qualidadeExibicao;
+
+    @Value("${app.imagens.max-pixels:16000000}")
+    private long maxPixels;
+
+    @Value("${app.imagens.limite-pixels:200000000}")
+    private long limitePixels;
+
+    private ThreadPoolExecutor executor;
+    // Evita processar o mesmo hash duas vezes em paralelo (upload + varredura)
+    private final Set<String> emCurso = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void iniciar() {
+        AtomicInteger seq = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(filaMax), r -> {
+                    Thread t = new Thread(r, "imagem-variantes-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    void parar() {
+        executor.shutdownNow();
+    }
+
+    public boolean suporta(String contentType) {
+        return contentType != null && TIPOS_SUPORTADOS.contains(contentType.toLowerCase());
+    }
+
+    /** Agenda a geração das variantes depois do commit do blob. */
+    public void agendar(ArquivoBlob blob) {
+        if (!suporta(blob.getContentType())) return;
+        String hash = blob.getHash();
+        String url = blob.getUrl();
+        AposCommit.executar(() -> submeter(hash, url));
+    }
+
+    // Rede de segurança: tarefas largadas (fila cheia) ou perdidas num restart
+    @Scheduled(fixedDelayString = "${app.imagens.varredura-ms:300000}")
+    public void processarPendentes() {
+        LocalDateTime limite = LocalDateTime.now().minusMinutes(1);
+        for (ArquivoBlob blob : blobRepository.findSemVariantes(TIPOS_SUPORTADOS, limite)) {
+            submeter(blob.getHash(), blob.getUrl());
+        }
+    }
+
+    private void submeter(String hash, String url) {
+        if (!emCurso.add(hash)) return;
+        try {
+            executor.execute(() -> {
+                try {
+                    gerar(hash, url);
+                } finally {
+                    emCurso.remove(hash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            emCurso.remove(hash);
+            logger.warn("Fila de variantes de imagem cheia; {} fica para a próxima varredura.", hash);
+        }
+    }
+
+    private void gerar(String hash, String url) {
+        String nomeOriginal = url.substring(url.lastIndexOf('/') + 1);
+        String miniatura = url;
+        String exibicao = url;
+
+        try {
+            BufferedImage original = ler(hash, nomeOriginal);
+            if (original != null) {
+                miniatura = gravar(hash + "_mini.jpg", redimensionar(original, miniaturaPx), qualidadeMiniatura);
+                exibicao = gravar(hash + "_exib.jpg", redimensionar(original, exibicaoPx), qualidadeExibicao);
+            }
+        } catch (IIOException | RuntimeException e) {
+            logger.warn("Imagem {} ilegível ({}); mantém-se o original.", hash, e.getMessage());
+        } catch (IOException e) {
+            // Storage indisponível: nada é gravado e a varredura volta a tentar
+            logger.warn("Falha de I/O ao gerar variantes da imagem {}; nova tentativa na próxima varredura: {}", hash, e.getMessage());
+            return;
+        }
+
+        String urlMiniatura = miniatura;
+        String urlExibicao = exibicao;
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                blobRepository.registrarVariantes(hash, urlMiniatura, urlExibicao));
+    }
+
+    /**
+     * Lê a imagem com o tamanho descomprimido limitado: as dimensões vêm do cabeçalho e,
+     * acima de maxPixels, só uma em cada N linhas/colunas é descodificada.
+     * Devolve null quando não há leitor para o formato ou a imagem passa do limite.
+     */
+    private BufferedImage ler(String hash, String nomeOriginal) throws IOException {
+        try (InputStream in = storageService.load(SUBDIR, nomeOriginal);
+             ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> leitores = iis != null ? ImageIO.getImageReaders(iis) : null;
+            if (leitores == null || !leitores.hasNext()) {
+                logger.info("Imagem {} num formato que não é possível ler; mantém-se o original.", hash);
+                return null;
+            }
+
+            ImageReader reader = leitores.next();
+            try {
+                reader.setInput(iis, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > limitePixels) {
+                    logger.warn("Imagem {} com {} pixels acima do limite; mantém-se o original.", hash, pixels);
+                    return null;
+                }
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (pixels > maxPixels) {
+                    int passo = (int) Math.ceil(Math.sqrt((double) pixels / maxPixels));
+                    param.setSourceSubsampling(passo, passo, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Reduz para caber em lado x lado mantendo a proporção (nunca amplia); fundo branco para PNG com transparência
+    private BufferedImage redimensionar(BufferedImage original, int lado) {
+        double escala = Math.min(1.0, (double) lado / Math.max(original.getWidth(), original.getHeight()));
+        int largura = Math.max(1, (int) Math.round(original.getWidth() * escala));
+        int altura = Math.max(1, (int) Math.round(original.getHeight() * escala));
+
+        BufferedImage destino = new BufferedImage(largura, altura, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = destino.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, largura, altura);
+            g.drawImage(original, 0, 0, largura, altura, null);
+        } finally {
+            g.dispose();
+        }
+        return destino;
+    }
+
+    private String gravar(String nome, BufferedImage imagem, float qualidade) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(qualidade);
+            writer.write(null, new IIOImage(imagem, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        byte[] conteudo = bytes.toByteArray();
+        return storageService.store(SUBDIR, nome, new ByteArrayInputStream(conteudo), conteudo.length, "image/jpeg");
+    }
+}
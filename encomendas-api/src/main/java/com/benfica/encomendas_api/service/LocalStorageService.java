@@ -39,4 +39,22 @@ public class LocalStorageService implements StorageService {
 
         return "/uploads/" + subdir + "/" + filename;
     }
+
+    @Override
+    public String move(String subdir, String origem, String destino) throws IOException {
+        Path uploadPath = Paths.get(uploadDir, subdir);
+        Files.move(uploadPath.resolve(origem), uploadPath.resolve(destino),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return "/uploads/" + subdir + "/" + destino;
+    }
+
+    @Override
+    public InputStream load(String subdir, String filename) throws IOException {
+        return Files.newInputStream(Paths.get(uploadDir, subdir).resolve(filename));
+    }
+
+    @Override
+    public void delete(String subdir, String filename) throws IOException {
+        Files.deleteIfExists(Paths.get(uploadDir, subdir).resolve(filename));
+    }
 }
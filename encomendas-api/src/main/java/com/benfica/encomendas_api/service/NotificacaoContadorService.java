@@ -0,0 +1,129 @@
+package com.benfica.encomendas_api.service;
+
+import com.benfica.encomendas_api.repository.NotificacaoRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Notificações não lidas por usuário, mantidas em memória para o /count e para o push.
+ *
+ * - Criação: +1 por destinatário; leitura: -1; ler todas / limpar: 0. Tudo após o commit.
+ * - Em cluster os ajustes seguem pelo {@link RealtimeClusterRelay} e cada nó aplica-os aos
+ *   contadores que tem em memória.
+ * - Em falta na memória, o valor vem do COUNT (índice por destinatário).
+ * - Periodicamente é reconciliado com o COUNT (cobre ajustes perdidos, ex.: relay em baixo);
+ *   contadores parados há mais de app.notificacoes.contadores.inativo-ms saem da memória.
+ */
+@Service
+public class NotificacaoContadorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificacaoContadorService.class);
+
+    @Autowired
+    private NotificacaoRepository notificacaoRepository;
+
+    // Lazy, como no ChatMembrosCache: o relay depende do broker STOMP
+    @Lazy
+    @Autowired
+    private RealtimeClusterRelay clusterRelay;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.notificacoes.contadores.inativo-ms:1800000}")
+    private long inativoMs;
+
+    private static class Contador {
+        final AtomicLong valor;
+        volatile long ultimoAcesso = System.currentTimeMillis();
+
+        Contador(long inicial) {
+            valor = new AtomicLong(inicial);
+        }
+    }
+
+    private final Map<Long, Contador> contadores = new ConcurrentHashMap<>();
+
+    private static final String TIPO_AJUSTE = "notificacao-contador";
+
+    /** Ajuste enviado aos outros nós; zerar = true põe os contadores a 0 em vez de somar delta. */
+    public record Ajuste(List<Long> usuarioIds, long delta, boolean zerar) {}
+
+    public long getTotal(Long usuarioId) {
+        Contador c = contadores.computeIfAbsent(usuarioId,
+                id -> new Contador(notificacaoRepository.countByDestinatarioIdAndLidaFalse(id)));
+        c.ultimoAcesso = System.currentTimeMillis();
+        return c.valor.get();
+    }
+
+    public void incrementar(Collection<Long> usuarioIds) {
+        if (usuarioIds.isEmpty()) return;
+        aplicarEReplicar(new Ajuste(List.copyOf(usuarioIds), 1, false));
+    }
+
+    public void decrementar(Long usuarioId) {
+        aplicarEReplicar(new Ajuste(List.of(usuarioId), -1, false));
+    }
+
+    public void zerar(Long usuarioId) {
+        aplicarEReplicar(new Ajuste(List.of(usuarioId), 0, true));
+    }
+
+    private void aplicarEReplicar(Ajuste ajuste) {
+        AposCommit.executar(() -> {
+            aplicar(ajuste);
+            clusterRelay.replicarAlteracao(TIPO_AJUSTE, ajuste);
+        });
+    }
+
+    @EventListener
+    public void aoAlterarRemoto(RealtimeClusterRelay.AlteracaoRemota evento) throws JsonProcessingException {
+        if (TIPO_AJUSTE.equals(evento.tipo())) aplicar(objectMapper.treeToValue(evento.dados(), Ajuste.class));
+    }
+
+    // Só ajusta contadores já em memória; os restantes serão lidos do COUNT quando pedidos
+    private void aplicar(Ajuste ajuste) {
+        for (Long usuarioId : ajuste.usuarioIds()) {
+            Contador c = contadores.get(usuarioId);
+            if (c == null) continue;
+            if (ajuste.zerar()) {
+                c.valor.set(0);
+            } else {
+                c.valor.updateAndGet(v -> Math.max(0, v + ajuste.delta()));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.notificacoes.contadores.reconciliar-ms:300000}")
+    public void reconciliar() {
+        long limite = System.currentTimeMillis() - inativoMs;
+        for (Map.Entry<Long, Contador> entrada : contadores.entrySet()) {
+            Contador c = entrada.getValue();
+            if (c.ultimoAcesso < limite) {
+                contadores.remove(entrada.getKey(), c);
+                continue;
+            }
+
+            long antes = c.valor.get();
+            long exato = notificacaoRepository.countByDestinatarioIdAndLidaFalse(entrada.getKey());
+            // Se mudou durante a query, fica para a próxima volta
+            if (antes != exato && c.valor.compareAndSet(antes, exato)) {
+                logger.debug("Contador de notificações corrigido [{}]: {} -> {}", entrada.getKey(), antes, exato);
+            }
+        }
+    }
+}
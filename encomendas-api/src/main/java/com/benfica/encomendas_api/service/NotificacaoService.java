@@ -1,24 +1,46 @@
 package com.benfica.encomendas_api.service;
 
+import com.benfica.encomendas_api.dto.CursorNotificacao;
 import com.benfica.encomendas_api.dto.NotificacaoDTO;
+import com.benfica.encomendas_api.dto.NotificacaoEventoDTO;
+import com.benfica.encomendas_api.dto.NotificacaoPaginaDTO;
 import com.benfica.encomendas_api.model.Equipe;
 import com.benfica.encomendas_api.model.Notificacao;
 import com.benfica.encomendas_api.model.Usuario;
 import com.benfica.encomendas_api.repository.EquipeRepository;
+import com.benfica.encomendas_api.repository.NotificacaoJdbcRepository;
+import com.benfica.encomendas_api.repository.NotificacaoJdbcRepository.NotificacaoCriada;
 import com.benfica.encomendas_api.repository.NotificacaoRepository;
 import com.benfica.encomendas_api.repository.UsuarioRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
 public class NotificacaoService {
 
+    private static final Logger logger = LoggerFactory.getLogger(NotificacaoService.class);
+
     @Autowired
     private NotificacaoRepository notificacaoRepository;
 
@@ -28,45 +50,120 @@ public class NotificacaoService {
     @Autowired
     private EquipeRepository equipeRepository;
 
-    @Transactional(readOnly = true)
-    public List<NotificacaoDTO> getNotificacoes(Long usuarioId) {
-        return notificacaoRepository.findByDestinatarioIdOrderByDataEnvioDesc(usuarioId)
-                .stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+    @Autowired
+    private RealtimeGateway realtimeGateway;
+
+    @Autowired
+    private NotificacaoJdbcRepository notificacaoJdbcRepository;
+
+    @Autowired
+    private NotificacaoContadorService contadorService;
+
+    @Autowired
+    private RealtimeSseService sseService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.notificacoes.fanout.async-acima:500}")
+    private long fanoutAsyncAcima;
+
+    @Value("${app.notificacoes.fanout.fila-max:50}")
+    private int fanoutFilaMax;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void iniciar() {
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fanoutFilaMax), r -> {
+                    Thread t = new Thread(r, "notificacoes-fanout");
+                    t.setDaemon(true);
+                    return t;
+                });
     }
 
+    @PreDestroy
+    void parar() {
+        executor.shutdown();
+    }
+
+    // Mais recentes primeiro, por cursor (sem cursor = primeira página)
     @Transactional(readOnly = true)
+    public NotificacaoPaginaDTO getNotificacoes(Long usuarioId, String cursor, int limite) {
+        Pageable pagina = PageRequest.of(0, Math.max(1, Math.min(limite, 100)));
+        Slice<Notificacao> slice;
+        if (cursor != null) {
+            CursorNotificacao c = CursorNotificacao.decodificar(cursor);
+            slice = notificacaoRepository.findAntes(usuarioId, c.dataEnvio(), c.id(), pagina);
+        } else {
+            slice = notificacaoRepository.findRecentes(usuarioId, pagina);
+        }
+
+        List<Notificacao> lista = slice.getContent();
+        String proximo = null;
+        if (slice.hasNext()) {
+            Notificacao ultima = lista.get(lista.size() - 1);
+            proximo = new CursorNotificacao(ultima.getDataEnvio(), ultima.getId()).codificar();
+        }
+        return NotificacaoPaginaDTO.builder()
+                .notificacoes(lista.stream().map(this::toDTO).collect(Collectors.toList()))
+                .temMais(slice.hasNext())
+                .proximoCursor(proximo)
+                .build();
+    }
+
+    // Servido da memória (NotificacaoContadorService)
     public long getContadorNaoLidas(Long usuarioId) {
-        return notificacaoRepository.countByDestinatarioIdAndLidaFalse(usuarioId);
+        return contadorService.getTotal(usuarioId);
+    }
+
+    /** Stream SSE (alternativa ao WebSocket); o primeiro evento traz o total de não lidas. */
+    public SseEmitter abrirStream(Long usuarioId) {
+        SseEmitter emitter = sseService.abrir(usuarioId);
+        sseService.enviar(usuarioId, "/queue/notificacoes", new NotificacaoEventoDTO(null, contadorService.getTotal(usuarioId)));
+        return emitter;
     }
 
     @Transactional
     public void marcarTodasLidas(Long usuarioId) {
         notificacaoRepository.marcarTodasLidas(usuarioId);
+        contadorService.zerar(usuarioId);
+        publicarContador(usuarioId);
     }
 
     @Transactional
     public void limparNotificacoes(Long usuarioId) {
         notificacaoRepository.deleteAllByDestinatarioId(usuarioId);
+        contadorService.zerar(usuarioId);
+        publicarContador(usuarioId);
     }
 
     @Transactional
     public void marcarLida(UUID notificacaoId) {
         Notificacao n = notificacaoRepository.findById(notificacaoId)
                 .orElseThrow(() -> new EntityNotFoundException("Notificação não encontrada"));
+        if (n.isLida()) return;
         n.setLida(true);
         notificacaoRepository.save(n);
+        Long usuarioId = n.getDestinatario().getId();
+        contadorService.decrementar(usuarioId);
+        publicarContador(usuarioId);
     }
 
     /**
      * Admin manda notificação para um usuário específico ou para toda a equipe (destinatarioId == null).
+     * Para a equipe é um único INSERT ... SELECT; acima de app.notificacoes.fanout.async-acima
+     * membros corre em segundo plano.
+     *
+     * @return true se o envio para a equipe ficou agendado (ainda não gravado)
      */
     @Transactional
-    public void enviarNotificacao(UUID equipeId, Long destinatarioId, Long remetenteId,
-                                   String titulo, String mensagem) {
-        Equipe equipe = equipeRepository.findById(equipeId)
-                .orElseThrow(() -> new EntityNotFoundException("Equipe não encontrada"));
+    public boolean enviarNotificacao(UUID equipeId, Long destinatarioId, Long remetenteId,
+                                     String titulo, String mensagem) {
+        if (!equipeRepository.existsById(equipeId)) {
+            throw new EntityNotFoundException("Equipe não encontrada");
+        }
 
         Usuario remetente = null;
         if (remetenteId != null) {
@@ -78,14 +175,22 @@ public class NotificacaoService {
             // Enviar para usuário específico
             Usuario dest = usuarioRepository.findById(destinatarioId)
                     .orElseThrow(() -> new EntityNotFoundException("Destinatário não encontrado"));
-            criarNotificacao(equipe, dest, remetente, titulo, mensagem, null);
-        } else {
-            // Enviar para toda a equipe
-            final Usuario finalRemetente = remetente;
-            equipe.getMembros().forEach(membro ->
-                    criarNotificacao(equipe, membro, finalRemetente, titulo, mensagem, null)
-            );
+            criarNotificacao(equipeRepository.getReferenceById(equipeId), dest, remetente, titulo, mensagem, null);
+            return false;
+        }
+
+        // Enviar para toda a equipe
+        String remetenteNome = remetente != null ? remetente.getNomeCompleto() : null;
+        if (equipeRepository.countMembros(equipeId) > fanoutAsyncAcima) {
+            try {
+                executor.execute(() -> difundirEmSegundoPlano(equipeId, remetenteId, remetenteNome, titulo, mensagem));
+                return true;
+            } catch (RejectedExecutionException e) {
+                logger.warn("Fila de envio de notificações cheia; equipe {} notificada no próprio pedido.", equipeId);
+            }
         }
+        entregar(notificacaoJdbcRepository.inserirParaMembros(equipeId, remetenteId, remetenteNome, titulo, mensagem));
+        return false;
     }
 
     /**
@@ -96,28 +201,39 @@ public class NotificacaoService {
         if (notificacaoRepository.existsByChaveDedup(chaveDedup)) {
             return; // Already notified
         }
+        if (!equipeRepository.existsById(equipeId)) {
+            throw new EntityNotFoundException("Equipe não encontrada");
+        }
 
-        Equipe equipe = equipeRepository.findById(equipeId)
-                .orElseThrow(() -> new EntityNotFoundException("Equipe não encontrada"));
-
-        List<Usuario> admins = equipe.getMembros().stream()
-                .filter(u -> "ROLE_ADMIN".equals(u.getRole()) || "ROLE_SUPER_ADMIN".equals(u.getRole()))
-                .collect(Collectors.toList());
+        entregar(notificacaoJdbcRepository.inserirParaAdmins(equipeId, titulo, mensagem, chaveDedup));
+    }
 
-        // Include the team administrator if not already in list
-        Usuario administrador = equipe.getAdministrador();
-        boolean adminJaIncluso = admins.stream().anyMatch(u -> u.getId().equals(administrador.getId()));
-        if (!adminJaIncluso) {
-            admins.add(administrador);
+    private void difundirEmSegundoPlano(UUID equipeId, Long remetenteId, String remetenteNome,
+                                        String titulo, String mensagem) {
+        try {
+            List<NotificacaoCriada> criadas = new TransactionTemplate(transactionManager).execute(status ->
+                    notificacaoJdbcRepository.inserirParaMembros(equipeId, remetenteId, remetenteNome, titulo, mensagem));
+            entregar(criadas);
+            logger.info("Notificação \"{}\" enviada a {} membros da equipe {}.", titulo, criadas.size(), equipeId);
+        } catch (Exception e) {
+            logger.error("Falha ao enviar notificação para a equipe {}: {}", equipeId, e.getMessage());
         }
+    }
 
-        // Use chaveDedup only on the first notification to prevent duplicates
-        boolean primeiraNotif = true;
-        for (Usuario admin : admins) {
-            String chave = primeiraNotif ? chaveDedup : null;
-            criarNotificacao(equipe, admin, null, titulo, mensagem, chave);
-            primeiraNotif = false;
-        }
+    // Entrega imediata a quem está ligado (/user/queue/notificacoes e SSE), depois do commit
+    private void entregar(List<NotificacaoCriada> criadas) {
+        contadorService.incrementar(criadas.stream().map(NotificacaoCriada::destinatarioId).toList());
+        AposCommit.executar(() -> criadas.forEach(c -> publicar(c.destinatarioId(), c.notificacao())));
+    }
+
+    // Depois do ajuste do contador (registado antes em AposCommit), o total já está atualizado
+    private void publicar(Long usuarioId, NotificacaoDTO notificacao) {
+        realtimeGateway.publicarUsuario(usuarioId, "notificacoes",
+                new NotificacaoEventoDTO(notificacao, contadorService.getTotal(usuarioId)));
+    }
+
+    private void publicarContador(Long usuarioId) {
+        AposCommit.executar(() -> publicar(usuarioId, null));
     }
 
     private void criarNotificacao(Equipe equipe, Usuario dest, Usuario remetente,
@@ -130,7 +246,10 @@ public class NotificacaoService {
                 .mensagem(mensagem)
                 .chaveDedup(chaveDedup)
                 .build();
-        notificacaoRepository.save(n);
+        NotificacaoDTO dto = toDTO(notificacaoRepository.save(n));
+        contadorService.incrementar(List.of(dest.getId()));
+        // Entrega imediata a quem está ligado (/user/queue/notificacoes e SSE); os restantes veem-na ao abrir a lista
+        AposCommit.executar(() -> publicar(dest.getId(), dto));
     }
 
     private NotificacaoDTO toDTO(Notificacao n) {
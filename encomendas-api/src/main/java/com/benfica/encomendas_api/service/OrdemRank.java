@@ -0,0 +1,91 @@
+package com.benfica.encomendas_api.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chaves de ordenação fracionárias (lexicográficas, base 36: 0-9a-z).
+ *
+ * Entre duas chaves existe sempre uma terceira, por isso mover um elemento
+ * só altera a linha desse elemento. As chaves nunca terminam em '0' (o menor dígito),
+ * o que garante espaço entre quaisquer duas chaves distintas.
+ */
+public final class OrdemRank {
+
+    private static final String ALFABETO = "0123456789abcdefghijklmnopqrstuvwxyz";
+    private static final int BASE = ALFABETO.length();
+
+    // Acima disto a lista é renumerada (coluna rank_ordem tem 64 caracteres)
+    public static final int TAMANHO_MAXIMO = 48;
+
+    private OrdemRank() {
+    }
+
+    /**
+     * Chave estritamente entre {@code anterior} e {@code posterior} (null = início/fim da lista).
+     * Retorna null quando as chaves são inválidas ou a nova chave ficaria longa demais;
+     * nesse caso quem chama deve renumerar a lista.
+     */
+    public static String entre(String anterior, String posterior) {
+        String a = anterior != null ? anterior : "";
+        String b = posterior;
+        if (!valida(a) || (b != null && (b.isEmpty() || !valida(b)))) return null;
+        if (b != null && a.compareTo(b) >= 0) return null;
+
+        StringBuilder chave = new StringBuilder();
+        for (int i = 0; chave.length() < TAMANHO_MAXIMO; i++) {
+            int da = i < a.length() ? ALFABETO.indexOf(a.charAt(i)) : 0;
+            int db = (b != null && i < b.length()) ? ALFABETO.indexOf(b.charAt(i)) : BASE;
+
+            if (db - da > 1) {
+                chave.append(ALFABETO.charAt((da + db) / 2));
+                return chave.toString();
+            }
+            chave.append(ALFABETO.charAt(da));
+            // A partir daqui o prefixo já é menor que 'posterior': só 'anterior' limita
+            if (da < db) b = null;
+        }
+        return null;
+    }
+
+    /**
+     * Gera {@code quantidade} chaves crescentes e equidistantes (para renumeração em lote).
+     */
+    public static List<String> distribuir(int quantidade) {
+        List<String> chaves = new ArrayList<>(quantidade);
+        if (quantidade <= 0) return chaves;
+
+        // Largura mínima que deixa pelo menos BASE posições livres entre chaves vizinhas
+        int largura = 2;
+        long espaco = (long) BASE * BASE;
+        while (espaco / (quantidade + 1) < BASE && largura < 10) {
+            largura++;
+            espaco *= BASE;
+        }
+        long passo = espaco / (quantidade + 1);
+
+        for (int i = 1; i <= quantidade; i++) {
+            chaves.add(codificar(passo * i, largura));
+        }
+        return chaves;
+    }
+
+    private static String codificar(long valor, int largura) {
+        char[] digitos = new char[largura];
+        for (int i = largura - 1; i >= 0; i--) {
+            digitos[i] = ALFABETO.charAt((int) (valor % BASE));
+            valor /= BASE;
+        }
+        // Zeros à direita não alteram a ordem e violariam o invariante de 'entre'
+        int fim = largura;
+        while (fim > 1 && digitos[fim - 1] == '0') fim--;
+        return new String(digitos, 0, fim);
+    }
+
+    private static boolean valida(String chave) {
+        for (int i = 0; i < chave.length(); i++) {
+            if (ALFABETO.indexOf(chave.charAt(i)) < 0) return false;
+        }
+        return chave.isEmpty() || chave.charAt(chave.length() - 1) != '0';
+    }
+}
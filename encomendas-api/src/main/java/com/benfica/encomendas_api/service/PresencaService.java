@@ -0,0 +1,293 @@
+package com.benfica.encomendas_api.service;
+
+import com.benfica.encomendas_api.dto.DigitandoPrivadoDTO;
+import com.benfica.encomendas_api.dto.PresencaEquipeDTO;
+import com.benfica.encomendas_api.repository.EquipeRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Presença ("online") e indicador "a escrever…" do chat, só em memória.
+ *
+ * - Cada sessão STOMP guarda o último instante em que foi vista (CONNECT, heartbeat
+ *   /app/presenca.ping ou qualquer ação). Não há timers por usuário: a varredura periódica
+ *   expira sessões sem sinal há mais de app.presenca.ttl-ms e "a escrever" com mais de
+ *   app.presenca.digitando-ms.
+ * - As mudanças só marcam a equipe como alterada; a varredura publica no máximo um
+ *   snapshot por equipe por intervalo em /topic/presence/{equipeId}, e só se mudou.
+ * - Uma sessão só conta para uma equipe de que o usuário é membro ou administrador
+ *   (verificado quando a equipe da sessão muda, não em cada ping).
+ * - O snapshot da equipe só traz "a escrever" do grupo. Nas conversas privadas o início
+ *   e o fim seguem só para o outro participante, em /user/queue/digitando.
+ *
+ * Em cluster cada nó só conhece as próprias sessões: envia o seu estado local pelo
+ * {@link RealtimeClusterRelay} quando muda (e a cada meio TTL, para não expirar nos outros)
+ * e junta-o ao estado recebido dos outros nós. O snapshot unido é publicado só às sessões
+ * locais, já que cada nó monta o seu.
+ */
+@Service
+public class PresencaService {
+
+    @Autowired
+    private RealtimeGateway realtimeGateway;
+
+    @Autowired
+    private RealtimeClusterRelay clusterRelay;
+
+    @Autowired
+    private EquipeRepository equipeRepository;
+
+    @Autowired
+    private ChatMembrosCache membrosCache;
+
+    @Value("${app.presenca.ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${app.presenca.digitando-ms:6000}")
+    private long digitandoMs;
+
+    private static final class Sessao {
+        final Long usuarioId;
+        volatile UUID equipeId;
+        volatile long vistaEm;
+
+        Sessao(Long usuarioId, UUID equipeId, long vistaEm) {
+            this.usuarioId = usuarioId;
+            this.equipeId = equipeId;
+            this.vistaEm = vistaEm;
+        }
+    }
+
+    private record Digitacao(UUID equipeId, UUID conversaId, Long usuarioId) {}
+
+    // sessionId -> sessão
+    private final Map<String, Sessao> sessoes = new ConcurrentHashMap<>();
+    // destinatarioId: o outro participante numa conversa privada; null no grupo
+    private record EstadoDigitacao(long expiraEm, Long destinatarioId) {}
+
+    // (equipe, conversa, usuário) -> estado
+    private final Map<Digitacao, EstadoDigitacao> digitando = new ConcurrentHashMap<>();
+
+    private record EstadoRemoto(PresencaEquipeDTO estado, long recebidoEm) {}
+
+    // equipeId -> (nó -> último estado local recebido desse nó)
+    private final Map<UUID, Map<String, EstadoRemoto>> remotos = new ConcurrentHashMap<>();
+
+    private final Set<UUID> alteradas = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, PresencaEquipeDTO> ultimosSnapshots = new ConcurrentHashMap<>();
+
+    // Último estado local enviado aos outros nós, e quando
+    private final Map<UUID, PresencaEquipeDTO> ultimosEnviados = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> enviadosEm = new ConcurrentHashMap<>();
+
+    /** CONNECT (equipeId pode vir no header nativo) ou heartbeat. */
+    public void registrar(String sessionId, Long usuarioId, UUID equipeId) {
+        Sessao atual = sessoes.get(sessionId);
+        UUID equipe = equipeId;
+        if (equipe != null && (atual == null || !equipe.equals(atual.equipeId))
+                && !equipeRepository.isParticipante(equipe, usuarioId)) {
+            equipe = null;
+        }
+
+        long agora = System.currentTimeMillis();
+        UUID inicial = equipe;
+        Sessao sessao = sessoes.computeIfAbsent(sessionId, id -> new Sessao(usuarioId, inicial, agora));
+        sessao.vistaEm = agora;
+        if (equipe != null && !equipe.equals(sessao.equipeId)) {
+            if (sessao.equipeId != null) alteradas.add(sessao.equipeId);
+            sessao.equipeId = equipe;
+        }
+        if (sessao.equipeId != null) alteradas.add(sessao.equipeId);
+    }
+
+    public void desconectar(String sessionId) {
+        Sessao sessao = sessoes.remove(sessionId);
+        if (sessao != null && sessao.equipeId != null) alteradas.add(sessao.equipeId);
+    }
+
+    // Fecho abrupto (sem frame DISCONNECT) também chega aqui
+    @EventListener
+    public void aoDesligar(SessionDisconnectEvent evento) {
+        desconectar(evento.getSessionId());
+    }
+
+    /** O usuário está a escrever na conversa (o cliente repete enquanto escreve). */
+    public void digitando(String sessionId, UUID conversaId) {
+        Sessao sessao = sessoes.get(sessionId);
+        if (sessao == null || sessao.equipeId == null) return;
+        ChatMembrosCache.MembrosConversa membros = membrosDaConversa(sessao, conversaId);
+        if (membros == null) return;
+
+        long agora = System.currentTimeMillis();
+        sessao.vistaEm = agora;
+        Long destinatarioId = membros.grupo() ? null : membros.destinatarios(sessao.usuarioId).stream().findFirst().orElse(null);
+        Digitacao chave = new Digitacao(sessao.equipeId, conversaId, sessao.usuarioId);
+        EstadoDigitacao anterior = digitando.put(chave, new EstadoDigitacao(agora + digitandoMs, destinatarioId));
+        if (anterior == null) avisar(chave, destinatarioId, true);
+    }
+
+    public void pararDigitar(String sessionId, UUID conversaId) {
+        Sessao sessao = sessoes.get(sessionId);
+        if (sessao == null || sessao.equipeId == null) return;
+        Digitacao chave = new Digitacao(sessao.equipeId, conversaId, sessao.usuarioId);
+        EstadoDigitacao anterior = digitando.remove(chave);
+        if (anterior != null) avisar(chave, anterior.destinatarioId(), false);
+    }
+
+    // Grupo: entra no próximo snapshot da equipe. Privado: só o outro participante sabe
+    private void avisar(Digitacao d, Long destinatarioId, boolean ativo) {
+        if (destinatarioId == null) {
+            alteradas.add(d.equipeId());
+        } else {
+            realtimeGateway.publicarUsuario(destinatarioId, "digitando",
+                    new DigitandoPrivadoDTO(d.conversaId(), d.usuarioId(), ativo));
+        }
+    }
+
+    public PresencaEquipeDTO getSnapshot(UUID equipeId) {
+        long agora = System.currentTimeMillis();
+        return unir(montarSnapshot(equipeId, agora), equipeId, agora);
+    }
+
+    /** Estado local de outro nó, recebido pelo relay. */
+    @EventListener
+    public void aoReceberRemoto(RealtimeClusterRelay.PresencaRemota evento) {
+        remotos.computeIfAbsent(evento.equipeId(), id -> new ConcurrentHashMap<>())
+                .put(evento.no(), new EstadoRemoto(evento.estado(), System.currentTimeMillis()));
+        alteradas.add(evento.equipeId());
+    }
+
+    @Scheduled(fixedDelayString = "${app.presenca.intervalo-ms:1000}")
+    public void publicarAlteracoes() {
+        long agora = System.currentTimeMillis();
+
+        sessoes.entrySet().removeIf(e -> {
+            boolean expirada = agora - e.getValue().vistaEm > ttlMs;
+            if (expirada && e.getValue().equipeId != null) alteradas.add(e.getValue().equipeId);
+            return expirada;
+        });
+        digitando.entrySet().removeIf(e -> {
+            boolean expirada = e.getValue().expiraEm() < agora;
+            if (expirada) avisar(e.getKey(), e.getValue().destinatarioId(), false);
+            return expirada;
+        });
+
+        // Nós que deixaram de enviar (parados ou sem rede) saem ao fim do TTL
+        remotos.forEach((equipeId, porNo) -> {
+            if (porNo.values().removeIf(r -> agora - r.recebidoEm() > ttlMs)) alteradas.add(equipeId);
+            if (porNo.isEmpty()) remotos.remove(equipeId, porNo);
+        });
+
+        if (clusterRelay.isAtivo()) {
+            // Reenvio periódico do estado local para os outros nós não o expirarem
+            enviadosEm.forEach((equipeId, em) -> {
+                if (agora - em > ttlMs / 2) alteradas.add(equipeId);
+            });
+        }
+
+        for (UUID equipeId : alteradas) {
+            alteradas.remove(equipeId);
+            PresencaEquipeDTO local = montarSnapshot(equipeId, agora);
+            if (clusterRelay.isAtivo()) enviarLocal(equipeId, local, agora);
+
+            PresencaEquipeDTO snapshot = unir(local, equipeId, agora);
+            if (snapshot.equals(ultimosSnapshots.get(equipeId))) continue;
+
+            if (snapshot.getOnline().isEmpty() && snapshot.getDigitando().isEmpty()) {
+                ultimosSnapshots.remove(equipeId);
+            } else {
+                ultimosSnapshots.put(equipeId, snapshot);
+            }
+            realtimeGateway.publicarEquipeLocal("presence", equipeId, snapshot);
+        }
+    }
+
+    // Envia quando muda ou quando o último envio tem mais de meio TTL; um estado vazio vai uma vez
+    private void enviarLocal(UUID equipeId, PresencaEquipeDTO local, long agora) {
+        boolean vazio = local.getOnline().isEmpty() && local.getDigitando().isEmpty();
+        boolean mudou = !local.equals(ultimosEnviados.get(equipeId));
+        Long em = enviadosEm.get(equipeId);
+        if (!mudou && em != null && agora - em <= ttlMs / 2) return;
+        if (vazio && !ultimosEnviados.containsKey(equipeId)) return;
+
+        clusterRelay.replicarPresenca(equipeId, local);
+        if (vazio) {
+            ultimosEnviados.remove(equipeId);
+            enviadosEm.remove(equipeId);
+        } else {
+            ultimosEnviados.put(equipeId, local);
+            enviadosEm.put(equipeId, agora);
+        }
+    }
+
+    // Junta o estado local ao dos outros nós (listas ordenadas e sem repetidos)
+    private PresencaEquipeDTO unir(PresencaEquipeDTO local, UUID equipeId, long agora) {
+        Map<String, EstadoRemoto> porNo = remotos.get(equipeId);
+        if (porNo == null || porNo.isEmpty()) return local;
+
+        Set<Long> online = new TreeSet<>(local.getOnline());
+        Map<UUID, Set<Long>> digitandoUnido = new TreeMap<>();
+        local.getDigitando().forEach((c, ids) -> digitandoUnido.computeIfAbsent(c, k -> new TreeSet<>()).addAll(ids));
+        for (EstadoRemoto r : porNo.values()) {
+            if (agora - r.recebidoEm() > ttlMs) continue;
+            if (r.estado().getOnline() != null) online.addAll(r.estado().getOnline());
+            if (r.estado().getDigitando() != null) {
+                r.estado().getDigitando().forEach((c, ids) -> digitandoUnido.computeIfAbsent(c, k -> new TreeSet<>()).addAll(ids));
+            }
+        }
+
+        Map<UUID, List<Long>> porConversa = new TreeMap<>();
+        digitandoUnido.forEach((c, ids) -> porConversa.put(c, new ArrayList<>(ids)));
+        return PresencaEquipeDTO.builder()
+                .equipeId(equipeId)
+                .online(new ArrayList<>(online))
+                .digitando(porConversa)
+                .build();
+    }
+
+    // "A escrever" só em conversas da equipe da sessão em que o usuário participa (null se não)
+    private ChatMembrosCache.MembrosConversa membrosDaConversa(Sessao sessao, UUID conversaId) {
+        try {
+            ChatMembrosCache.MembrosConversa membros = membrosCache.get(conversaId);
+            return sessao.equipeId.equals(membros.equipeId()) && membros.participa(sessao.usuarioId) ? membros : null;
+        } catch (EntityNotFoundException e) {
+            return null;
+        }
+    }
+
+    private PresencaEquipeDTO montarSnapshot(UUID equipeId, long agora) {
+        Set<Long> online = new TreeSet<>();
+        sessoes.values().forEach(s -> {
+            if (equipeId.equals(s.equipeId) && agora - s.vistaEm <= ttlMs) online.add(s.usuarioId);
+        });
+
+        // Só o grupo: as conversas privadas não aparecem no snapshot da equipe
+        Map<UUID, List<Long>> porConversa = new TreeMap<>();
+        digitando.forEach((d, estado) -> {
+            if (equipeId.equals(d.equipeId()) && estado.destinatarioId() == null && estado.expiraEm() >= agora) {
+                porConversa.computeIfAbsent(d.conversaId(), id -> new ArrayList<>()).add(d.usuarioId());
+            }
+        });
+        porConversa.values().forEach(ids -> ids.sort(null));
+
+        return PresencaEquipeDTO.builder()
+                .equipeId(equipeId)
+                .online(new ArrayList<>(online))
+                .digitando(porConversa)
+                .build();
+    }
+}
@@ -0,0 +1,317 @@
+package com.benfica.encomendas_api.service;
+
+import com.benfica.encomendas_api.dto.PresencaEquipeDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replica os frames STOMP entre instâncias da API via Postgres LISTEN/NOTIFY.
+ *
+ * O simple broker só conhece as sessões da própria JVM. Cada nó entrega localmente e
+ * publica o frame no canal NOTIFY; os outros nós, com uma conexão dedicada em LISTEN
+ * (fora do pool Hikari), voltam a entregá-lo às suas sessões. O próprio nó ignora os
+ * frames que publicou (campo "n").
+ *
+ * - Envelope compacto: {"n": nó, "d": destino, "u": usuarioId, "p": payload}.
+ * - A presença não é um frame: cada nó envia o seu estado local ({"n", "t": "presenca",
+ *   "e": equipeId, "p"}) e os outros recebem-no como evento {@link PresencaRemota}.
+ * - Invalidações do ChatMembrosCache ({"n", "t": "membros", "e"?, "u"?}) chegam aos
+ *   outros nós como evento {@link MembrosInvalidados}.
+ * - O restante estado em memória por nó (contadores de não lidas, caches de escalas)
+ *   segue como {"n", "t": tipo, "p"} e chega como evento {@link AlteracaoRemota}; cada
+ *   serviço trata os seus tipos.
+ * - O NOTIFY aceita no máximo 8000 bytes: acima de app.realtime.cluster.payload-max o
+ *   envelope vai para realtime_payloads e só a referência {"n", "r": id} é notificada.
+ * - Publicação numa thread própria: no afterCommit a conexão da transação ainda está
+ *   ligada à thread, e um NOTIFY feito nela nunca seria confirmado.
+ * - Se a conexão de escuta cair, é reaberta com backoff exponencial. Os frames perdidos
+ *   nesse intervalo são recuperados pelos clientes na sincronização de reconexão.
+ */
+@Component
+public class RealtimeClusterRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(RealtimeClusterRelay.class);
+
+    private static final String CANAL = "realtime_eventos";
+    private static final String TABELA_PAYLOADS = "realtime_payloads";
+
+    @Value("${app.realtime.cluster.enabled:false}")
+    private boolean ativo;
+
+    @Value("${app.realtime.cluster.payload-max:7000}")
+    private int payloadMax;
+
+    @Value("${app.realtime.cluster.fila-max:10000}")
+    private int filaMax;
+
+    @Value("${app.realtime.cluster.espera-ms:500}")
+    private int esperaMs;
+
+    @Value("${app.realtime.cluster.backoff-max-ms:30000}")
+    private long backoffMaxMs;
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${spring.datasource.username:}")
+    private String usuario;
+
+    @Value("${spring.datasource.password:}")
+    private String senha;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RealtimeSseService sseService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /** Estado de presença local de outro nó (ver PresencaService). */
+    public record PresencaRemota(String no, UUID equipeId, PresencaEquipeDTO estado) {}
+
+    /** Invalidação do ChatMembrosCache feita noutro nó (por equipe ou por usuário). */
+    public record MembrosInvalidados(UUID equipeId, Long usuarioId) {}
+
+    /** Alteração de estado em memória feita noutro nó (ajuste de contador, invalidação de cache). */
+    public record AlteracaoRemota(String tipo, JsonNode dados) {}
+
+    private final String noId = UUID.randomUUID().toString();
+
+    private ThreadPoolExecutor publicador;
+    private Thread ouvinte;
+    private volatile boolean emExecucao;
+
+    @PostConstruct
+    void iniciar() {
+        if (!ativo) return;
+
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TABELA_PAYLOADS + " (" +
+                "id UUID PRIMARY KEY, envelope TEXT NOT NULL, criado_em TIMESTAMP NOT NULL DEFAULT now())");
+
+        // Uma thread só: mantém a ordem dos frames; fila limitada para não crescer sem fim se o banco parar
+        publicador = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(filaMax), r -> {
+                    Thread t = new Thread(r, "realtime-cluster-publicador");
+                    t.setDaemon(true);
+                    return t;
+                });
+
+        emExecucao = true;
+        ouvinte = new Thread(this::escutar, "realtime-cluster-ouvinte");
+        ouvinte.setDaemon(true);
+        ouvinte.start();
+        logger.info("Relay realtime ativo (nó {}).", noId);
+    }
+
+    @PreDestroy
+    void parar() {
+        emExecucao = false;
+        if (publicador != null) publicador.shutdown();
+        if (ouvinte != null) ouvinte.interrupt();
+    }
+
+    public boolean isAtivo() {
+        return ativo;
+    }
+
+    /**
+     * Envia o frame aos outros nós. usuarioId != null indica destino de usuário (/user/...).
+     */
+    public void replicar(String destino, Long usuarioId, Object payload) {
+        if (!ativo) return;
+
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("n", noId);
+        json.put("d", destino);
+        if (usuarioId != null) json.put("u", usuarioId);
+        enfileirar(json, payload, destino);
+    }
+
+    /** Envia aos outros nós o estado de presença deste nó para a equipe. */
+    public void replicarPresenca(UUID equipeId, PresencaEquipeDTO estado) {
+        if (!ativo) return;
+
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("n", noId);
+        json.put("t", "presenca");
+        json.put("e", equipeId.toString());
+        enfileirar(json, estado, "presença da equipe " + equipeId);
+    }
+
+    /** Avisa os outros nós para descartarem as conversas da equipe ou do usuário. */
+    public void replicarInvalidacaoMembros(UUID equipeId, Long usuarioId) {
+        if (!ativo) return;
+
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("n", noId);
+        json.put("t", "membros");
+        if (equipeId != null) json.put("e", equipeId.toString());
+        if (usuarioId != null) json.put("u", usuarioId);
+        enfileirar(json, null, "invalidação de membros");
+    }
+
+    /**
+     * Envia aos outros nós uma alteração de estado em memória deste nó, para aplicarem a
+     * mesma alteração (ver {@link AlteracaoRemota}). Chamar depois do commit.
+     */
+    public void replicarAlteracao(String tipo, Object dados) {
+        if (!ativo) return;
+
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("n", noId);
+        json.put("t", tipo);
+        enfileirar(json, dados, tipo);
+    }
+
+    private void enfileirar(ObjectNode json, Object payload, String descricao) {
+        String envelope;
+        try {
+            if (payload != null) json.set("p", objectMapper.valueToTree(payload));
+            envelope = objectMapper.writeValueAsString(json);
+        } catch (Exception e) {
+            logger.warn("Falha ao serializar frame para {}: {}", descricao, e.getMessage());
+            return;
+        }
+
+        try {
+            publicador.execute(() -> notificar(envelope));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Fila do relay realtime cheia; frame para {} descartado.", descricao);
+        }
+    }
+
+    private void notificar(String envelope) {
+        try {
+            String mensagem = envelope;
+            if (envelope.getBytes(StandardCharsets.UTF_8).length > payloadMax) {
+                UUID id = UUID.randomUUID();
+                jdbcTemplate.update("INSERT INTO " + TABELA_PAYLOADS + " (id, envelope) VALUES (?, ?)", id, envelope);
+                mensagem = "{\"n\":\"" + noId + "\",\"r\":\"" + id + "\"}";
+            }
+            jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CANAL, mensagem);
+        } catch (Exception e) {
+            logger.warn("Falha ao publicar frame no canal {}: {}", CANAL, e.getMessage());
+        }
+    }
+
+    // --- ESCUTA (uma conexão dedicada por nó) ---
+    private void escutar() {
+        long backoff = 500;
+        while (emExecucao) {
+            try (Connection conexao = DriverManager.getConnection(url, usuario, senha)) {
+                PGConnection pg = conexao.unwrap(PGConnection.class);
+                try (Statement st = conexao.createStatement()) {
+                    st.execute("LISTEN " + CANAL);
+                }
+                logger.info("Relay realtime a escutar o canal {}.", CANAL);
+                backoff = 500;
+
+                while (emExecucao) {
+                    PGNotification[] notificacoes = pg.getNotifications(esperaMs);
+                    if (notificacoes == null) continue;
+                    for (PGNotification n : notificacoes) {
+                        receber(n.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!emExecucao) break;
+                logger.warn("Conexão de escuta do relay caiu ({}); nova tentativa em {} ms.", e.getMessage(), backoff);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                backoff = Math.min(backoff * 2, backoffMaxMs);
+            }
+        }
+    }
+
+    private void receber(String mensagem) {
+        try {
+            JsonNode json = objectMapper.readTree(mensagem);
+            if (noId.equals(json.path("n").asText())) return; // já entregue localmente
+
+            if (json.hasNonNull("r")) {
+                List<String> envelopes = jdbcTemplate.queryForList(
+                        "SELECT envelope FROM " + TABELA_PAYLOADS + " WHERE id = ?",
+                        String.class, UUID.fromString(json.get("r").asText()));
+                if (envelopes.isEmpty()) return; // já limpo pela retenção
+                json = objectMapper.readTree(envelopes.get(0));
+            }
+
+            if ("presenca".equals(json.path("t").asText())) {
+                eventPublisher.publishEvent(new PresencaRemota(json.get("n").asText(),
+                        UUID.fromString(json.get("e").asText()),
+                        objectMapper.treeToValue(json.get("p"), PresencaEquipeDTO.class)));
+                return;
+            }
+            if ("membros".equals(json.path("t").asText())) {
+                eventPublisher.publishEvent(new MembrosInvalidados(
+                        json.hasNonNull("e") ? UUID.fromString(json.get("e").asText()) : null,
+                        json.hasNonNull("u") ? json.get("u").asLong() : null));
+                return;
+            }
+            if (json.hasNonNull("t")) {
+                eventPublisher.publishEvent(new AlteracaoRemota(json.get("t").asText(), json.get("p")));
+                return;
+            }
+
+            String destino = json.get("d").asText();
+            JsonNode payload = json.get("p");
+            if (json.hasNonNull("u")) {
+                messagingTemplate.convertAndSendToUser(json.get("u").asText(), destino, payload);
+                sseService.enviar(json.get("u").asLong(), destino, payload);
+            } else {
+                messagingTemplate.convertAndSend(destino, payload);
+            }
+        } catch (Exception e) {
+            logger.warn("Frame do relay realtime ignorado: {}", e.getMessage());
+        }
+    }
+
+    // Payloads grandes só precisam de sobreviver até todos os nós os lerem
+    @Scheduled(fixedDelay = 60000)
+    public void limparPayloads() {
+        if (!ativo) return;
+        try {
+            jdbcTemplate.update("DELETE FROM " + TABELA_PAYLOADS + " WHERE criado_em < now() - interval '5 minutes'");
+        } catch (Exception e) {
+            logger.warn("Falha ao limpar {}: {}", TABELA_PAYLOADS, e.getMessage());
+        }
+    }
+}
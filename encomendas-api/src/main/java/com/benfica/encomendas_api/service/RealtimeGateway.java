@@ -0,0 +1,32 @@
+package com.benfica.encomendas_api.service;
+
+import java.util.UUID;
+
+/**
+ * Ponto único de saída dos eventos em tempo real (chat, badges, notificações, encomendas,
+ * checklist). Os serviços publicam aqui sem saber como o evento chega ao cliente.
+ *
+ * A implementação por omissão é {@link StompRealtimeGateway} (broker STOMP em memória);
+ * outra implementação anotada com @Primary substitui-a sem mexer nos serviços.
+ * As chamadas devem ser feitas depois do commit (ver {@link AposCommit}).
+ */
+public interface RealtimeGateway {
+
+    /** Nova mensagem numa conversa: /topic/chat/{conversaId}. */
+    void publicarConversa(UUID conversaId, Object mensagem);
+
+    /** Total de não lidas do usuário: /user/queue/badge (só interessa o último valor). */
+    void publicarBadge(Long usuarioId, long total);
+
+    /** Evento privado de um usuário: /user/queue/{fila}. */
+    void publicarUsuario(Long usuarioId, String fila, Object payload);
+
+    /** Evento para quem acompanha a equipe: /topic/{topico}/{equipeId}. */
+    void publicarEquipe(String topico, UUID equipeId, Object payload);
+
+    /**
+     * Como {@link #publicarEquipe}, mas só para as sessões deste nó: para estado que cada
+     * nó monta por si (ex.: presença unida de todo o cluster).
+     */
+    void publicarEquipeLocal(String topico, UUID equipeId, Object payload);
+}
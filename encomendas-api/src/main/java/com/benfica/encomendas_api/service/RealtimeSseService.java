@@ -0,0 +1,88 @@
+package com.benfica.encomendas_api.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Alternativa por Server-Sent Events para clientes sem WebSocket: cada evento privado
+ * publicado em /user/queue/{fila} sai também para os streams SSE abertos pelo usuário,
+ * com o nome do evento igual à fila (notificacoes, badge, ...).
+ *
+ * - No máximo app.realtime.sse.max-por-usuario streams por usuário (um por separador);
+ *   acima disso fecha-se o mais antigo.
+ * - Um comentário a cada app.realtime.sse.heartbeat-ms mantém a ligação viva em proxies.
+ * - Ao fim de app.realtime.sse.timeout-ms o stream fecha e o EventSource volta a ligar.
+ */
+@Component
+public class RealtimeSseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RealtimeSseService.class);
+
+    @Value("${app.realtime.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.realtime.sse.max-por-usuario:5}")
+    private int maxPorUsuario;
+
+    private final Map<Long, List<SseEmitter>> emissores = new ConcurrentHashMap<>();
+
+    public SseEmitter abrir(Long usuarioId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        emitter.onCompletion(() -> remover(usuarioId, emitter));
+        emitter.onTimeout(() -> remover(usuarioId, emitter));
+        emitter.onError(e -> remover(usuarioId, emitter));
+
+        List<SseEmitter> lista = emissores.computeIfAbsent(usuarioId, id -> new CopyOnWriteArrayList<>());
+        lista.add(emitter);
+        while (lista.size() > maxPorUsuario) {
+            SseEmitter antigo = lista.remove(0);
+            antigo.complete();
+        }
+        return emitter;
+    }
+
+    /** Evento para os streams do usuário ligados a este nó; destino é /queue/{fila}. */
+    public void enviar(Long usuarioId, String destino, Object payload) {
+        List<SseEmitter> lista = emissores.get(usuarioId);
+        if (lista == null) return;
+
+        String evento = destino.substring(destino.lastIndexOf('/') + 1);
+        for (SseEmitter emitter : lista) {
+            try {
+                emitter.send(SseEmitter.event().name(evento).data(payload));
+            } catch (Exception e) {
+                logger.debug("Stream SSE do usuário {} fechado: {}", usuarioId, e.getMessage());
+                remover(usuarioId, emitter);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.realtime.sse.heartbeat-ms:25000}")
+    public void manterLigados() {
+        emissores.forEach((usuarioId, lista) -> {
+            for (SseEmitter emitter : lista) {
+                try {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                } catch (Exception e) {
+                    remover(usuarioId, emitter);
+                }
+            }
+        });
+    }
+
+    private void remover(Long usuarioId, SseEmitter emitter) {
+        emissores.computeIfPresent(usuarioId, (id, lista) -> {
+            lista.remove(emitter);
+            return lista.isEmpty() ? null : lista;
+        });
+    }
+}
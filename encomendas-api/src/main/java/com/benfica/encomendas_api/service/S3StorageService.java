@@ -7,6 +7,9 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.S3Exception;
 
@@ -52,9 +55,50 @@ public class S3StorageService implements StorageService {
 
             logger.info("Ficheiro guardado no S3: s3://{}/{}", bucketName, key);
 
-            return String.format("https://%s.s3.%s.amazonaws.com/%s", bucketName, region, key);
+            return url(key);
         } catch (S3Exception e) {
             throw new IOException("Erro ao guardar ficheiro no S3: " + e.getMessage(), e);
         }
     }
+
+    // Cópia no próprio S3 (sem voltar a transferir o conteúdo) seguida da remoção da origem
+    @Override
+    public String move(String subdir, String origem, String destino) throws IOException {
+        String keyOrigem = subdir + "/" + origem;
+        String keyDestino = subdir + "/" + destino;
+        try {
+            s3Client.copyObject(CopyObjectRequest.builder()
+                    .sourceBucket(bucketName)
+                    .sourceKey(keyOrigem)
+                    .destinationBucket(bucketName)
+                    .destinationKey(keyDestino)
+                    .build());
+            s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucketName).key(keyOrigem).build());
+            return url(keyDestino);
+        } catch (S3Exception e) {
+            throw new IOException("Erro ao mover ficheiro no S3: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public InputStream load(String subdir, String filename) throws IOException {
+        try {
+            return s3Client.getObject(GetObjectRequest.builder().bucket(bucketName).key(subdir + "/" + filename).build());
+        } catch (S3Exception e) {
+            throw new IOException("Erro ao ler ficheiro do S3: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void delete(String subdir, String filename) throws IOException {
+        try {
+            s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucketName).key(subdir + "/" + filename).build());
+        } catch (S3Exception e) {
+            throw new IOException("Erro ao remover ficheiro do S3: " + e.getMessage(), e);
+        }
+    }
+
+    private String url(String key) {
+        return String.format("https://%s.s3.%s.amazonaws.com/%s", bucketName, region, key);
+    }
 }
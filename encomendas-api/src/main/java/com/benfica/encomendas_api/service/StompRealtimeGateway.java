@@ -0,0 +1,101 @@
+package com.benfica.encomendas_api.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Entrega em processo pelo broker STOMP do WebSocketConfig: sem HTTP de saída, o frame
+ * chega às sessões ligadas a este nó em microssegundos.
+ *
+ * O Supabase Realtime fica como segundo destino opcional (app.realtime.supabase.enabled),
+ * para clientes que ainda escutam os canais chat:{id} e badge:{userId}. O envio para o
+ * Supabase só enfileira, por isso nunca atrasa a entrega local.
+ *
+ * Com várias instâncias, o {@link RealtimeClusterRelay} replica cada frame para as
+ * sessões ligadas aos outros nós.
+ *
+ * Os eventos privados (/user/queue/...) seguem também para os streams SSE do
+ * {@link RealtimeSseService}, para clientes que não mantêm um WebSocket.
+ */
+@Component
+public class StompRealtimeGateway implements RealtimeGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(StompRealtimeGateway.class);
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private RealtimeSseService sseService;
+
+    @Autowired
+    private SupabaseBroadcastService supabaseBroadcastService;
+
+    @Autowired
+    private RealtimeClusterRelay clusterRelay;
+
+    @Value("${app.realtime.supabase.enabled:true}")
+    private boolean espelharSupabase;
+
+    @Override
+    public void publicarConversa(UUID conversaId, Object mensagem) {
+        enviar("/topic/chat/" + conversaId, mensagem);
+        if (espelharSupabase) {
+            supabaseBroadcastService.broadcast("chat:" + conversaId, "mensagem", mensagem);
+        }
+    }
+
+    @Override
+    public void publicarBadge(Long usuarioId, long total) {
+        enviarUsuario(usuarioId, "/queue/badge", total);
+        if (espelharSupabase) {
+            supabaseBroadcastService.broadcastUltimoValor("badge:" + usuarioId, "update", total);
+        }
+    }
+
+    @Override
+    public void publicarUsuario(Long usuarioId, String fila, Object payload) {
+        enviarUsuario(usuarioId, "/queue/" + fila, payload);
+    }
+
+    @Override
+    public void publicarEquipe(String topico, UUID equipeId, Object payload) {
+        enviar("/topic/" + topico + "/" + equipeId, payload);
+    }
+
+    @Override
+    public void publicarEquipeLocal(String topico, UUID equipeId, Object payload) {
+        enviarLocal("/topic/" + topico + "/" + equipeId, payload);
+    }
+
+    // Falhas de entrega não podem afetar quem publicou (a transação já foi confirmada)
+    private void enviar(String destino, Object payload) {
+        enviarLocal(destino, payload);
+        clusterRelay.replicar(destino, null, payload);
+    }
+
+    private void enviarLocal(String destino, Object payload) {
+        try {
+            messagingTemplate.convertAndSend(destino, payload);
+        } catch (Exception e) {
+            logger.warn("Falha ao publicar em {}: {}", destino, e.getMessage());
+        }
+    }
+
+    // O principal das sessões STOMP é o id do usuário (WebSocketAuthChannelInterceptor)
+    private void enviarUsuario(Long usuarioId, String destino, Object payload) {
+        try {
+            messagingTemplate.convertAndSendToUser(String.valueOf(usuarioId), destino, payload);
+        } catch (Exception e) {
+            logger.warn("Falha ao publicar em /user/{}{}: {}", usuarioId, destino, e.getMessage());
+        }
+        sseService.enviar(usuarioId, destino, payload);
+        clusterRelay.replicar(destino, usuarioId, payload);
+    }
+}
@@ -21,4 +21,22 @@ public interface StorageService {
      */
     String store(String subdir, String filename, InputStream inputStream,
                  long contentLength, String contentType) throws IOException;
+
+    /**
+     * Renomeia um ficheiro já armazenado (ex: do nome temporário para o hash do conteúdo).
+     * Se o destino já existir é substituído.
+     *
+     * @return URL de acesso do destino
+     */
+    String move(String subdir, String origem, String destino) throws IOException;
+
+    /**
+     * Abre um ficheiro armazenado para leitura (o chamador fecha o stream).
+     */
+    InputStream load(String subdir, String filename) throws IOException;
+
+    /**
+     * Remove um ficheiro; não falha se já não existir.
+     */
+    void delete(String subdir, String filename) throws IOException;
 }
@@ -1,15 +1,34 @@
 package com.benfica.encomendas_api.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.*;
 
+/**
+ * Despacho de broadcasts Supabase Realtime.
+ *
+ * broadcast() só enfileira (fila limitada; se encher, o evento é descartado e contado).
+ * Uma única thread dedicada envia, a cada intervalo, um lote com vários eventos num só
+ * POST (a API aceita um array 'messages'). Eventos de "último valor" (ex: badge:{userId})
+ * ficam reduzidos ao valor mais recente por canal. Em caso de falha o lote é repetido
+ * com backoff exponencial, até um número máximo de tentativas.
+ *
+ * Métricas: realtime.supabase.fila, realtime.supabase.descartados,
+ * realtime.supabase.envio (latência do POST) e realtime.supabase.atraso (fila → envio).
+ */
 @Service
 public class SupabaseBroadcastService {
 
@@ -21,36 +40,169 @@ public class SupabaseBroadcastService {
     @Value("${supabase.service-role-key:}")
     private String serviceRoleKey;
 
+    @Value("${app.realtime.supabase.fila-max:5000}")
+    private int filaMax;
+
+    @Value("${app.realtime.supabase.lote-max:100}")
+    private int loteMax;
+
+    @Value("${app.realtime.supabase.intervalo-ms:200}")
+    private long intervaloMs;
+
+    @Value("${app.realtime.supabase.backoff-max-ms:30000}")
+    private long backoffMaxMs;
+
+    @Value("${app.realtime.supabase.tentativas-max:5}")
+    private int tentativasMax;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private final RestTemplate restTemplate = new RestTemplate();
 
+    private record Evento(String canal, String evento, Object payload, long enfileiradoEm) {}
+
+    private BlockingQueue<Evento> fila;
+    // canal -> último evento (substitui o anterior ainda não enviado)
+    private final Map<String, Evento> ultimosValores = new ConcurrentHashMap<>();
+
+    private List<Evento> loteFalhado = List.of();
+    private int falhasSeguidas = 0;
+    private long proximoEnvio = 0;
+
+    private ScheduledExecutorService executor;
+    private Counter descartados;
+    private Timer envio;
+    private Timer atraso;
+
+    @PostConstruct
+    void iniciar() {
+        fila = new LinkedBlockingQueue<>(filaMax);
+        Gauge.builder("realtime.supabase.fila", this, s -> s.fila.size() + s.ultimosValores.size())
+                .description("Eventos à espera de envio para o Supabase")
+                .register(meterRegistry);
+        descartados = Counter.builder("realtime.supabase.descartados").register(meterRegistry);
+        envio = Timer.builder("realtime.supabase.envio").register(meterRegistry);
+        atraso = Timer.builder("realtime.supabase.atraso").register(meterRegistry);
+
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "supabase-broadcast");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::enviarPendentes, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void parar() throws InterruptedException {
+        executor.shutdown();
+        if (executor.awaitTermination(2, TimeUnit.SECONDS)) {
+            proximoEnvio = 0;
+            enviarPendentes(); // última tentativa com o que ficou na fila
+        }
+    }
+
     /**
-     * Envia um broadcast Supabase Realtime para o canal especificado.
+     * Enfileira um broadcast para o canal especificado (não bloqueia).
      * O prefixo "realtime:" é adicionado automaticamente para corresponder
      * ao canal subscrito pelo cliente (supabase.channel('chat:id')).
      */
     public void broadcast(String channel, String event, Object payload) {
-        if (supabaseUrl.isBlank() || serviceRoleKey.isBlank()) {
+        if (!configurado()) {
             logger.debug("Supabase não configurado — broadcast ignorado para canal: {}", channel);
             return;
         }
+        if (!fila.offer(new Evento(channel, event, payload, System.nanoTime()))) {
+            descartados.increment();
+            logger.warn("Fila de broadcast Supabase cheia — evento descartado [{}]", channel);
+        }
+    }
+
+    /** Como broadcast(), mas só o valor mais recente por canal é enviado (ex: badges). */
+    public void broadcastUltimoValor(String channel, String event, Object payload) {
+        if (!configurado()) return;
+        ultimosValores.put(channel, new Evento(channel, event, payload, System.nanoTime()));
+    }
+
+    // --- ENVIO (só corre na thread 'supabase-broadcast') ---
+
+    void enviarPendentes() {
         try {
-            String url = supabaseUrl + "/realtime/v1/api/broadcast";
+            if (System.currentTimeMillis() < proximoEnvio) return;
+
+            // Valores mais recentes que entretanto chegaram prevalecem sobre os do lote falhado
+            List<Evento> lote = new ArrayList<>();
+            for (Evento e : loteFalhado) {
+                if (!ultimosValoresContem(e)) lote.add(e);
+            }
+            loteFalhado = List.of();
+            fila.drainTo(lote, Math.max(0, loteMax - lote.size()));
+            for (String canal : new ArrayList<>(ultimosValores.keySet())) {
+                Evento e = ultimosValores.remove(canal);
+                if (e != null) lote.add(e);
+            }
+            if (lote.isEmpty()) return;
+
+            if (enviar(lote)) {
+                falhasSeguidas = 0;
+                long agora = System.nanoTime();
+                lote.forEach(e -> atraso.record(agora - e.enfileiradoEm(), TimeUnit.NANOSECONDS));
+            } else {
+                agendarRepeticao(lote);
+            }
+        } catch (Exception e) {
+            logger.error("Erro inesperado no despacho Supabase: {}", e.getMessage());
+        }
+    }
 
-            Map<String, Object> message = Map.of(
-                "topic", "realtime:" + channel,
-                "event", event,
-                "payload", payload
-            );
-            Map<String, Object> body = Map.of("messages", List.of(message));
+    private boolean enviar(List<Evento> lote) {
+        List<Map<String, Object>> messages = new ArrayList<>(lote.size());
+        for (Evento e : lote) {
+            messages.add(Map.of(
+                "topic", "realtime:" + e.canal(),
+                "event", e.evento(),
+                "payload", e.payload()
+            ));
+        }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("apikey", serviceRoleKey);
-            headers.set("Authorization", "Bearer " + serviceRoleKey);
-            headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("apikey", serviceRoleKey);
+        headers.set("Authorization", "Bearer " + serviceRoleKey);
+        headers.setContentType(MediaType.APPLICATION_JSON);
 
-            restTemplate.postForEntity(url, new HttpEntity<>(body, headers), Void.class);
+        Timer.Sample amostra = Timer.start(meterRegistry);
+        try {
+            restTemplate.postForEntity(supabaseUrl + "/realtime/v1/api/broadcast",
+                    new HttpEntity<>(Map.of("messages", messages), headers), Void.class);
+            return true;
         } catch (Exception e) {
-            logger.warn("Falha ao enviar broadcast Supabase [{}]: {}", channel, e.getMessage());
+            logger.warn("Falha ao enviar lote de {} broadcasts Supabase: {}", lote.size(), e.getMessage());
+            return false;
+        } finally {
+            amostra.stop(envio);
         }
     }
+
+    private void agendarRepeticao(List<Evento> lote) {
+        falhasSeguidas++;
+        if (falhasSeguidas > tentativasMax) {
+            descartados.increment(lote.size());
+            logger.warn("Lote de {} broadcasts descartado após {} tentativas", lote.size(), tentativasMax);
+            falhasSeguidas = 0;
+            return;
+        }
+
+        loteFalhado = lote;
+        long espera = Math.min(backoffMaxMs, intervaloMs * (1L << Math.min(falhasSeguidas, 16)));
+        proximoEnvio = System.currentTimeMillis() + espera;
+    }
+
+    private boolean ultimosValoresContem(Evento e) {
+        Evento atual = ultimosValores.get(e.canal());
+        return atual != null && atual.evento().equals(e.evento());
+    }
+
+    private boolean configurado() {
+        return !supabaseUrl.isBlank() && !serviceRoleKey.isBlank();
+    }
 }
@@ -10,6 +10,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Objects;
+
 @Service
 public class UsuarioService {
 
@@ -19,6 +21,9 @@ public class UsuarioService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ChatMembrosCache chatMembrosCache;
+
     private Usuario getUsuarioLogado() {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
         return usuarioRepository.findByEmail(email)
@@ -35,6 +40,9 @@ public class UsuarioService {
     public UsuarioResponseDTO atualizarPerfil(UsuarioUpdateDTO dto) {
         Usuario usuario = getUsuarioLogado();
 
+        if (!Objects.equals(usuario.getNomeCompleto(), dto.getNomeCompleto())) {
+            chatMembrosCache.invalidarUsuario(usuario.getId());
+        }
         usuario.setNomeCompleto(dto.getNomeCompleto());
         usuario.setTelefone(dto.getTelefone());
         usuario.setCargo(dto.getCargo());
@@ -0,0 +1,38 @@
+package com.benfica.encomendas_api.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CursorBuscaTest {
+
+    private static final UUID ID = UUID.fromString("3f1c2a9e-6b7d-4e2f-9a1b-0c5d8e7f6a42");
+
+    @Test
+    void idaEVolta() {
+        CursorBusca cursor = new CursorBusca(0.0607927f, LocalDateTime.of(2030, 6, 30, 23, 59, 59, 999999000), ID);
+        assertEquals(cursor, CursorBusca.decodificar(cursor.codificar()));
+
+        CursorBusca pequeno = new CursorBusca(1.0E-7f, LocalDateTime.of(2030, 6, 30, 0, 0), ID);
+        assertEquals(pequeno, CursorBusca.decodificar(pequeno.codificar()));
+    }
+
+    @Test
+    void invalidoDaIllegalArgument() {
+        for (String invalido : new String[]{"", "%%%", "bm9wZQ", codificar("2030-01-01T00:00|" + ID),
+                codificar("x|2030-01-01T00:00|" + ID), codificar("0.5|ontem|" + ID), codificar("0.5|2030-01-01T00:00|nao-e-uuid")}) {
+            assertThrows(IllegalArgumentException.class, () -> CursorBusca.decodificar(invalido), invalido);
+        }
+        assertThrows(IllegalArgumentException.class, () -> CursorBusca.decodificar(null));
+    }
+
+    private static String codificar(String bruto) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bruto.getBytes(StandardCharsets.UTF_8));
+    }
+}
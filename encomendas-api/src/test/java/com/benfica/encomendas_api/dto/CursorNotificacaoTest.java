@@ -0,0 +1,44 @@
+package com.benfica.encomendas_api.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CursorNotificacaoTest {
+
+    private static final UUID ID = UUID.fromString("3f1c2a9e-6b7d-4e2f-9a1b-0c5d8e7f6a42");
+
+    @Test
+    void idaEVolta() {
+        CursorNotificacao cursor = new CursorNotificacao(LocalDateTime.of(2030, 1, 2, 3, 4, 5, 123456000), ID);
+        String codificado = cursor.codificar();
+        assertFalse(codificado.contains("=") || codificado.contains("+") || codificado.contains("/"));
+        assertEquals(cursor, CursorNotificacao.decodificar(codificado));
+    }
+
+    @Test
+    void comSegundosZerados() {
+        // LocalDateTime.toString omite os segundos quando são zero
+        CursorNotificacao cursor = new CursorNotificacao(LocalDateTime.of(2030, 1, 2, 3, 4), ID);
+        assertEquals(cursor, CursorNotificacao.decodificar(cursor.codificar()));
+    }
+
+    @Test
+    void invalidoDaIllegalArgument() {
+        for (String invalido : new String[]{"", "%%%", "bm9wZQ", codificar("2030-01-01T00:00|nao-e-uuid"), codificar("ontem|" + ID)}) {
+            assertThrows(IllegalArgumentException.class, () -> CursorNotificacao.decodificar(invalido), invalido);
+        }
+        assertThrows(IllegalArgumentException.class, () -> CursorNotificacao.decodificar(null));
+    }
+
+    private static String codificar(String bruto) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bruto.getBytes(StandardCharsets.UTF_8));
+    }
+}
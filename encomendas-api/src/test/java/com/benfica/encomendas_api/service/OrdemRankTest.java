@@ -0,0 +1,102 @@
+package com.benfica.encomendas_api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrdemRankTest {
+
+    @Test
+    void entreListaVaziaDevolveChaveValida() {
+        String chave = OrdemRank.entre(null, null);
+        assertNotNull(chave);
+        assertFalse(chave.endsWith("0"));
+    }
+
+    @Test
+    void entreFicaEstritamenteEntreOsVizinhos() {
+        assertEntre("a", "b");
+        assertEntre("a", "a1");
+        assertEntre("1", "2");
+        assertEntre("az", "b");
+        assertEntre(null, "1");
+        assertEntre("zz", null);
+    }
+
+    @Test
+    void insercoesRepetidasNoMesmoSitioMantemAOrdem() {
+        String anterior = "a";
+        String posterior = "b";
+        for (int i = 0; i < 30; i++) {
+            String meio = OrdemRank.entre(anterior, posterior);
+            assertNotNull(meio);
+            assertTrue(anterior.compareTo(meio) < 0 && meio.compareTo(posterior) < 0);
+            posterior = meio;
+        }
+    }
+
+    @Test
+    void entreDevolveNullParaChavesInvalidas() {
+        assertNull(OrdemRank.entre("b", "a"));
+        assertNull(OrdemRank.entre("a", "a"));
+        assertNull(OrdemRank.entre("a0", null));
+        assertNull(OrdemRank.entre("A", null));
+        assertNull(OrdemRank.entre(null, ""));
+    }
+
+    @Test
+    void entreDevolveNullQuandoAChaveFicariaLongaDemais() {
+        String anterior = "a";
+        String posterior = "b";
+        String meio;
+        int passos = 0;
+        while ((meio = OrdemRank.entre(anterior, posterior)) != null) {
+            assertTrue(meio.length() <= OrdemRank.TAMANHO_MAXIMO);
+            posterior = meio;
+            passos++;
+        }
+        assertTrue(passos > 0);
+    }
+
+    @Test
+    void distribuirGeraChavesCrescentesSemZeroFinal() {
+        for (int quantidade : new int[]{1, 2, 10, 35, 36, 1000, 50000}) {
+            List<String> chaves = OrdemRank.distribuir(quantidade);
+            assertEquals(quantidade, chaves.size());
+            for (int i = 0; i < chaves.size(); i++) {
+                assertFalse(chaves.get(i).endsWith("0"), chaves.get(i));
+                if (i > 0) assertTrue(chaves.get(i - 1).compareTo(chaves.get(i)) < 0);
+            }
+        }
+    }
+
+    @Test
+    void distribuirDeixaEspacoEntreVizinhas() {
+        List<String> chaves = new ArrayList<>(OrdemRank.distribuir(100));
+        for (int i = 1; i < chaves.size(); i++) {
+            assertNotNull(OrdemRank.entre(chaves.get(i - 1), chaves.get(i)));
+        }
+        assertNotNull(OrdemRank.entre(null, chaves.get(0)));
+        assertNotNull(OrdemRank.entre(chaves.get(chaves.size() - 1), null));
+    }
+
+    @Test
+    void distribuirSemQuantidadeDevolveListaVazia() {
+        assertTrue(OrdemRank.distribuir(0).isEmpty());
+    }
+
+    private static void assertEntre(String anterior, String posterior) {
+        String meio = OrdemRank.entre(anterior, posterior);
+        assertNotNull(meio);
+        assertFalse(meio.endsWith("0"));
+        if (anterior != null) assertTrue(anterior.compareTo(meio) < 0, anterior + " < " + meio);
+        if (posterior != null) assertTrue(meio.compareTo(posterior) < 0, meio + " < " + posterior);
+    }
+}
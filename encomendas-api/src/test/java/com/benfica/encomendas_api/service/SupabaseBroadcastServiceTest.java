@@ -0,0 +1,167 @@
+package com.benfica.encomendas_api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Envio em lote contra um servidor HTTP local que faz de endpoint de broadcast do Supabase.
+ * O intervalo do agendador é longo para que só o teste chame enviarPendentes().
+ */
+class SupabaseBroadcastServiceTest {
+
+    private static final long BACKOFF_MS = 300;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private HttpServer servidor;
+    private final List<JsonNode> pedidos = new CopyOnWriteArrayList<>();
+    // Status a devolver, pela ordem; vazio = 200
+    private final Queue<Integer> respostas = new ConcurrentLinkedQueue<>();
+
+    private SimpleMeterRegistry meterRegistry;
+    private SupabaseBroadcastService service;
+
+    @BeforeEach
+    void iniciar() throws Exception {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.createContext("/realtime/v1/api/broadcast", troca -> {
+            pedidos.add(mapper.readTree(new String(troca.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)));
+            Integer status = respostas.poll();
+            troca.sendResponseHeaders(status != null ? status : 200, -1);
+            troca.close();
+        });
+        servidor.start();
+
+        meterRegistry = new SimpleMeterRegistry();
+        service = new SupabaseBroadcastService();
+        ReflectionTestUtils.setField(service, "supabaseUrl", "http://127.0.0.1:" + servidor.getAddress().getPort());
+        ReflectionTestUtils.setField(service, "serviceRoleKey", "chave-teste");
+        ReflectionTestUtils.setField(service, "filaMax", 10);
+        ReflectionTestUtils.setField(service, "loteMax", 2);
+        ReflectionTestUtils.setField(service, "intervaloMs", 3_600_000L);
+        ReflectionTestUtils.setField(service, "backoffMaxMs", BACKOFF_MS);
+        ReflectionTestUtils.setField(service, "tentativasMax", 2);
+        ReflectionTestUtils.setField(service, "meterRegistry", meterRegistry);
+        service.iniciar();
+    }
+
+    @AfterEach
+    void parar() throws Exception {
+        service.parar();
+        servidor.stop(0);
+    }
+
+    @Test
+    void agrupaEventosEmLotesDeAteLoteMax() {
+        service.broadcast("chat:1", "nova", Map.of("n", 1));
+        service.broadcast("chat:1", "nova", Map.of("n", 2));
+        service.broadcast("chat:2", "nova", Map.of("n", 3));
+
+        service.enviarPendentes();
+        service.enviarPendentes();
+
+        assertEquals(2, pedidos.size());
+        JsonNode primeiro = pedidos.get(0).get("messages");
+        assertEquals(2, primeiro.size());
+        assertEquals("realtime:chat:1", primeiro.get(0).get("topic").asText());
+        assertEquals("nova", primeiro.get(0).get("event").asText());
+        assertEquals(1, primeiro.get(0).get("payload").get("n").asInt());
+        assertEquals(2, primeiro.get(1).get("payload").get("n").asInt());
+        assertEquals(3, pedidos.get(1).get("messages").get(0).get("payload").get("n").asInt());
+    }
+
+    @Test
+    void ultimoValorEnviaSoOMaisRecentePorCanal() {
+        service.broadcastUltimoValor("badge:7", "contagem", Map.of("n", 1));
+        service.broadcastUltimoValor("badge:7", "contagem", Map.of("n", 2));
+        service.broadcastUltimoValor("badge:8", "contagem", Map.of("n", 5));
+
+        service.enviarPendentes();
+
+        assertEquals(1, pedidos.size());
+        JsonNode messages = pedidos.get(0).get("messages");
+        assertEquals(2, messages.size());
+        for (JsonNode m : messages) {
+            int esperado = m.get("topic").asText().equals("realtime:badge:7") ? 2 : 5;
+            assertEquals(esperado, m.get("payload").get("n").asInt());
+        }
+    }
+
+    @Test
+    void repeteLoteFalhadoDepoisDoBackoff() throws Exception {
+        respostas.add(500);
+        service.broadcast("chat:1", "nova", Map.of("n", 1));
+
+        service.enviarPendentes();
+        service.enviarPendentes(); // ainda dentro do backoff: não envia
+        assertEquals(1, pedidos.size());
+
+        Thread.sleep(BACKOFF_MS + 100);
+        service.enviarPendentes();
+
+        assertEquals(2, pedidos.size());
+        assertEquals(pedidos.get(0), pedidos.get(1));
+        assertEquals(0.0, meterRegistry.counter("realtime.supabase.descartados").count());
+    }
+
+    @Test
+    void valorMaisRecentePrevaleceSobreOLoteFalhado() throws Exception {
+        respostas.add(500);
+        service.broadcastUltimoValor("badge:7", "contagem", Map.of("n", 1));
+        service.enviarPendentes();
+
+        service.broadcastUltimoValor("badge:7", "contagem", Map.of("n", 2));
+        Thread.sleep(BACKOFF_MS + 100);
+        service.enviarPendentes();
+
+        assertEquals(2, pedidos.size());
+        JsonNode messages = pedidos.get(1).get("messages");
+        assertEquals(1, messages.size());
+        assertEquals(2, messages.get(0).get("payload").get("n").asInt());
+    }
+
+    @Test
+    void descartaLoteDepoisDeTentativasMax() throws Exception {
+        respostas.addAll(List.of(500, 500, 500));
+        service.broadcast("chat:1", "nova", Map.of("n", 1));
+        service.broadcast("chat:1", "nova", Map.of("n", 2));
+
+        for (int i = 0; i < 3; i++) {
+            service.enviarPendentes();
+            Thread.sleep(BACKOFF_MS + 100);
+        }
+        service.enviarPendentes(); // nada mais a enviar
+
+        assertEquals(3, pedidos.size());
+        assertEquals(2.0, meterRegistry.counter("realtime.supabase.descartados").count());
+    }
+
+    @Test
+    void filaCheiaDescartaEConta() {
+        ReflectionTestUtils.setField(service, "loteMax", 100);
+        for (int i = 0; i < 12; i++) {
+            service.broadcast("chat:1", "nova", Map.of("n", i));
+        }
+
+        service.enviarPendentes();
+
+        assertEquals(10, pedidos.get(0).get("messages").size());
+        assertEquals(2.0, meterRegistry.counter("realtime.supabase.descartados").count());
+    }
+}
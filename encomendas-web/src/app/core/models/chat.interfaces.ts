@@ -6,17 +6,59 @@ export interface MensagemAnexo {
   nomeArquivo: string;
   tipoArquivo: TipoAnexo;
   url: string;
+  miniaturaUrl?: string; // imagens: variante reduzida (igual a url até ser gerada)
+  exibicaoUrl?: string;  // imagens: variante comprimida para visualização
 }
 
 export interface MensagemChat {
   id: string;
   conversaId: string;
+  seq?: number; // sequência da mensagem dentro da conversa
   remetenteId: number;
   remetenteNome: string;
   conteudo: string | null;
   enviadoEm: string;
   deletada: boolean;
   anexos: MensagemAnexo[];
+  cursor?: string; // posição opaca para paginação/sincronização
+}
+
+export interface MensagemPagina {
+  mensagens: MensagemChat[]; // ordem cronológica
+  temMais: boolean;
+  cursorAntes?: string;
+  cursorDepois?: string;
+}
+
+export interface MensagemBusca {
+  id: string;
+  conversaId: string;
+  remetenteId: number;
+  remetenteNome: string;
+  enviadoEm: string;
+  trecho: string; // HTML já escapado pelo servidor, termos encontrados entre <mark></mark>
+  rank: number;
+  cursor: string; // abre a conversa a partir desta mensagem
+}
+
+export interface MensagemBuscaPagina {
+  resultados: MensagemBusca[];
+  temMais: boolean;
+  proximoCursor?: string;
+}
+
+// Snapshot de /topic/presence/{equipeId} (e de GET /chat/presenca)
+export interface PresencaEquipe {
+  equipeId: string;
+  online: number[];
+  digitando: { [conversaId: string]: number[] }; // só a conversa de grupo
+}
+
+// /user/queue/digitando: o outro participante de uma conversa privada começou ou parou de escrever
+export interface DigitandoPrivado {
+  conversaId: string;
+  usuarioId: number;
+  digitando: boolean;
 }
 
 export interface Conversa {
@@ -27,6 +69,7 @@ export interface Conversa {
   ultimaMensagem?: string;
   ultimaMensagemEm?: string;
   naoLidas: number;
+  ultimaSeq?: number;
 }
 
 export interface EnviarMensagemRequest {
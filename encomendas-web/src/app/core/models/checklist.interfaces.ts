@@ -31,6 +31,8 @@ export interface ChecklistAnexo {
   nomeArquivo: string;
   url: string;
   tipo: string;
+  miniaturaUrl?: string;
+  exibicaoUrl?: string;
 }
 
 export interface ChecklistLogRequest {
@@ -14,6 +14,7 @@ export interface EscalaTrabalho {
   horarioFim?: string;
   tipo: TipoEscala;
   observacao?: string;
+  recorrenciaId?: number; // dia gerado por uma recorrência (sem id próprio)
 }
 
 export interface EscalaReplicacao {
@@ -37,3 +38,35 @@ export interface EscalaReplicacaoMassa {
   tipo: TipoEscala;
   observacao?: string;
 }
+
+export interface EscalaRecorrencia {
+  id: number;
+  usuarioId: number;
+  dataInicio: string;
+  dataFim: string;
+  diasSemana: number[]; // 1=Seg, 7=Dom
+  horarioInicio?: string;
+  horarioFim?: string;
+  tipo: TipoEscala;
+  observacao?: string;
+}
+
+// Grade mensal da equipe em arrays densos: linha = membro, coluna = dia do mês
+export interface EscalaGradeEquipe {
+  mes: string; // yyyy-MM
+  dias: number;
+  legenda: TipoEscala[];   // tipos[m][d] = índice na legenda + 1 (0 = sem escala)
+  usuarioIds: number[];
+  nomes: string[];
+  tipos: number[][];
+  horarios: (string | null)[][]; // "HH:mm-HH:mm"
+}
+
+// Cobertura mensal: porHora[d][h] = pessoas escaladas no dia d+1 na faixa h..h+1
+export interface EscalaCobertura {
+  mes: string;
+  dias: number;
+  porHora: number[][];
+  porDia: number[];
+  alertas: { data: string; hora: number | null; escalados: number; minimo: number }[];
+}
@@ -8,3 +8,15 @@ export interface Notificacao {
   remetenteNome?: string;
   destinatarioNome?: string;
 }
+
+export interface NotificacaoPagina {
+  notificacoes: Notificacao[];
+  temMais: boolean;
+  proximoCursor?: string | null;
+}
+
+// Evento do stream de notificações: sem notificacao é só a atualização do contador
+export interface NotificacaoEvento {
+  notificacao?: Notificacao | null;
+  naoLidas: number;
+}
@@ -8,6 +8,9 @@ import { environment } from '../../../environments/environment';
 import {
   Conversa,
   MensagemChat,
+  MensagemPagina,
+  MensagemBuscaPagina,
+  PresencaEquipe,
   EnviarMensagemRequest,
   CriarConversaRequest
 } from '../models/chat.interfaces';
@@ -27,6 +30,12 @@ export class ChatService {
 
   private _activeConversaId: string | null = null;
 
+  // Sincronização após reconexão: última seq vista em cada conversa e canais que caíram entretanto
+  private equipeId: string | null = null;
+  private ultimaSeq = new Map<string, number>();
+  private desconectado = false;
+  private aoVoltarOnline = () => this.sincronizar();
+
   constructor(private http: HttpClient) {}
 
   // ---- REST ----
@@ -40,11 +49,23 @@ export class ChatService {
     return this.http.post<{ id: string; tipo: string }>(`${this.apiUrl}/conversas`, req);
   }
 
-  getMensagens(conversaId: string, page: number = 0): Observable<MensagemChat[]> {
-    const params = new HttpParams()
-      .set('conversaId', conversaId)
-      .set('page', page.toString());
-    return this.http.get<MensagemChat[]>(`${this.apiUrl}/mensagens`, { params });
+  // Sem cursor: mensagens mais recentes; 'antes': página anterior ao cursor (scroll para trás)
+  getMensagens(conversaId: string, antes?: string): Observable<MensagemPagina> {
+    let params = new HttpParams().set('conversaId', conversaId);
+    if (antes) params = params.set('antes', antes);
+    return this.http.get<MensagemPagina>(`${this.apiUrl}/mensagens`, { params });
+  }
+
+  // Após reconexão: o que chegou a cada conversa depois da última seq vista (conversaId -> seq)
+  getMensagensDesde(equipeId: string, posicoes: Record<string, number>): Observable<MensagemPagina> {
+    return this.http.post<MensagemPagina>(`${this.apiUrl}/mensagens/desde`, { equipeId, posicoes });
+  }
+
+  // Busca por relevância no histórico; 'cursor' é o proximoCursor da página anterior
+  buscarMensagens(equipeId: string, q: string, cursor?: string): Observable<MensagemBuscaPagina> {
+    let params = new HttpParams().set('equipeId', equipeId).set('q', q);
+    if (cursor) params = params.set('cursor', cursor);
+    return this.http.get<MensagemBuscaPagina>(`${this.apiUrl}/mensagens/busca`, { params });
   }
 
   enviarMensagem(req: EnviarMensagemRequest): Observable<MensagemChat> {
@@ -60,12 +81,19 @@ export class ChatService {
     return this.http.get<number>(`${this.apiUrl}/badge`, { params });
   }
 
+  getPresenca(equipeId: string): Observable<PresencaEquipe> {
+    const params = new HttpParams().set('equipeId', equipeId);
+    return this.http.get<PresencaEquipe>(`${this.apiUrl}/presenca`, { params });
+  }
+
   // ---- Supabase Realtime ----
 
-  connect(userId: number): void {
+  connect(userId: number, equipeId: string): void {
     if (this.supabase) return;
 
+    this.equipeId = equipeId;
     this.supabase = createClient(environment.supabaseUrl, environment.supabaseAnonKey);
+    window.addEventListener('online', this.aoVoltarOnline);
 
     // Assina canal de badge do usuário
     const badgeChannel = this.supabase.channel(`badge:${userId}`);
@@ -73,7 +101,7 @@ export class ChatService {
       .on('broadcast', { event: 'update' }, ({ payload }) => {
         this.badgeSubject.next(payload as number);
       })
-      .subscribe();
+      .subscribe(status => this.acompanharEstado(status));
     this.channels.set(`badge:${userId}`, badgeChannel);
   }
 
@@ -84,9 +112,9 @@ export class ChatService {
     const channel = this.supabase.channel(key);
     channel
       .on('broadcast', { event: 'mensagem' }, ({ payload }) => {
-        this.messagesSubject.next(payload as MensagemChat);
+        this.emitir(payload as MensagemChat);
       })
-      .subscribe();
+      .subscribe(status => this.acompanharEstado(status));
     this.channels.set(key, channel);
   }
 
@@ -99,6 +127,40 @@ export class ChatService {
     }
   }
 
+  // Última seq já mostrada na conversa (ex.: a da mensagem mais recente da primeira página)
+  registrarPosicao(conversaId: string, seq: number): void {
+    if (seq > (this.ultimaSeq.get(conversaId) ?? -1)) this.ultimaSeq.set(conversaId, seq);
+  }
+
+  private emitir(msg: MensagemChat): void {
+    if (msg.seq != null) this.registrarPosicao(msg.conversaId, msg.seq);
+    this.messagesSubject.next(msg);
+  }
+
+  // Um canal que volta a SUBSCRIBED depois de erro/timeout perdeu os broadcasts do intervalo
+  private acompanharEstado(status: string): void {
+    if (status === 'CHANNEL_ERROR' || status === 'TIMED_OUT') {
+      this.desconectado = true;
+    } else if (status === 'SUBSCRIBED' && this.desconectado) {
+      this.desconectado = false;
+      this.sincronizar();
+    }
+  }
+
+  // Busca o que chegou a cada conversa depois da última seq vista, em páginas, e entrega como
+  // se viesse do canal. Cada mensagem emitida avança a posição, por isso a página seguinte continua dali
+  private sincronizar(): void {
+    if (!this.supabase || !this.equipeId || this.ultimaSeq.size === 0) return;
+
+    this.getMensagensDesde(this.equipeId, Object.fromEntries(this.ultimaSeq)).subscribe({
+      next: (pagina) => {
+        pagina.mensagens.forEach(m => this.emitir(m));
+        if (pagina.temMais) this.sincronizar();
+      },
+      error: (err) => console.error('Erro ao sincronizar mensagens após reconexão:', err)
+    });
+  }
+
   setActiveConversa(conversaId: string | null): void {
     this._activeConversaId = conversaId;
   }
@@ -116,7 +178,11 @@ export class ChatService {
       this.supabase.removeAllChannels();
       this.supabase = null;
     }
+    window.removeEventListener('online', this.aoVoltarOnline);
     this.channels.clear();
     this._activeConversaId = null;
+    this.equipeId = null;
+    this.ultimaSeq.clear();
+    this.desconectado = false;
   }
 }
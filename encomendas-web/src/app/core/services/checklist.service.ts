@@ -87,8 +87,8 @@ export class ChecklistService {
     return this.http.delete<void>(`${this.apiUrl}/cards/${cardId}`);
   }
 
-  moverCard(cardId: string, boardId: string): Observable<void> {
-    return this.http.post<void>(`${this.apiUrl}/cards/${cardId}/mover`, { boardId });
+  moverCard(cardId: string, boardId: string, anteriorId?: string | null, posteriorId?: string | null): Observable<void> {
+    return this.http.post<void>(`${this.apiUrl}/cards/${cardId}/mover`, { boardId, anteriorId, posteriorId });
   }
 
   adicionarItem(cardId: string, descricao: string, ordem: number): Observable<ChecklistItem> {
@@ -123,6 +123,15 @@ export class ChecklistService {
     return this.http.put<void>(`${this.apiUrl}/cards/reordenar`, payload);
   }
 
+  // Movimento unitário: envia só os vizinhos na nova posição (o backend altera uma única linha)
+  reposicionarBoard(boardId: string, anteriorId: string | null, posteriorId: string | null): Observable<void> {
+    return this.http.put<void>(`${this.apiUrl}/boards/${boardId}/posicao`, { anteriorId, posteriorId });
+  }
+
+  reposicionarCard(cardId: string, anteriorId: string | null, posteriorId: string | null): Observable<void> {
+    return this.http.put<void>(`${this.apiUrl}/cards/${cardId}/posicao`, { anteriorId, posteriorId });
+  }
+
   // --- RELATÓRIO DE ATIVIDADES (Admin) ---
   getRelatorio(equipeId: string, data: string): Observable<ChecklistRelatorio> {
     const params = new HttpParams().set('equipeId', equipeId).set('data', data);
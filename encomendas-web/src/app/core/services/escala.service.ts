@@ -2,7 +2,7 @@ import { Injectable } from '@angular/core';
 import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
 import { environment } from '../../../environments/environment';
-import { EscalaTrabalho, EscalaReplicacao, EscalaReplicacaoMassa } from '../models/escala.interfaces';
+import { EscalaTrabalho, EscalaReplicacao, EscalaReplicacaoMassa, EscalaRecorrencia, EscalaGradeEquipe, EscalaCobertura } from '../models/escala.interfaces';
 
 @Injectable({
   providedIn: 'root'
@@ -23,6 +23,19 @@ export class EscalaService {
     return this.http.get<EscalaTrabalho[]>(this.apiUrl, { params });
   }
 
+  // Grade do mês inteiro da equipe num único pedido (mes = 'yyyy-MM')
+  getGradeEquipe(equipeId: string, mes: string): Observable<EscalaGradeEquipe> {
+    const params = new HttpParams().set('mes', mes);
+    return this.http.get<EscalaGradeEquipe>(`${this.apiUrl}/equipe/${equipeId}`, { params });
+  }
+
+  getCobertura(equipeId: string, mes: string, minimoDia?: number, minimoHora?: number): Observable<EscalaCobertura> {
+    let params = new HttpParams().set('mes', mes);
+    if (minimoDia != null) params = params.set('minimoDia', minimoDia.toString());
+    if (minimoHora != null) params = params.set('minimoHora', minimoHora.toString());
+    return this.http.get<EscalaCobertura>(`${this.apiUrl}/equipe/${equipeId}/cobertura`, { params });
+  }
+
   salvarEscala(escala: EscalaTrabalho): Observable<EscalaTrabalho> {
     // POST /api/escalas
     return this.http.post<EscalaTrabalho>(this.apiUrl, escala);
@@ -37,4 +50,19 @@ export class EscalaService {
     // POST /api/escalas/replicar-massa
     return this.http.post<void>(`${this.apiUrl}/replicar-massa`, replicacao);
   }
+
+  // --- RECORRÊNCIAS (padrão guardado uma vez, expandido no backend) ---
+
+  listarRecorrencias(usuarioId: number): Observable<EscalaRecorrencia[]> {
+    const params = new HttpParams().set('usuarioId', usuarioId.toString());
+    return this.http.get<EscalaRecorrencia[]>(`${this.apiUrl}/recorrencias`, { params });
+  }
+
+  criarRecorrencia(recorrencia: EscalaReplicacaoMassa): Observable<EscalaRecorrencia[]> {
+    return this.http.post<EscalaRecorrencia[]>(`${this.apiUrl}/recorrencias`, recorrencia);
+  }
+
+  excluirRecorrencia(id: number): Observable<void> {
+    return this.http.delete<void>(`${this.apiUrl}/recorrencias/${id}`);
+  }
 }
@@ -1,9 +1,9 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable, of } from 'rxjs';
-import { tap } from 'rxjs/operators';
+import { switchMap, tap } from 'rxjs/operators';
 import { environment } from '../../../environments/environment';
-import { Notificacao } from '../models/notificacao.interfaces';
+import { NotificacaoEvento, NotificacaoPagina } from '../models/notificacao.interfaces';
 
 @Injectable({ providedIn: 'root' })
 export class NotificacaoService {
@@ -13,7 +13,7 @@ export class NotificacaoService {
   private readonly CONTADOR_TTL = 15_000;
 
   private cache: {
-    notificacoes?: { data: Notificacao[]; timestamp: number };
+    notificacoes?: { data: NotificacaoPagina; timestamp: number };
     contador?: { data: number; timestamp: number };
   } = {};
 
@@ -24,13 +24,16 @@ export class NotificacaoService {
   }
 
   // No usuarioId param — the backend derives it from the authenticated JWT principal
-  getNotificacoes(): Observable<Notificacao[]> {
+  // Sem cursor = primeira página (a única em cache); o proximoCursor da página traz as seguintes
+  getNotificacoes(cursor?: string, limite = 20): Observable<NotificacaoPagina> {
     const now = Date.now();
-    if (this.cache.notificacoes && (now - this.cache.notificacoes.timestamp) < this.NOTIFICACOES_TTL) {
+    if (!cursor && this.cache.notificacoes && (now - this.cache.notificacoes.timestamp) < this.NOTIFICACOES_TTL) {
       return of(this.cache.notificacoes.data);
     }
-    return this.http.get<Notificacao[]>(this.apiUrl).pipe(
-      tap(data => { this.cache.notificacoes = { data, timestamp: Date.now() }; })
+    let params = new HttpParams().set('limite', limite);
+    if (cursor) params = params.set('cursor', cursor);
+    return this.http.get<NotificacaoPagina>(this.apiUrl, { params }).pipe(
+      tap(data => { if (!cursor) this.cache.notificacoes = { data, timestamp: Date.now() }; })
     );
   }
 
@@ -44,6 +47,29 @@ export class NotificacaoService {
     );
   }
 
+  // Eventos por SSE (notificação nova + total de não lidas). O stream abre com um ticket de
+  // uso único pedido por POST, para o JWT não ir na URL. O ticket não serve para o EventSource
+  // religar sozinho: qualquer queda fecha a ligação e emite erro, e quem assina volta a chamar
+  // stream() para obter um ticket novo.
+  stream(): Observable<NotificacaoEvento> {
+    return this.http.post<{ ticket: string }>(`${this.apiUrl}/stream/ticket`, {}).pipe(
+      switchMap(({ ticket }) => new Observable<NotificacaoEvento>(subscriber => {
+        const fonte = new EventSource(`${this.apiUrl}/stream?ticket=${encodeURIComponent(ticket)}`);
+        fonte.addEventListener('notificacoes', (e: MessageEvent) => {
+          const evento: NotificacaoEvento = JSON.parse(e.data);
+          if (evento.notificacao) delete this.cache.notificacoes;
+          this.cache.contador = { data: evento.naoLidas, timestamp: Date.now() };
+          subscriber.next(evento);
+        });
+        fonte.onerror = () => {
+          fonte.close();
+          subscriber.error(new Error('Stream de notificações interrompido'));
+        };
+        return () => fonte.close();
+      }))
+    );
+  }
+
   enviarNotificacao(payload: {
     equipeId: string;
     destinatarioId?: number | null;
@@ -59,6 +59,9 @@ export class Navbar implements OnInit, OnDestroy {
   naoLidas = 0;
   private usuarioId: number | null = null;
   private pollingInterval: Subscription | undefined;
+  private streamSub: Subscription | undefined;
+  private streamTentativas = 0;
+  private streamReconexao: ReturnType<typeof setTimeout> | undefined;
 
   // Chat badge (REST-only polling, no WebSocket in navbar)
   chatNaoLidas = 0;
@@ -123,19 +126,52 @@ export class Navbar implements OnInit, OnDestroy {
     });
 
     if (this.usuarioId) {
-      // Poll for new notifications every 60 seconds
-      this.pollingInterval = interval(60000).pipe(
-        startWith(0),
-        switchMap(() => this.notificacaoService.getContadorNaoLidas())
-      ).subscribe(count => {
-        this.naoLidas = count;
-      });
+      // Push via SSE (contador + notificações novas); polling só enquanto o stream está em baixo
+      this.abrirStream();
     }
   }
 
+  private abrirStream(): void {
+    this.streamSub = this.notificacaoService.stream().subscribe({
+      next: evento => {
+        // O servidor envia o contador logo ao abrir: a ligação está de pé
+        this.streamTentativas = 0;
+        this.pararPolling();
+        this.naoLidas = evento.naoLidas;
+        if (evento.notificacao) {
+          this.notificacoes = [evento.notificacao, ...this.notificacoes].slice(0, 15);
+        }
+      },
+      error: () => {
+        // Religa com um ticket novo (2s, 4s, 8s... até 60s); entretanto o contador vem por polling
+        this.iniciarPolling();
+        const espera = Math.min(60000, 2000 * 2 ** this.streamTentativas++);
+        this.streamReconexao = setTimeout(() => this.abrirStream(), espera);
+      }
+    });
+  }
+
+  private iniciarPolling(): void {
+    if (this.pollingInterval) return;
+    // Poll for new notifications every 60 seconds
+    this.pollingInterval = interval(60000).pipe(
+      startWith(0),
+      switchMap(() => this.notificacaoService.getContadorNaoLidas())
+    ).subscribe(count => {
+      this.naoLidas = count;
+    });
+  }
+
+  private pararPolling(): void {
+    this.pollingInterval?.unsubscribe();
+    this.pollingInterval = undefined;
+  }
+
   ngOnDestroy(): void {
     this.breakpointSub?.unsubscribe();
     this.pollingInterval?.unsubscribe();
+    this.streamSub?.unsubscribe();
+    clearTimeout(this.streamReconexao);
     this.chatPollingInterval?.unsubscribe();
     this.routerSub?.unsubscribe();
   }
@@ -153,8 +189,8 @@ export class Navbar implements OnInit, OnDestroy {
     if (!this.usuarioId) return;
     // Force overlay reposition after CSS panelClass has been applied (fixes off-screen on first open)
     setTimeout(() => this.notifTrigger?.updatePosition(), 0);
-    this.notificacaoService.getNotificacoes().subscribe(lista => {
-      this.notificacoes = lista.slice(0, 15);
+    this.notificacaoService.getNotificacoes(undefined, 15).subscribe(pagina => {
+      this.notificacoes = pagina.notificacoes;
     });
   }
 
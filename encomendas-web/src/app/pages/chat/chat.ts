@@ -63,7 +63,7 @@ export class ChatPage implements OnInit, OnDestroy, AfterViewChecked {
   loadingMensagens = false;
   enviando = false;
   carregandoPagina = false;
-  paginaAtual = 0;
+  cursorAnteriores?: string;
   temMaisAnteriores = true;
 
   // Member selector
@@ -97,7 +97,7 @@ export class ChatPage implements OnInit, OnDestroy, AfterViewChecked {
     }
     this.equipeId = equipeId;
 
-    this.chatService.connect(this.userId);
+    this.chatService.connect(this.userId, this.equipeId);
 
     this.msgSub = this.chatService.messages$.subscribe(msg => {
       const c = this.conversas.find(c => c.id === msg.conversaId);
@@ -205,33 +205,38 @@ export class ChatPage implements OnInit, OnDestroy, AfterViewChecked {
 
     this.conversaAtiva = conversa;
     this.mensagens = [];
-    this.paginaAtual = 0;
+    this.cursorAnteriores = undefined;
     this.temMaisAnteriores = true;
 
     this.chatService.setActiveConversa(conversa.id);
     this.chatService.subscribeToConversa(conversa.id);
     this.activeConversaSubscription = conversa.id;
 
-    this.carregarMensagens(0, true);
+    this.carregarMensagens();
 
     conversa.naoLidas = 0;
     this.chatService.marcarLida(conversa.id).subscribe();
   }
 
-  carregarMensagens(page: number = 0, append: boolean = false): void {
+  carregarMensagens(anteriores: boolean = false): void {
     if (!this.conversaAtiva) return;
-    this.loadingMensagens = page === 0;
-    this.carregandoPagina = page > 0;
-
-    this.chatService.getMensagens(this.conversaAtiva.id, page).subscribe({
-      next: msgs => {
-        if (page === 0) {
-          this.mensagens = msgs;
+    this.loadingMensagens = !anteriores;
+    this.carregandoPagina = anteriores;
+
+    const antes = anteriores ? this.cursorAnteriores : undefined;
+    const conversaId = this.conversaAtiva.id;
+    this.chatService.getMensagens(conversaId, antes).subscribe({
+      next: pagina => {
+        if (!anteriores) {
+          this.mensagens = pagina.mensagens;
           this.shouldScroll = true;
+          const ultima = pagina.mensagens[pagina.mensagens.length - 1];
+          this.chatService.registrarPosicao(conversaId, ultima?.seq ?? 0);
         } else {
-          this.mensagens = [...msgs, ...this.mensagens];
+          this.mensagens = [...pagina.mensagens, ...this.mensagens];
         }
-        if (msgs.length < 30) this.temMaisAnteriores = false;
+        this.cursorAnteriores = pagina.cursorAntes ?? this.cursorAnteriores;
+        this.temMaisAnteriores = pagina.temMais;
         this.loadingMensagens = false;
         this.carregandoPagina = false;
         this.cdr.detectChanges();
@@ -245,8 +250,7 @@ export class ChatPage implements OnInit, OnDestroy, AfterViewChecked {
 
   carregarAnteriores(): void {
     if (!this.temMaisAnteriores || this.carregandoPagina) return;
-    this.paginaAtual++;
-    this.carregarMensagens(this.paginaAtual, false);
+    this.carregarMensagens(true);
   }
 
   enviarMensagem(): void {
@@ -147,7 +147,12 @@ export class ChecklistDiaComponent implements OnInit, OnDestroy {
     moveItemInArray(this.boards, event.previousIndex, event.currentIndex);
     this.boards.forEach((board, index) => { board.ordem = index; });
 
-    this.checklistService.reordenarBoards(this.boards).subscribe({
+    const i = event.currentIndex;
+    this.checklistService.reposicionarBoard(
+      this.boards[i].id,
+      this.boards[i - 1]?.id ?? null,
+      this.boards[i + 1]?.id ?? null
+    ).subscribe({
       error: () => this.snackBar.open('Erro ao salvar ordem. Recarregue a página.', 'Fechar', { duration: 4000 })
     });
   }
@@ -160,7 +165,13 @@ export class ChecklistDiaComponent implements OnInit, OnDestroy {
       moveItemInArray(event.container.data, event.previousIndex, event.currentIndex);
       event.container.data.forEach((card, index) => { card.ordem = index; });
 
-      this.checklistService.reordenarCards(event.container.data).subscribe({
+      const cards = event.container.data;
+      const i = event.currentIndex;
+      this.checklistService.reposicionarCard(
+        cards[i].id,
+        cards[i - 1]?.id ?? null,
+        cards[i + 1]?.id ?? null
+      ).subscribe({
         error: () => this.snackBar.open('Erro ao salvar ordem. Recarregue a página.', 'Fechar', { duration: 4000 })
       });
     } else {
@@ -181,21 +192,16 @@ export class ChecklistDiaComponent implements OnInit, OnDestroy {
         event.container.data.forEach((c, i) => { c.ordem = i; });
         event.previousContainer.data.forEach((c, i) => { c.ordem = i; });
 
-        // Persist move + reorder
-        this.checklistService.moverCard(card.id, targetBoard.id).subscribe({
+        // Persist move + posição (vizinhos no board de destino)
+        const i = event.currentIndex;
+        this.checklistService.moverCard(
+          card.id,
+          targetBoard.id,
+          event.container.data[i - 1]?.id ?? null,
+          event.container.data[i + 1]?.id ?? null
+        ).subscribe({
           error: () => this.snackBar.open('Erro ao mover cartão.', 'Fechar', { duration: 4000 })
         });
-
-        if (event.container.data.length > 1) {
-          this.checklistService.reordenarCards(event.container.data).subscribe({
-            error: () => {}
-          });
-        }
-        if (event.previousContainer.data.length > 0) {
-          this.checklistService.reordenarCards(event.previousContainer.data).subscribe({
-            error: () => {}
-          });
-        }
       }
     }
   }
@@ -13,7 +13,7 @@ import { TeamService } from '../../core/team/team.service';
 import { EscalaService } from '../../core/services/escala.service';
 import { EscalaFormDialog } from '../../components/dialogs/escala-form-dialog/escala-form-dialog';
 import { UsuarioResponse } from '../../core/models/usuario.interfaces';
-import { EscalaReplicacao, EscalaReplicacaoMassa, EscalaTrabalho } from '../../core/models/escala.interfaces';
+import { EscalaCobertura, EscalaGradeEquipe, EscalaRecorrencia, EscalaReplicacaoMassa, EscalaTrabalho } from '../../core/models/escala.interfaces';
 import { Subject } from 'rxjs';
 import { takeUntil } from 'rxjs/operators';
 
@@ -51,6 +51,18 @@ export class EscalaAdminComponent implements OnInit, OnDestroy {
   diasSemana = ['Dom', 'Seg', 'Ter', 'Qua', 'Qui', 'Sex', 'Sáb'];
   loading = false;
 
+  // Visão da equipe: grade do mês inteiro num único pedido
+  grade: EscalaGradeEquipe | null = null;
+  diasGrade: number[] = [];
+
+  // Cobertura do mês: alertas agrupados por dia do mês (texto para o tooltip)
+  cobertura: EscalaCobertura | null = null;
+  alertasPorDia = new Map<number, string>();
+
+  // Repetições semanais do funcionário visível (guardadas como regra, expandidas no backend)
+  recorrencias: EscalaRecorrencia[] = [];
+  private nomesDiaSemana = ['Seg', 'Ter', 'Qua', 'Qui', 'Sex', 'Sáb', 'Dom']; // 1=Seg, 7=Dom
+
   constructor(
     private teamService: TeamService,
     private escalaService: EscalaService,
@@ -61,6 +73,7 @@ export class EscalaAdminComponent implements OnInit, OnDestroy {
   ngOnInit(): void {
     this.carregarMembros();
     this.gerarCalendario();
+    this.carregarGrade();
   }
 
   carregarMembros() {
@@ -111,13 +124,13 @@ export class EscalaAdminComponent implements OnInit, OnDestroy {
   mesAnterior() {
     this.dataAtual = new Date(this.dataAtual.getFullYear(), this.dataAtual.getMonth() - 1, 1);
     this.gerarCalendario();
-    this.carregarEscalas();
+    this.recarregar();
   }
 
   proximoMes() {
     this.dataAtual = new Date(this.dataAtual.getFullYear(), this.dataAtual.getMonth() + 1, 1);
     this.gerarCalendario();
-    this.carregarEscalas();
+    this.recarregar();
   }
 
   get mesAnoTitulo(): string {
@@ -142,6 +155,80 @@ export class EscalaAdminComponent implements OnInit, OnDestroy {
       },
       error: () => this.loading = false
     });
+
+    this.carregarRecorrencias();
+  }
+
+  carregarRecorrencias() {
+    if (!this.usuarioSelecionadoId) return;
+
+    this.escalaService.listarRecorrencias(this.usuarioSelecionadoId).pipe(takeUntil(this.destroy$)).subscribe({
+      next: (dados) => this.recorrencias = dados,
+      error: () => this.recorrencias = []
+    });
+  }
+
+  excluirRecorrencia(recorrencia: EscalaRecorrencia) {
+    if (!confirm(`Excluir a repetição de ${this.descreverDias(recorrencia.diasSemana)}? Os dias gerados por ela deixam de aparecer.`)) return;
+
+    this.escalaService.excluirRecorrencia(recorrencia.id).subscribe({
+      next: () => {
+        this.snackBar.open('Repetição excluída.', 'OK', { duration: 2000 });
+        this.recarregar();
+      },
+      error: () => this.snackBar.open('Erro ao excluir repetição.', 'Fechar')
+    });
+  }
+
+  descreverDias(diasSemana: number[]): string {
+    return diasSemana.map(d => this.nomesDiaSemana[d - 1]).join(', ');
+  }
+
+  carregarGrade() {
+    const equipeId = this.teamService.getEquipeAtivaId();
+    if (!equipeId) return;
+
+    const mes = this.formatDate(this.dataAtual).substring(0, 7);
+    this.escalaService.getGradeEquipe(equipeId, mes).pipe(takeUntil(this.destroy$)).subscribe({
+      next: (grade) => {
+        this.grade = grade;
+        this.diasGrade = Array.from({ length: grade.dias }, (_, i) => i + 1);
+      },
+      error: () => this.snackBar.open('Erro ao carregar a escala da equipe.', 'Fechar', { duration: 3000 })
+    });
+
+    this.escalaService.getCobertura(equipeId, mes).pipe(takeUntil(this.destroy$)).subscribe({
+      next: (cobertura) => {
+        this.cobertura = cobertura;
+        this.alertasPorDia.clear();
+        cobertura.alertas.forEach(a => {
+          const dia = Number(a.data.substring(8, 10));
+          const texto = a.hora != null
+            ? `${String(a.hora).padStart(2, '0')}h: ${a.escalados} de ${a.minimo}`
+            : `Dia: ${a.escalados} de ${a.minimo}`;
+          const anterior = this.alertasPorDia.get(dia);
+          this.alertasPorDia.set(dia, anterior ? `${anterior}\n${texto}` : texto);
+        });
+      },
+      error: () => this.cobertura = null
+    });
+  }
+
+  // Tipo do membro (linha) no dia do mês, a partir dos códigos da legenda (0 = sem escala)
+  tipoNaGrade(linha: number, dia: number): string | undefined {
+    const codigo = this.grade?.tipos[linha][dia - 1];
+    return codigo ? this.grade!.legenda[codigo - 1] : undefined;
+  }
+
+  abrirDaGrade(linha: number) {
+    this.usuarioSelecionadoId = this.grade!.usuarioIds[linha];
+    this.carregarEscalas();
+  }
+
+  // Após gravar: a grade da equipe e o calendário do funcionário visível
+  private recarregar() {
+    this.carregarGrade();
+    this.carregarEscalas();
   }
 
   gerarCalendario() {
@@ -226,42 +313,14 @@ export class EscalaAdminComponent implements OnInit, OnDestroy {
     this.escalaService.salvarEscala(payload).subscribe({
       next: () => {
         this.snackBar.open('Escala atualizada!', 'OK', { duration: 2000 });
-        this.carregarEscalas();
+        this.recarregar();
       },
       error: () => this.snackBar.open('Erro ao salvar.', 'Fechar')
     });
   }
 
   salvarReplicacao(dadosRep: any) {
-    if (!dadosRep.dataInicio || !dadosRep.dataFim) {
-      this.snackBar.open('Datas inválidas para replicação.', 'Fechar');
-      return;
-    }
-
-    const payload: EscalaReplicacao = {
-      usuarioId: this.usuarioSelecionadoId!,
-      dataInicio: this.formatDate(new Date(dadosRep.dataInicio)),
-      dataFim: this.formatDate(new Date(dadosRep.dataFim)),
-      diasSemana: dadosRep.diasSemana,
-      tipo: dadosRep.tipo,
-      horarioInicio: dadosRep.horarioInicio ? this.formatTime(dadosRep.horarioInicio) : undefined,
-      horarioFim: dadosRep.horarioFim ? this.formatTime(dadosRep.horarioFim) : undefined,
-      observacao: dadosRep.observacao
-    };
-
-    this.loading = true;
-    this.escalaService.replicarEscala(payload).subscribe({
-      next: () => {
-        this.snackBar.open('Escala replicada com sucesso!', 'OK', { duration: 3000 });
-        this.carregarEscalas();
-        this.loading = false;
-      },
-      error: (err) => {
-        console.error('Erro ao replicar:', err);
-        this.snackBar.open('Erro ao replicar escala.', 'Fechar');
-        this.loading = false;
-      }
-    });
+    this.criarRecorrencia([this.usuarioSelecionadoId!], dadosRep, 'Repetição semanal criada!');
   }
 
   salvarEscalaMassaSimples(dados: any) {
@@ -283,7 +342,7 @@ export class EscalaAdminComponent implements OnInit, OnDestroy {
     this.escalaService.replicarEscalaMassa(payload).subscribe({
       next: () => {
         this.snackBar.open(`Escala aplicada a ${ids.length} funcionários!`, 'OK', { duration: 3000 });
-        this.carregarEscalas();
+        this.recarregar();
         this.loading = false;
       },
       error: () => {
@@ -294,15 +353,19 @@ export class EscalaAdminComponent implements OnInit, OnDestroy {
   }
 
   salvarReplicacaoMassa(dadosRep: any) {
+    const ids = Array.from(this.membrosSelecionadosIds);
+    this.criarRecorrencia(ids, dadosRep, `Repetição semanal criada para ${ids.length} funcionários!`);
+  }
+
+  // "Repetir semanalmente" grava uma regra por funcionário em vez de materializar cada dia
+  private criarRecorrencia(usuarioIds: number[], dadosRep: any, mensagem: string) {
     if (!dadosRep.dataInicio || !dadosRep.dataFim) {
       this.snackBar.open('Datas inválidas para replicação.', 'Fechar');
       return;
     }
 
-    const ids = Array.from(this.membrosSelecionadosIds);
-
     const payload: EscalaReplicacaoMassa = {
-      usuarioIds: ids,
+      usuarioIds: usuarioIds,
       dataInicio: this.formatDate(new Date(dadosRep.dataInicio)),
       dataFim: this.formatDate(new Date(dadosRep.dataFim)),
       diasSemana: dadosRep.diasSemana,
@@ -313,15 +376,15 @@ export class EscalaAdminComponent implements OnInit, OnDestroy {
     };
 
     this.loading = true;
-    this.escalaService.replicarEscalaMassa(payload).subscribe({
+    this.escalaService.criarRecorrencia(payload).subscribe({
       next: () => {
-        this.snackBar.open(`Escala replicada para ${ids.length} funcionários!`, 'OK', { duration: 3000 });
-        this.carregarEscalas();
+        this.snackBar.open(mensagem, 'OK', { duration: 3000 });
+        this.recarregar();
         this.loading = false;
       },
       error: (err) => {
-        console.error('Erro ao replicar em massa:', err);
-        this.snackBar.open('Erro ao replicar escala em massa.', 'Fechar');
+        console.error('Erro ao criar repetição:', err);
+        this.snackBar.open('Erro ao criar repetição semanal.', 'Fechar');
         this.loading = false;
       }
     });